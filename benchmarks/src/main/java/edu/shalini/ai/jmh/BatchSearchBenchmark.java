@@ -0,0 +1,63 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.BatchSearch;
+import edu.shalini.ai.search.MinimumSpanningTreeHScoreComputer;
+import edu.shalini.ai.search.Search;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BatchSearch throughput in queries per second on a seeded 500-node map, on a pool of 1 to 8 threads, using the
+ * minimum spanning tree heuristic. More threads than free cores only add contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchSearchBenchmark {
+    private static final int NO_OF_NODES = 500;
+    private static final int NO_OF_TARGETS = 5;
+    private static final int NO_OF_QUERIES = 200;
+
+    @Param({"1", "2", "4", "8"})
+    public int noOfThreads;
+
+    private GraphSnapshot graph;
+    private List<BatchSearch.Query> queries;
+    private ForkJoinPool pool;
+    private BatchSearch batchSearch;
+
+    @Setup
+    public void setUp() {
+        graph = Maps.generate(NO_OF_NODES).freeze();
+        final Random random = new Random(Maps.SEED);
+        queries = new ArrayList<>();
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = Maps.pickQuery(graph, NO_OF_TARGETS, random);
+            queries.add(new BatchSearch.Query(query[0], Arrays.copyOfRange(query, 1, query.length),
+                    MinimumSpanningTreeHScoreComputer::new));
+        }
+        pool = new ForkJoinPool(noOfThreads);
+        batchSearch = new BatchSearch(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NO_OF_QUERIES)
+    public List<Search.Result> findShortestPaths() {
+        return batchSearch.findShortestPaths(graph, queries);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.CachingHScoreComputer;
+import edu.shalini.ai.search.HScoreCache;
+import edu.shalini.ai.search.HScoreComputer;
+import edu.shalini.ai.search.LandmarkTable;
+import edu.shalini.ai.search.Search;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Search.findShortestPath on a seeded 500-node map for every heuristic and 1 to 12 targets, with the heuristic
+ * computed afresh by every search or read through an HScoreCache that earlier searches of the query filled, as a
+ * replan would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindShortestPathBenchmark {
+    private static final int NO_OF_NODES = 500;
+    private static final int HSCORE_CACHE_CAPACITY = 1 << 18;
+
+    @Param({"zero", "farthest", "nearest", "mst", "landmarks"})
+    public String heuristic;
+
+    @Param({"1", "2", "4", "6", "8", "10", "12"})
+    public int noOfTargets;
+
+    @Param({"none", "warm"})
+    public String cache;
+
+    private GraphSnapshot graph;
+    private int sourceNodeId;
+    private int[] targetNodeIds;
+    private Supplier<HScoreComputer> computerSupplier;
+    private HScoreCache hScoreCache;
+    private Search search;
+
+    @Setup
+    public void setUp() {
+        graph = Maps.generate(NO_OF_NODES).freeze();
+        final int[] query = Maps.pickQuery(graph, noOfTargets, new Random(Maps.SEED));
+        sourceNodeId = query[0];
+        targetNodeIds = Arrays.copyOfRange(query, 1, query.length);
+        computerSupplier = Maps.heuristic(heuristic);
+        if ("landmarks".equals(heuristic)) {
+            // Keep the one-off landmark preprocessing out of the measurements.
+            LandmarkTable.forGraph(graph);
+        }
+        if ("warm".equals(cache)) {
+            // The warm-up iterations fill the cache, so the measurements only see hits.
+            hScoreCache = new HScoreCache(HSCORE_CACHE_CAPACITY);
+        }
+        search = new Search();
+    }
+
+    @Benchmark
+    public Search.Result findShortestPath() {
+        final HScoreComputer computer = hScoreCache == null ? computerSupplier.get()
+                : new CachingHScoreComputer(computerSupplier.get(), hScoreCache);
+        return search.findShortestPath(graph, sourceNodeId, targetNodeIds, computer);
+    }
+}
@@ -0,0 +1,55 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.HeldKarpSearch;
+import edu.shalini.ai.search.Heuristic;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchEngine;
+import edu.shalini.ai.search.SearchMonitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HeldKarpSearch against A* with the minimum spanning tree heuristic on a seeded 500-node map, for 6 targets up to
+ * HeldKarpSearch.MAX_TARGETS. Held-Karp's time depends only on the number of targets, A*'s also on where they are.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeldKarpBenchmark {
+    private static final int NO_OF_NODES = 500;
+
+    @Param({"held-karp", "astar"})
+    public String engine;
+
+    @Param({"6", "8", "10", "12", "14", "16"})
+    public int noOfTargets;
+
+    private GraphSnapshot graph;
+    private int sourceNodeId;
+    private int[] targetNodeIds;
+    private SearchEngine searchEngine;
+
+    @Setup
+    public void setUp() {
+        graph = Maps.generate(NO_OF_NODES).freeze();
+        final int[] query = Maps.pickQuery(graph, noOfTargets, new Random(Maps.SEED));
+        sourceNodeId = query[0];
+        targetNodeIds = Arrays.copyOfRange(query, 1, query.length);
+        searchEngine = "held-karp".equals(engine)
+                ? new HeldKarpSearch(ForkJoinPool.commonPool())
+                : SearchEngine.aStar(Heuristic.MST);
+    }
+
+    @Benchmark
+    public Search.Result findShortestPath() {
+        return searchEngine.findShortestPath(graph, sourceNodeId, targetNodeIds, SearchMonitor.NONE);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.WorldMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorldMap.generateMap with a fixed seed, in parallel on the common pool and, for comparison, serially.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapGenerationBenchmark {
+    @Param({"500", "5000", "50000"})
+    public int noOfNodes;
+
+    @Benchmark
+    public WorldMap generateMap() {
+        return Maps.generate(noOfNodes);
+    }
+
+    @Benchmark
+    public WorldMap generateMapSerially() {
+        final int side = Maps.sideFor(noOfNodes);
+        return WorldMap.generateMap(noOfNodes, Maps.MIN_DISTANCE, side, side, new Random(Maps.SEED));
+    }
+}
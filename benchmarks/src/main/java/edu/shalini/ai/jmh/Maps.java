@@ -0,0 +1,73 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.Constants;
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.search.HScoreComputer;
+import edu.shalini.ai.search.Heuristic;
+import edu.shalini.ai.search.ShortestPaths;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Seeded maps and queries shared by the benchmarks, so every run measures the same inputs.
+ */
+public final class Maps {
+    public static final long SEED = 20240501L;
+    public static final double MIN_DISTANCE = 25;
+
+    private Maps() {
+    }
+
+    /**
+     * Side length of a square area that comfortably holds the nodes at the minimum distance.
+     * @param noOfNodes
+     * @return
+     */
+    public static int sideFor(final int noOfNodes) {
+        return Math.max(Constants.WORLD_MAP_RENDER_PANEL_WIDTH - 1, (int) (Math.sqrt(noOfNodes) * 2 * MIN_DISTANCE));
+    }
+
+    public static WorldMap generate(final int noOfNodes) {
+        final int side = sideFor(noOfNodes);
+        return WorldMap.generateMap(noOfNodes, MIN_DISTANCE, side, side, SEED);
+    }
+
+    /**
+     * Picks a source and targets from the source's connected component.
+     * @param graph
+     * @param noOfTargets
+     * @param random
+     * @return source node id followed by the target node ids
+     */
+    public static int[] pickQuery(final GraphSnapshot graph, final int noOfTargets, final Random random) {
+        while (true) {
+            final int sourceNodeId = random.nextInt(graph.getNodeCount());
+            final double[] distances = ShortestPaths.computeDistances(graph, sourceNodeId);
+            final List<Integer> reachableNodeIds = new ArrayList<>();
+            for (int nodeId = 0; nodeId < distances.length; ++nodeId) {
+                if (nodeId != sourceNodeId && !Double.isInfinite(distances[nodeId])) {
+                    reachableNodeIds.add(nodeId);
+                }
+            }
+            if (reachableNodeIds.size() < noOfTargets) {
+                continue;
+            }
+            Collections.shuffle(reachableNodeIds, random);
+            final int[] query = new int[noOfTargets + 1];
+            query[0] = sourceNodeId;
+            for (int i = 0; i < noOfTargets; ++i) {
+                query[i + 1] = reachableNodeIds.get(i);
+            }
+            return query;
+        }
+    }
+
+    public static Supplier<HScoreComputer> heuristic(final String name) {
+        return Heuristic.forName(name)::createComputer;
+    }
+}
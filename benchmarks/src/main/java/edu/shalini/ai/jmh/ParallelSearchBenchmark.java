@@ -0,0 +1,55 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.Heuristic;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchEngine;
+import edu.shalini.ai.search.SearchMonitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One query with many targets on a seeded 5000-node map, by A* and by ParallelSearch with 1 to 4 workers, all using
+ * the minimum spanning tree heuristic. The parallel search only pays off with as many free cores as workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSearchBenchmark {
+    private static final int NO_OF_NODES = 5000;
+    private static final String PARALLEL_PREFIX = "parallel-";
+
+    @Param({"astar", "parallel-1", "parallel-2", "parallel-4"})
+    public String engine;
+
+    @Param({"8", "10"})
+    public int noOfTargets;
+
+    private GraphSnapshot graph;
+    private int sourceNodeId;
+    private int[] targetNodeIds;
+    private SearchEngine searchEngine;
+
+    @Setup
+    public void setUp() {
+        graph = Maps.generate(NO_OF_NODES).freeze();
+        final int[] query = Maps.pickQuery(graph, noOfTargets, new Random(Maps.SEED));
+        sourceNodeId = query[0];
+        targetNodeIds = Arrays.copyOfRange(query, 1, query.length);
+        searchEngine = engine.startsWith(PARALLEL_PREFIX)
+                ? SearchEngine.parallelAStar(Heuristic.MST,
+                        Integer.parseInt(engine.substring(PARALLEL_PREFIX.length())))
+                : SearchEngine.aStar(Heuristic.MST);
+    }
+
+    @Benchmark
+    public Search.Result findShortestPath() {
+        return searchEngine.findShortestPath(graph, sourceNodeId, targetNodeIds, SearchMonitor.NONE);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.HScoreComputer;
+import edu.shalini.ai.search.StateIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-relaxation hot paths in isolation: computing a neighbour's remaining targets and finding its state, with
+ * the states on the heap or off it, and computing an HScore.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchHotPathBenchmark {
+    private static final int NO_OF_NODES = 500;
+    private static final int NO_OF_TARGETS = 8;
+    private static final int NO_OF_SAMPLES = 1024;
+
+    @Param({"zero", "farthest", "nearest", "mst"})
+    public String heuristic;
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private StateIndex stateIndex;
+    private HScoreComputer computer;
+    private int[] sampleNodeIds;
+    private long[] sampleTargets;
+
+    @Setup
+    public void setUp() {
+        final GraphSnapshot graph = Maps.generate(NO_OF_NODES).freeze();
+        final Random random = new Random(Maps.SEED);
+        final int[] targetNodeIds = new int[NO_OF_TARGETS];
+        for (int i = 0; i < NO_OF_TARGETS; ++i) {
+            targetNodeIds[i] = i * (graph.getNodeCount() / NO_OF_TARGETS);
+        }
+        stateIndex = new StateIndex(targetNodeIds, offHeap);
+        computer = Maps.heuristic(heuristic).get();
+        computer.prepare(graph, targetNodeIds);
+
+        sampleNodeIds = new int[NO_OF_SAMPLES];
+        sampleTargets = new long[NO_OF_SAMPLES];
+        for (int i = 0; i < NO_OF_SAMPLES; ++i) {
+            sampleNodeIds[i] = random.nextInt(graph.getNodeCount());
+            sampleTargets[i] = random.nextInt(1 << NO_OF_TARGETS);
+            stateIndex.addState(sampleNodeIds[i], sampleTargets[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NO_OF_SAMPLES)
+    public void computeTargetsAndFindState(final Blackhole blackhole) {
+        for (int i = 0; i < NO_OF_SAMPLES; ++i) {
+            blackhole.consume(stateIndex.findState(sampleNodeIds[i], sampleTargets[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NO_OF_SAMPLES)
+    public void computeHScore(final Blackhole blackhole) {
+        for (int i = 0; i < NO_OF_SAMPLES; ++i) {
+            blackhole.consume(computer.computeHScore(sampleNodeIds[i], sampleTargets[i]));
+        }
+    }
+}
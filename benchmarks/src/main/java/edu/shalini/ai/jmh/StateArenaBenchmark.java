@@ -0,0 +1,54 @@
+package edu.shalini.ai.jmh;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.HScoreComputer;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Search.findShortestPath with the states of every search on the heap and in a StateArena, on a seeded 2000-node map
+ * with queries that create hundreds of thousands of states. BenchmarkRunner's GC profiler reports the allocation
+ * rate and the collections each storage causes. The heap is fixed so both run with the same collector settings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class StateArenaBenchmark {
+    private static final int NO_OF_NODES = 2000;
+
+    @Param({"heap", "off-heap"})
+    public String storage;
+
+    @Param({"8", "9"})
+    public int noOfTargets;
+
+    private GraphSnapshot graph;
+    private int sourceNodeId;
+    private int[] targetNodeIds;
+    private Supplier<HScoreComputer> computerSupplier;
+    private Search search;
+
+    @Setup
+    public void setUp() {
+        graph = Maps.generate(NO_OF_NODES).freeze();
+        final int[] query = Maps.pickQuery(graph, noOfTargets, new Random(Maps.SEED));
+        sourceNodeId = query[0];
+        targetNodeIds = Arrays.copyOfRange(query, 1, query.length);
+        computerSupplier = Maps.heuristic("zero");
+        search = new Search(SearchListener.NONE, false, false, "off-heap".equals(storage));
+    }
+
+    @Benchmark
+    public Search.Result findShortestPath() {
+        return search.findShortestPath(graph, sourceNodeId, targetNodeIds, computerSupplier.get());
+    }
+}
@@ -0,0 +1,34 @@
+package edu.shalini.ai.metrics.jfr;
+
+import edu.shalini.ai.search.SearchListener;
+import edu.shalini.ai.search.SearchStats;
+
+/**
+ * Commits a SearchEvent for every ended search, when a JFR recording has the event enabled, e.g. with
+ * -XX:StartFlightRecording. Can be combined with a SearchMetricsRecorder through SearchListener.compose.
+ */
+public class JfrSearchListener implements SearchListener {
+    @Override
+    public void onSearchEnded(final SearchStats stats) {
+        final SearchEvent event = new SearchEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.outcome = stats.getOutcome().name();
+        event.noOfTargets = stats.getNoOfTargets();
+        event.numExpansions = stats.getNumExpansions();
+        event.reusedExpansions = stats.getReusedExpansions();
+        event.statesGenerated = stats.getStatesGenerated();
+        event.statesImproved = stats.getStatesImproved();
+        event.statesDominated = stats.getStatesDominated();
+        event.statesPrunedByBound = stats.getStatesPrunedByBound();
+        event.peakOpenListSize = stats.getPeakOpenListSize();
+        event.hScoreEvaluations = stats.getHScoreEvaluations();
+        event.totalTime = stats.getTotalNanos();
+        event.prepareTime = stats.getPrepareNanos();
+        event.expandTime = stats.getExpandNanos();
+        event.hScoreTime = stats.getHScoreNanos();
+        event.reconstructTime = stats.getReconstructNanos();
+        event.commit();
+    }
+}
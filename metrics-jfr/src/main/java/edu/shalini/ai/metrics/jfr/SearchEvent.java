@@ -0,0 +1,73 @@
+package edu.shalini.ai.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One ended search, as recorded by JfrSearchListener.
+ * The event is committed after the search, so its own duration is zero; the search's phases are in its fields.
+ */
+@Name("edu.shalini.ai.Search")
+@Label("Search")
+@Category({"Dynamic Newspaper Delivery", "Search"})
+@Description("A multi-target route search and where its time went")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Targets")
+    int noOfTargets;
+
+    @Label("Expansions")
+    int numExpansions;
+
+    @Label("Reused Expansions")
+    @Description("Expanded states taken over from the previous search by an incremental replan")
+    int reusedExpansions;
+
+    @Label("States Generated")
+    int statesGenerated;
+
+    @Label("States Improved")
+    int statesImproved;
+
+    @Label("States Dominated")
+    @Description("States dropped as dominated by an expanded state at their node")
+    int statesDominated;
+
+    @Label("States Pruned By Bound")
+    @Description("States not generated as their f-score could not beat the upper bound")
+    int statesPrunedByBound;
+
+    @Label("Peak Open List Size")
+    int peakOpenListSize;
+
+    @Label("H-Score Evaluations")
+    int hScoreEvaluations;
+
+    @Label("Total Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalTime;
+
+    @Label("Prepare Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long prepareTime;
+
+    @Label("Expand Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long expandTime;
+
+    @Label("H-Score Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long hScoreTime;
+
+    @Label("Reconstruct Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long reconstructTime;
+}
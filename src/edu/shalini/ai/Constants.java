@@ -1,8 +1,9 @@
 package edu.shalini.ai;
 
+import edu.shalini.ai.search.Heuristic;
+
 public class Constants {
     public static final int WORLD_MAP_RENDER_PANEL_WIDTH = 768;
     public static final int WORLD_MAP_RENDER_PANEL_HEIGHT = 768;
-    public static final String[] algos = {"No heuristic function",
-            "Euclidean distance to farthest target", "Euclidean distance to nearest target"};
+    public static final String[] algos = Heuristic.getDescriptions();
 }
@@ -0,0 +1,253 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.map.WorldMapFile;
+import edu.shalini.ai.map.WorldMapTextFormat;
+import edu.shalini.ai.metrics.SearchMetricsRecorder;
+import edu.shalini.ai.search.Heuristic;
+import edu.shalini.ai.search.LandmarkTable;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchListener;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Headless entry point: loads or generates a map, then answers the queries read from a file or stdin, one per line
+ * in the text form of RoutingQuery, and writes one result line per query:
+ * <pre>
+ * &lt;lineNo&gt; TAB &lt;cost&gt; TAB &lt;expansions&gt; TAB &lt;node&gt;[,&lt;node&gt;...]
+ * &lt;lineNo&gt; TAB error TAB &lt;message&gt;
+ * </pre>
+ * Usage: RoutingCli (--map FILE | --generate NODES [--seed SEED] [--min-distance D] [--size SIDE])
+ *        [--save-map FILE] [--queries FILE] [--output FILE] [--heuristic NAME]
+ *        [--metrics FILE [--metrics-period MILLIS]] [--landmarks FILE] [--prune-dominated true|false]
+ *        [--upper-bound true|false] [--off-heap-states true|false]
+ * A map file is memory-mapped when it is a WorldMapFile and read as WorldMapTextFormat otherwise. --save-map writes
+ * text to a .txt file and a WorldMapFile to any other. Blank lines and lines starting with '#' are skipped.
+ * --landmarks loads the landmark table of the landmarks heuristic from the file, or computes and saves it there if the
+ * file does not exist yet; the usual place is the map file's name plus LandmarkTable.FILE_EXTENSION.
+ * --prune-dominated true drops search states dominated by another state at the same node, and --upper-bound true
+ * starts every search from a greedy route and drops the states that cannot beat it, see Search. --off-heap-states
+ * true keeps the states of every search in direct memory, for queries with too many states for the heap.
+ * A summary is printed to stderr. With --metrics, search metrics are appended to the CSV file every period and at the
+ * end, and also printed to stderr at the end.
+ */
+public class RoutingCli {
+    private static final double DEFAULT_MIN_DISTANCE = 25;
+    private static final int MIN_SIZE = 767;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final long DEFAULT_METRICS_PERIOD_MILLIS = 10000;
+
+    /**
+     * Command line options, with their defaults.
+     */
+    static final class Options {
+        String mapFile;
+        int noOfNodes = -1;
+        Long seed;
+        double minDistance = DEFAULT_MIN_DISTANCE;
+        int size = -1;
+        String saveMapFile;
+        String queriesFile;
+        String outputFile;
+        Heuristic defaultHeuristic = Heuristic.MST;
+        String metricsFile;
+        long metricsPeriodMillis = DEFAULT_METRICS_PERIOD_MILLIS;
+        String landmarksFile;
+        boolean pruneDominated;
+        boolean seedUpperBound;
+        boolean offHeapStates;
+
+        /**
+         * @param args
+         * @return
+         * @throws IllegalArgumentException if an option is unknown, lacks its value or has a malformed one, or not
+         *         exactly one of --map and --generate is given
+         */
+        static Options parse(final String[] args) {
+            final Options options = new Options();
+            for (int i = 0; i < args.length; ++i) {
+                final String option = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option + ".");
+                }
+                final String value = args[++i];
+                switch (option) {
+                    case "--map":
+                        options.mapFile = value;
+                        break;
+                    case "--generate":
+                        options.noOfNodes = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "--min-distance":
+                        options.minDistance = Double.parseDouble(value);
+                        break;
+                    case "--size":
+                        options.size = Integer.parseInt(value);
+                        break;
+                    case "--save-map":
+                        options.saveMapFile = value;
+                        break;
+                    case "--queries":
+                        options.queriesFile = value;
+                        break;
+                    case "--output":
+                        options.outputFile = value;
+                        break;
+                    case "--heuristic":
+                        options.defaultHeuristic = Heuristic.forName(value);
+                        break;
+                    case "--metrics":
+                        options.metricsFile = value;
+                        break;
+                    case "--metrics-period":
+                        options.metricsPeriodMillis = Long.parseLong(value);
+                        break;
+                    case "--landmarks":
+                        options.landmarksFile = value;
+                        break;
+                    case "--prune-dominated":
+                        options.pruneDominated = parseBoolean(option, value);
+                        break;
+                    case "--upper-bound":
+                        options.seedUpperBound = parseBoolean(option, value);
+                        break;
+                    case "--off-heap-states":
+                        options.offHeapStates = parseBoolean(option, value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option + ".");
+                }
+            }
+            if ((options.mapFile == null) == (options.noOfNodes < 0)) {
+                throw new IllegalArgumentException("Expected exactly one of --map and --generate.");
+            }
+            return options;
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Options options;
+        try {
+            options = Options.parse(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: RoutingCli (--map FILE | --generate NODES [--seed SEED] [--min-distance D]"
+                    + " [--size SIDE]) [--save-map FILE] [--queries FILE] [--output FILE] [--heuristic NAME]"
+                    + " [--metrics FILE [--metrics-period MILLIS]] [--landmarks FILE]"
+                    + " [--prune-dominated true|false] [--upper-bound true|false] [--off-heap-states true|false]");
+            System.exit(2);
+            return;
+        }
+
+        final GraphSnapshot graph;
+        if (options.mapFile != null && WorldMapFile.isWorldMapFile(Paths.get(options.mapFile))) {
+            graph = WorldMapFile.map(Paths.get(options.mapFile));
+        } else if (options.mapFile != null) {
+            try (final BufferedReader reader = Files.newBufferedReader(Paths.get(options.mapFile),
+                    StandardCharsets.UTF_8)) {
+                graph = WorldMapTextFormat.read(reader).freeze();
+            }
+        } else {
+            // Room for the nodes at twice the minimum distance apart, and at least the UI's panel.
+            final int size = options.size >= 0 ? options.size
+                    : Math.max(MIN_SIZE, (int) (Math.sqrt(options.noOfNodes) * 2 * options.minDistance));
+            graph = (options.seed != null
+                    ? WorldMap.generateMap(options.noOfNodes, options.minDistance, size, size, options.seed)
+                    : WorldMap.generateMap(options.noOfNodes, options.minDistance, size, size)).freeze();
+        }
+        if (options.saveMapFile != null && options.saveMapFile.endsWith(TEXT_EXTENSION)) {
+            try (final Writer writer = Files.newBufferedWriter(Paths.get(options.saveMapFile),
+                    StandardCharsets.UTF_8)) {
+                WorldMapTextFormat.write(graph, writer);
+            }
+        } else if (options.saveMapFile != null) {
+            WorldMapFile.save(graph, Paths.get(options.saveMapFile));
+        }
+
+        if (options.landmarksFile != null && Files.exists(Paths.get(options.landmarksFile))) {
+            LandmarkTable.register(graph, LandmarkTable.load(Paths.get(options.landmarksFile), graph));
+        } else if (options.landmarksFile != null) {
+            LandmarkTable.forGraph(graph).save(Paths.get(options.landmarksFile));
+        }
+
+        final SearchMetricsRecorder metrics = options.metricsFile != null ? new SearchMetricsRecorder() : null;
+        final RoutingEngine engine = new RoutingEngine(graph, new Search(
+                metrics != null ? metrics : SearchListener.NONE, options.pruneDominated, options.seedUpperBound,
+                options.offHeapStates));
+        final long start = System.nanoTime();
+        int noOfQueries = 0;
+        int noOfErrors = 0;
+        // Closed in the finally block rather than as a resource, since nothing in the block refers to it.
+        final Closeable snapshots = metrics != null
+                ? metrics.startPeriodicSnapshots(Paths.get(options.metricsFile), options.metricsPeriodMillis) : null;
+        try (final BufferedReader reader = new BufferedReader(options.queriesFile != null
+                     ? new InputStreamReader(new FileInputStream(options.queriesFile), StandardCharsets.UTF_8)
+                     : new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+             final Writer writer = new BufferedWriter(options.outputFile != null
+                     ? new OutputStreamWriter(new FileOutputStream(options.outputFile), StandardCharsets.UTF_8)
+                     : new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            final StringBuilder out = new StringBuilder();
+            int lineNo = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                ++lineNo;
+                if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                ++noOfQueries;
+                out.setLength(0);
+                out.append(lineNo).append('\t');
+                try {
+                    appendResult(out, engine.route(RoutingQuery.parse(line, graph, options.defaultHeuristic)));
+                } catch (final IllegalArgumentException e) {
+                    ++noOfErrors;
+                    out.append("error\t").append(e.getMessage());
+                }
+                writer.append(out).append('\n');
+                // Hand results over as soon as the caller stops sending, so the CLI also works interactively.
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+        } finally {
+            if (snapshots != null) {
+                snapshots.close();
+            }
+        }
+
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d queries, %d errors, %.3f s, %.0f queries/s%n", noOfQueries, noOfErrors, elapsedSeconds,
+                noOfQueries / Math.max(elapsedSeconds, 1e-9));
+        if (metrics != null) {
+            metrics.writeText(System.err);
+        }
+    }
+
+    private static boolean parseBoolean(final String option, final String value) {
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException("Expected true or false for " + option + ".");
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static void appendResult(final StringBuilder out, final Search.Result result) {
+        out.append(result.getShortestPathCost()).append('\t').append(result.getNumExpansions()).append('\t');
+        final List<Node> shortestPath = result.getShortestPath();
+        for (int i = 0; i < shortestPath.size(); ++i) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(shortestPath.get(i).getName());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.search.*;
+
+import java.util.Arrays;
+
+/**
+ * Answers routing queries on one WorldMap without any UI.
+ * Queries are answered one at a time, since their already-waited values are set on the map's nodes for the duration
+ * of the search.
+ */
+public class RoutingEngine {
+    private static final int HSCORE_CACHE_CAPACITY = 1 << 18;
+
+    private final GraphSnapshot graph;
+    private final Search search;
+    // One HScore cache per heuristic that is costly to prepare, kept for the engine's lifetime.
+    private final HScoreCache[] hScoreCaches;
+    // Connected component of every node, so queries with unreachable targets are rejected without a search.
+    private final int[] componentIds;
+
+    public RoutingEngine(final WorldMap worldMap) {
+        this(worldMap.freeze());
+    }
+
+    /**
+     * @param graph e.g. a memory-mapped WorldMapFile
+     */
+    public RoutingEngine(final GraphSnapshot graph) {
+        this(graph, SearchListener.NONE);
+    }
+
+    /**
+     * @param graph
+     * @param listener told about every search once it has ended
+     */
+    public RoutingEngine(final GraphSnapshot graph, final SearchListener listener) {
+        this(graph, listener, false);
+    }
+
+    /**
+     * @param graph
+     * @param listener told about every search once it has ended
+     * @param pruneDominated whether searches drop dominated states, see Search
+     */
+    public RoutingEngine(final GraphSnapshot graph, final SearchListener listener, final boolean pruneDominated) {
+        this(graph, listener, pruneDominated, false);
+    }
+
+    /**
+     * @param graph
+     * @param listener told about every search once it has ended
+     * @param pruneDominated whether searches drop dominated states, see Search
+     * @param seedUpperBound whether searches start from a greedy route and drop states that cannot beat it, see
+     *                       Search
+     */
+    public RoutingEngine(final GraphSnapshot graph, final SearchListener listener, final boolean pruneDominated,
+                         final boolean seedUpperBound) {
+        this(graph, new Search(listener, pruneDominated, seedUpperBound));
+    }
+
+    /**
+     * @param graph
+     * @param search answers every query, and tells its listener about them
+     */
+    public RoutingEngine(final GraphSnapshot graph, final Search search) {
+        this.graph = graph;
+        this.search = search;
+        this.hScoreCaches = new HScoreCache[Heuristic.values().length];
+        this.componentIds = computeComponentIds(graph);
+    }
+
+    public GraphSnapshot getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param query
+     * @return
+     * @throws UnreachableTargetsException if some target cannot be reached from the source
+     */
+    public Search.Result route(final RoutingQuery query) {
+        for (final int targetNodeId : query.getTargetNodeIds()) {
+            if (componentIds[targetNodeId] != componentIds[query.getSourceNodeId()]) {
+                throw new UnreachableTargetsException("Destinations not reachable from "
+                        + graph.getNodeName(query.getSourceNodeId()));
+            }
+        }
+
+        final Heuristic heuristic = query.getHeuristic();
+        HScoreComputer computer = heuristic.createComputer();
+        if (heuristic.isCostlyToPrepare()) {
+            computer = new CachingHScoreComputer(computer, getHScoreCache(heuristic));
+        }
+
+        final int[] waitingNodeIds = query.getWaitingNodeIds();
+        final double[] previouslyWaited = new double[waitingNodeIds.length];
+        for (int i = 0; i < waitingNodeIds.length; ++i) {
+            final Node node = graph.getNode(waitingNodeIds[i]);
+            previouslyWaited[i] = node.getAlreadyWaited();
+            node.addAlreadyWaited(query.getAlreadyWaited()[i]);
+        }
+        try {
+            return search.findShortestPath(graph, query.getSourceNodeId(), query.getTargetNodeIds(), computer);
+        } finally {
+            for (int i = waitingNodeIds.length - 1; i >= 0; --i) {
+                final Node node = graph.getNode(waitingNodeIds[i]);
+                node.clearAlreadyWaited();
+                node.addAlreadyWaited(previouslyWaited[i]);
+            }
+        }
+    }
+
+    private HScoreCache getHScoreCache(final Heuristic heuristic) {
+        if (hScoreCaches[heuristic.ordinal()] == null) {
+            hScoreCaches[heuristic.ordinal()] = new HScoreCache(HSCORE_CACHE_CAPACITY);
+        }
+        return hScoreCaches[heuristic.ordinal()];
+    }
+
+    private static int[] computeComponentIds(final GraphSnapshot graph) {
+        final int[] componentIds = new int[graph.getNodeCount()];
+        Arrays.fill(componentIds, -1);
+        final int[] queue = new int[graph.getNodeCount()];
+        int noOfComponents = 0;
+        for (int root = 0; root < graph.getNodeCount(); ++root) {
+            if (componentIds[root] != -1) {
+                continue;
+            }
+            componentIds[root] = noOfComponents;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            while (head < tail) {
+                final int nodeId = queue[head++];
+                final int endEdge = graph.getEndEdge(nodeId);
+                for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                    final int neighborNode = graph.getEdgeTarget(edge);
+                    if (componentIds[neighborNode] == -1) {
+                        componentIds[neighborNode] = noOfComponents;
+                        queue[tail++] = neighborNode;
+                    }
+                }
+            }
+            ++noOfComponents;
+        }
+        return componentIds;
+    }
+}
@@ -0,0 +1,116 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.search.Heuristic;
+
+/**
+ * A single routing request: where the driver is, the targets left to visit, the heuristic to search with and how
+ * long some targets have already waited.
+ * Its text form is one line of whitespace separated fields, with nodes referred to by name:
+ * <pre>
+ * &lt;source&gt; &lt;target&gt;[,&lt;target&gt;...] [&lt;heuristic&gt;] [&lt;target&gt;=&lt;alreadyWaited&gt;[,...]]
+ * </pre>
+ */
+public class RoutingQuery {
+    private final int sourceNodeId;
+    private final int[] targetNodeIds;
+    private final Heuristic heuristic;
+    private final int[] waitingNodeIds;
+    private final double[] alreadyWaited;
+
+    /**
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param heuristic
+     * @param waitingNodeIds nodes that have already waited
+     * @param alreadyWaited how long each of waitingNodeIds has waited
+     */
+    public RoutingQuery(final int sourceNodeId, final int[] targetNodeIds, final Heuristic heuristic,
+                        final int[] waitingNodeIds, final double[] alreadyWaited) {
+        if (waitingNodeIds.length != alreadyWaited.length) {
+            throw new IllegalArgumentException("Every waiting node needs an alreadyWaited value.");
+        }
+        this.sourceNodeId = sourceNodeId;
+        this.targetNodeIds = targetNodeIds;
+        this.heuristic = heuristic;
+        this.waitingNodeIds = waitingNodeIds;
+        this.alreadyWaited = alreadyWaited;
+    }
+
+    public int getSourceNodeId() {
+        return sourceNodeId;
+    }
+
+    public int[] getTargetNodeIds() {
+        return targetNodeIds;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public int[] getWaitingNodeIds() {
+        return waitingNodeIds;
+    }
+
+    public double[] getAlreadyWaited() {
+        return alreadyWaited;
+    }
+
+    /**
+     * Parses the text form of a query.
+     * @param line
+     * @param graph graph the node names refer to
+     * @param defaultHeuristic used when the line names none
+     * @return
+     */
+    public static RoutingQuery parse(final String line, final GraphSnapshot graph, final Heuristic defaultHeuristic) {
+        final String[] fields = line.trim().split("\\s+");
+        if (fields.length < 2 || fields.length > 4) {
+            throw new IllegalArgumentException("Expected a source, targets and optionally a heuristic and waits.");
+        }
+
+        final int sourceNodeId = getNodeId(graph, fields[0]);
+        final String[] targetNames = fields[1].split(",");
+        final int[] targetNodeIds = new int[targetNames.length];
+        for (int i = 0; i < targetNames.length; ++i) {
+            targetNodeIds[i] = getNodeId(graph, targetNames[i]);
+        }
+
+        Heuristic heuristic = defaultHeuristic;
+        String waits = null;
+        for (int i = 2; i < fields.length; ++i) {
+            if (fields[i].indexOf('=') >= 0) {
+                waits = fields[i];
+            } else {
+                heuristic = Heuristic.forName(fields[i]);
+            }
+        }
+
+        int[] waitingNodeIds = new int[0];
+        double[] alreadyWaited = new double[0];
+        if (waits != null) {
+            final String[] entries = waits.split(",");
+            waitingNodeIds = new int[entries.length];
+            alreadyWaited = new double[entries.length];
+            for (int i = 0; i < entries.length; ++i) {
+                final int separator = entries[i].indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Expected <target>=<alreadyWaited>, got '" + entries[i] + "'.");
+                }
+                waitingNodeIds[i] = getNodeId(graph, entries[i].substring(0, separator));
+                alreadyWaited[i] = Double.parseDouble(entries[i].substring(separator + 1));
+            }
+        }
+
+        return new RoutingQuery(sourceNodeId, targetNodeIds, heuristic, waitingNodeIds, alreadyWaited);
+    }
+
+    private static int getNodeId(final GraphSnapshot graph, final String name) {
+        final int nodeId = graph.findNodeId(name);
+        if (nodeId == -1) {
+            throw new IllegalArgumentException("Unknown node '" + name + "'.");
+        }
+        return nodeId;
+    }
+}
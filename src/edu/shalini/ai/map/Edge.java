@@ -32,15 +32,15 @@ public class Edge {
         if (o == null || getClass() != o.getClass()) return false;
 
         Edge edge = (Edge) o;
-
-        if (!fromNode.equals(edge.fromNode)) return false;
-        return toNode.equals(edge.toNode);
+        return fromNode == edge.fromNode && toNode == edge.toNode;
     }
 
+    /**
+     * Hashes the ids of the end nodes, so both must be on their map before the edge is put in a hash set.
+     * @return
+     */
     @Override
     public int hashCode() {
-        int result = fromNode.hashCode();
-        result = 37 * result + toNode.hashCode();
-        return result;
+        return 37 * fromNode.getId() + toNode.getId();
     }
 }
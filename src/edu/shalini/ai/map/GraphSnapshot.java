@@ -0,0 +1,212 @@
+package edu.shalini.ai.map;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable compressed-sparse-row view of a WorldMap's graph.
+ * Nodes are addressed by their dense id. The edges leaving node i are the entries offsets[i] until
+ * offsets[i + 1] of the edge target and weight arrays, so a neighbour scan reads consecutive memory.
+ * A snapshot is either built from a WorldMap or mapped from a WorldMapFile. A mapped snapshot reads the file's
+ * buffers in place and only creates a Node the first time getNode asks for it.
+ */
+public class GraphSnapshot {
+    private final AtomicReferenceArray<Node> nodes;
+    private final Map<String, Node> nodesByName;
+    private final IntBuffer xs;
+    private final IntBuffer ys;
+    private final IntBuffer offsets;
+    private final IntBuffer edgeTargets;
+    private final DoubleBuffer edgeWeights;
+    // Mapped snapshots only: node i's UTF-8 name is nameBytes from nameOffsets[i] until nameOffsets[i + 1], and
+    // nameOrder lists the node ids sorted by name bytes.
+    private final IntBuffer nameOffsets;
+    private final IntBuffer nameOrder;
+    private final ByteBuffer nameBytes;
+
+    GraphSnapshot(final Collection<Node> nodesById, final Map<String, Node> nodesByName) {
+        final int noOfNodes = nodesById.size();
+        final Node[] nodeArray = nodesById.toArray(new Node[0]);
+        final int[] xs = new int[noOfNodes];
+        final int[] ys = new int[noOfNodes];
+        final int[] offsets = new int[noOfNodes + 1];
+
+        int noOfEdges = 0;
+        for (int i = 0; i < noOfNodes; ++i) {
+            xs[i] = nodeArray[i].getX();
+            ys[i] = nodeArray[i].getY();
+            offsets[i] = noOfEdges;
+            noOfEdges += nodeArray[i].getIncidentEdges().size();
+        }
+        offsets[noOfNodes] = noOfEdges;
+
+        final int[] edgeTargets = new int[noOfEdges];
+        final double[] edgeWeights = new double[noOfEdges];
+        for (int i = 0; i < noOfNodes; ++i) {
+            int edgeIndex = offsets[i];
+            for (final Edge edge : nodeArray[i].getIncidentEdges()) {
+                edgeTargets[edgeIndex] = edge.getToNode().getId();
+                edgeWeights[edgeIndex] = edge.getWeight();
+                ++edgeIndex;
+            }
+        }
+
+        this.nodes = new AtomicReferenceArray<>(nodeArray);
+        this.nodesByName = nodesByName;
+        this.xs = IntBuffer.wrap(xs);
+        this.ys = IntBuffer.wrap(ys);
+        this.offsets = IntBuffer.wrap(offsets);
+        this.edgeTargets = IntBuffer.wrap(edgeTargets);
+        this.edgeWeights = DoubleBuffer.wrap(edgeWeights);
+        this.nameOffsets = null;
+        this.nameOrder = null;
+        this.nameBytes = null;
+    }
+
+    GraphSnapshot(final int noOfNodes, final IntBuffer xs, final IntBuffer ys, final IntBuffer offsets,
+                  final IntBuffer edgeTargets, final DoubleBuffer edgeWeights, final IntBuffer nameOffsets,
+                  final IntBuffer nameOrder, final ByteBuffer nameBytes) {
+        this.nodes = new AtomicReferenceArray<>(noOfNodes);
+        this.nodesByName = null;
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+        this.nameOffsets = nameOffsets;
+        this.nameOrder = nameOrder;
+        this.nameBytes = nameBytes;
+    }
+
+    public int getNodeCount() {
+        return nodes.length();
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.limit();
+    }
+
+    public Node getNode(final int nodeId) {
+        final Node node = nodes.get(nodeId);
+        if (node != null) {
+            return node;
+        }
+        final Node newNode = new Node(getNodeName(nodeId), getX(nodeId), getY(nodeId));
+        newNode.setId(nodeId);
+        nodes.compareAndSet(nodeId, null, newNode);
+        return nodes.get(nodeId);
+    }
+
+    /**
+     * Same as getNode(nodeId).getAlreadyWaited(), without creating the node of a mapped snapshot.
+     * @param nodeId
+     * @return
+     */
+    public double getAlreadyWaited(final int nodeId) {
+        final Node node = nodes.get(nodeId);
+        return node != null ? node.getAlreadyWaited() : 0.0;
+    }
+
+    public String getNodeName(final int nodeId) {
+        if (nameBytes == null) {
+            return nodes.get(nodeId).getName();
+        }
+        final int start = nameOffsets.get(nodeId);
+        final byte[] name = new byte[nameOffsets.get(nodeId + 1) - start];
+        for (int i = 0; i < name.length; ++i) {
+            name[i] = nameBytes.get(start + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param name
+     * @return id of the node with the given name, or -1
+     */
+    public int findNodeId(final String name) {
+        if (nameBytes == null) {
+            final Node node = nodesByName.get(name);
+            // The map may have gained nodes since this snapshot was taken.
+            return node != null && node.getId() < getNodeCount() && nodes.get(node.getId()) == node
+                    ? node.getId() : -1;
+        }
+
+        final byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = getNodeCount() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int nodeId = nameOrder.get(mid);
+            final int comparison = compareName(nodeId, key);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return nodeId;
+            }
+        }
+        return -1;
+    }
+
+    public int getX(final int nodeId) {
+        return xs.get(nodeId);
+    }
+
+    public int getY(final int nodeId) {
+        return ys.get(nodeId);
+    }
+
+    public double getDistance(final int nodeId, final int otherNodeId) {
+        final double xDiff = xs.get(nodeId) - xs.get(otherNodeId);
+        final double yDiff = ys.get(nodeId) - ys.get(otherNodeId);
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+    }
+
+    /**
+     * @param nodeId
+     * @return index of the first edge leaving the node
+     */
+    public int getFirstEdge(final int nodeId) {
+        return offsets.get(nodeId);
+    }
+
+    /**
+     * @param nodeId
+     * @return one past the index of the last edge leaving the node
+     */
+    public int getEndEdge(final int nodeId) {
+        return offsets.get(nodeId + 1);
+    }
+
+    public int getEdgeTarget(final int edgeIndex) {
+        return edgeTargets.get(edgeIndex);
+    }
+
+    public double getEdgeWeight(final int edgeIndex) {
+        return edgeWeights.get(edgeIndex);
+    }
+
+    /**
+     * Compares the node's name bytes with the key, both as unsigned bytes.
+     * @param nodeId
+     * @param key
+     * @return
+     */
+    private int compareName(final int nodeId, final byte[] key) {
+        final int start = nameOffsets.get(nodeId);
+        final int length = nameOffsets.get(nodeId + 1) - start;
+        for (int i = 0; i < Math.min(length, key.length); ++i) {
+            final int diff = (nameBytes.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+}
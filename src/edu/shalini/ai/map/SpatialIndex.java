@@ -0,0 +1,228 @@
+package edu.shalini.ai.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over node coordinates.
+ * Each node is bucketed into the square cell containing it, so nearest-neighbour and radius queries only look at
+ * the cells around the query point instead of at every node.
+ */
+public class SpatialIndex {
+    private final double cellSize;
+    private final Map<Long, List<Node>> nodesByCell;
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    public SpatialIndex(final double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.nodesByCell = new HashMap<>();
+    }
+
+    public void add(final Node node) {
+        final int cellX = toCell(node.getX());
+        final int cellY = toCell(node.getY());
+        nodesByCell.computeIfAbsent(key(cellX, cellY), k -> new ArrayList<>(2)).add(node);
+        minCellX = Math.min(minCellX, cellX);
+        minCellY = Math.min(minCellY, cellY);
+        maxCellX = Math.max(maxCellX, cellX);
+        maxCellY = Math.max(maxCellY, cellY);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param radius
+     * @return whether any node lies strictly closer than radius to the point
+     */
+    public boolean hasNodeWithin(final double x, final double y, final double radius) {
+        final int fromCellX = Math.max(minCellX, toCell(x - radius));
+        final int toCellX = Math.min(maxCellX, toCell(x + radius));
+        final int fromCellY = Math.max(minCellY, toCell(y - radius));
+        final int toCellY = Math.min(maxCellY, toCell(y + radius));
+        for (int cellX = fromCellX; cellX <= toCellX; ++cellX) {
+            for (int cellY = fromCellY; cellY <= toCellY; ++cellY) {
+                final List<Node> cellNodes = nodesByCell.get(key(cellX, cellY));
+                if (cellNodes == null) {
+                    continue;
+                }
+                for (final Node node : cellNodes) {
+                    if (distance(node, x, y) < radius) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param radius
+     * @return all nodes at distance at most radius from the point
+     */
+    public List<Node> findWithin(final double x, final double y, final double radius) {
+        final List<Node> nodesWithin = new ArrayList<>();
+        final int fromCellX = Math.max(minCellX, toCell(x - radius));
+        final int toCellX = Math.min(maxCellX, toCell(x + radius));
+        final int fromCellY = Math.max(minCellY, toCell(y - radius));
+        final int toCellY = Math.min(maxCellY, toCell(y + radius));
+        for (int cellX = fromCellX; cellX <= toCellX; ++cellX) {
+            for (int cellY = fromCellY; cellY <= toCellY; ++cellY) {
+                final List<Node> cellNodes = nodesByCell.get(key(cellX, cellY));
+                if (cellNodes == null) {
+                    continue;
+                }
+                for (final Node node : cellNodes) {
+                    if (distance(node, x, y) <= radius) {
+                        nodesWithin.add(node);
+                    }
+                }
+            }
+        }
+        return nodesWithin;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param radius
+     * @return the nearest node at distance at most radius from the point, or null if there is none
+     */
+    public Node findNearestWithin(final double x, final double y, final double radius) {
+        final int fromCellX = Math.max(minCellX, toCell(x - radius));
+        final int toCellX = Math.min(maxCellX, toCell(x + radius));
+        final int fromCellY = Math.max(minCellY, toCell(y - radius));
+        final int toCellY = Math.min(maxCellY, toCell(y + radius));
+        Node nearestNode = null;
+        double nearestDistance = radius;
+        for (int cellX = fromCellX; cellX <= toCellX; ++cellX) {
+            for (int cellY = fromCellY; cellY <= toCellY; ++cellY) {
+                final List<Node> cellNodes = nodesByCell.get(key(cellX, cellY));
+                if (cellNodes == null) {
+                    continue;
+                }
+                for (final Node node : cellNodes) {
+                    final double nodeDistance = distance(node, x, y);
+                    if (nodeDistance <= nearestDistance) {
+                        nearestNode = node;
+                        nearestDistance = nodeDistance;
+                    }
+                }
+            }
+        }
+        return nearestNode;
+    }
+
+    /**
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return all nodes inside the rectangle, borders included
+     */
+    public List<Node> findInRectangle(final double minX, final double minY, final double maxX, final double maxY) {
+        final List<Node> nodesInRectangle = new ArrayList<>();
+        final int fromCellX = Math.max(minCellX, toCell(minX));
+        final int toCellX = Math.min(maxCellX, toCell(maxX));
+        final int fromCellY = Math.max(minCellY, toCell(minY));
+        final int toCellY = Math.min(maxCellY, toCell(maxY));
+        if (fromCellX > toCellX || fromCellY > toCellY) {
+            return nodesInRectangle;
+        }
+        // A rectangle spanning more cells than are occupied is cheaper to answer from the occupied cells.
+        if ((long) (toCellX - fromCellX + 1) * (toCellY - fromCellY + 1) > nodesByCell.size()) {
+            for (final List<Node> cellNodes : nodesByCell.values()) {
+                addInRectangle(cellNodes, minX, minY, maxX, maxY, nodesInRectangle);
+            }
+            return nodesInRectangle;
+        }
+        for (int cellX = fromCellX; cellX <= toCellX; ++cellX) {
+            for (int cellY = fromCellY; cellY <= toCellY; ++cellY) {
+                final List<Node> cellNodes = nodesByCell.get(key(cellX, cellY));
+                if (cellNodes != null) {
+                    addInRectangle(cellNodes, minX, minY, maxX, maxY, nodesInRectangle);
+                }
+            }
+        }
+        return nodesInRectangle;
+    }
+
+    /**
+     * Searches rings of cells around the point until no unvisited cell can hold a closer node.
+     * @param x
+     * @param y
+     * @param excludedNode node to skip, typically the one the query is made for; may be null
+     * @return the nearest node, or null if there is none
+     */
+    public Node findNearest(final double x, final double y, final Node excludedNode) {
+        if (nodesByCell.isEmpty()) {
+            return null;
+        }
+        final int centerCellX = toCell(x);
+        final int centerCellY = toCell(y);
+        final int maxRing = Math.max(Math.max(Math.abs(centerCellX - minCellX), Math.abs(maxCellX - centerCellX)),
+                Math.max(Math.abs(centerCellY - minCellY), Math.abs(maxCellY - centerCellY)));
+
+        Node nearestNode = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ++ring) {
+            // Every cell of this ring is at least (ring - 1) cells away from the query point.
+            if (nearestNode != null && (ring - 1) * cellSize > nearestDistance) {
+                break;
+            }
+            for (int cellX = centerCellX - ring; cellX <= centerCellX + ring; ++cellX) {
+                final boolean edgeColumn = cellX == centerCellX - ring || cellX == centerCellX + ring;
+                final int step = edgeColumn ? 1 : 2 * ring;
+                for (int cellY = centerCellY - ring; cellY <= centerCellY + ring; cellY += Math.max(step, 1)) {
+                    final List<Node> cellNodes = nodesByCell.get(key(cellX, cellY));
+                    if (cellNodes == null) {
+                        continue;
+                    }
+                    for (final Node node : cellNodes) {
+                        if (node == excludedNode) {
+                            continue;
+                        }
+                        final double nodeDistance = distance(node, x, y);
+                        if (nodeDistance < nearestDistance) {
+                            nearestNode = node;
+                            nearestDistance = nodeDistance;
+                        }
+                    }
+                }
+            }
+        }
+        return nearestNode;
+    }
+
+    private static void addInRectangle(final List<Node> cellNodes, final double minX, final double minY,
+                                       final double maxX, final double maxY, final List<Node> nodesInRectangle) {
+        for (final Node node : cellNodes) {
+            if (node.getX() >= minX && node.getX() <= maxX && node.getY() >= minY && node.getY() <= maxY) {
+                nodesInRectangle.add(node);
+            }
+        }
+    }
+
+    private int toCell(final double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(final int cellX, final int cellY) {
+        return ((long) cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    private static double distance(final Node node, final double x, final double y) {
+        final double xDiff = node.getX() - x;
+        final double yDiff = node.getY() - y;
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+    }
+}
@@ -1,7 +1,11 @@
 package edu.shalini.ai.map;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
 
 /**
  * Template class which contains nodes and edges
@@ -9,88 +13,437 @@ import java.util.concurrent.ThreadLocalRandom;
 public class WorldMap {
     private static final int MAX_RETRIES = 500;
     private static final double EDGE_DISTANCE_MULTIPLIER = 1.5;
+    private static final double DEFAULT_CELL_SIZE = 32;
+    // Nodes aimed for per placement cell of the seeded generator.
+    private static final int NODES_PER_PLACEMENT_CELL = 16;
+    // Below this many cells or nodes a generation task does the work itself instead of splitting further.
+    private static final int CELLS_PER_TASK = 16;
+    private static final int NODES_PER_TASK = 256;
 
     private final Map<String, Node> nodesByName;
+    private final List<Node> nodesById;
+    private final SpatialIndex spatialIndex;
+    private GraphSnapshot snapshot;
 
-    private WorldMap() {
+    private WorldMap(final double cellSize) {
         this.nodesByName = new HashMap<>();
+        this.nodesById = new ArrayList<>();
+        this.spatialIndex = new SpatialIndex(cellSize);
+        this.snapshot = null;
     }
 
-    public void clearStates() {
-        for (final Node node : nodesByName.values()) {
-            node.clearStates();
+    /**
+     * Returns a CSR snapshot of the current graph. It is built on first use and kept until the map changes.
+     * @return
+     */
+    public synchronized GraphSnapshot freeze() {
+        if (snapshot == null) {
+            snapshot = new GraphSnapshot(nodesById, nodesByName);
         }
+        return snapshot;
     }
 
+    /**
+     * Adds the node and assigns it the next dense id.
+     * @param node
+     */
     public void addNode(final Node node) {
+        if (node.getId() != -1 || nodesByName.containsKey(node.getName())) {
+            throw new IllegalArgumentException("Node '" + node.getName() + "' is already on a map.");
+        }
+        node.setId(nodesById.size());
+        nodesById.add(node);
         nodesByName.put(node.getName(), node);
+        spatialIndex.add(node);
+        snapshot = null;
+    }
+
+    /**
+     * Adds an undirected edge between the two nodes, unless it is already present.
+     * @param node
+     * @param otherNode
+     * @throws IllegalArgumentException if either node is not on this map
+     */
+    public void addEdge(final Node node, final Node otherNode) {
+        if (!contains(node) || !contains(otherNode)) {
+            throw new IllegalArgumentException("Node '" + (contains(node) ? otherNode : node).getName()
+                    + "' is not on this map.");
+        }
+        node.addEdge(new Edge(node, otherNode));
+        otherNode.addEdge(new Edge(otherNode, node));
+        snapshot = null;
+    }
+
+    private boolean contains(final Node node) {
+        return node.getId() >= 0 && node.getId() < nodesById.size() && nodesById.get(node.getId()) == node;
     }
 
+    /**
+     * Looks a node up by its label, for the text formats; everything else addresses nodes by id.
+     * @param name
+     * @return
+     */
     public Node getNodeByName(final String name) {
         return nodesByName.get(name);
     }
 
+    public Node getNodeById(final int id) {
+        return nodesById.get(id);
+    }
+
+    public int getNodeCount() {
+        return nodesById.size();
+    }
+
     public Collection<Node> getNodes() {
-        return nodesByName.values();
+        return Collections.unmodifiableList(nodesById);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param radius
+     * @return the node nearest to the point among those at most radius away, or null
+     */
+    public Node findNodeAt(final double x, final double y, final double radius) {
+        return spatialIndex.findNearestWithin(x, y, radius);
+    }
+
+    public Node findNearestNode(final Node node) {
+        return spatialIndex.findNearest(node.getX(), node.getY(), node);
+    }
+
+    public List<Node> findNodesWithin(final int x, final int y, final double radius) {
+        return spatialIndex.findWithin(x, y, radius);
+    }
+
+    public List<Node> findNodesInRectangle(final double minX, final double minY, final double maxX,
+                                           final double maxY) {
+        return spatialIndex.findInRectangle(minX, minY, maxX, maxY);
     }
 
     public static WorldMap createEmptyWorldMap() {
-        return new WorldMap();
+        return new WorldMap(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Copies a snapshot, such as a mapped WorldMapFile, into a map of Node objects with the same ids.
+     * @param graph
+     * @return
+     */
+    static WorldMap fromSnapshot(final GraphSnapshot graph) {
+        int maxX = 0;
+        int maxY = 0;
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            maxX = Math.max(maxX, graph.getX(nodeId));
+            maxY = Math.max(maxY, graph.getY(nodeId));
+        }
+        final WorldMap worldMap = createSizedWorldMap(graph.getNodeCount(), 1, maxX, maxY);
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            worldMap.addNode(new Node(graph.getNodeName(nodeId), graph.getX(nodeId), graph.getY(nodeId)));
+        }
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            final int endEdge = graph.getEndEdge(nodeId);
+            for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                if (nodeId < graph.getEdgeTarget(edge)) {
+                    worldMap.addEdge(worldMap.getNodeById(nodeId), worldMap.getNodeById(graph.getEdgeTarget(edge)));
+                }
+            }
+        }
+        return worldMap;
+    }
+
+    /**
+     * Creates an empty map whose spatial index cells hold about one node each, but are no smaller than minCellSize.
+     * @param noOfNodes
+     * @param minCellSize
+     * @param maxX
+     * @param maxY
+     * @return
+     */
+    private static WorldMap createSizedWorldMap(final int noOfNodes, final double minCellSize, final int maxX,
+                                               final int maxY) {
+        return new WorldMap(Math.max(Math.max(minCellSize, 1),
+                Math.sqrt((maxX + 1.0) * (maxY + 1.0) / Math.max(noOfNodes, 1))));
     }
 
     public static WorldMap generateMap(final int noOfNodes, final double minDistance, final int maxX, final int maxY) {
-        final WorldMap generatedMap = new WorldMap();
+        return generateMap(noOfNodes, minDistance, maxX, maxY, ThreadLocalRandom.current().nextLong());
+    }
 
-        // Add nodes.
-        for (int i = 0; i < noOfNodes; ++i) {
-            for (int j = 0; j < MAX_RETRIES; ++j) {
-                int x = ThreadLocalRandom.current().nextInt(0, maxX + 1);
-                int y = ThreadLocalRandom.current().nextInt(0, maxY + 1);
-                final Node randomNode = new Node(String.valueOf(i + 1), x, y);
-                boolean foundTooClose = false;
-                for (final Node existingNode : generatedMap.getNodes()) {
-                    if (randomNode.getDistanceFrom(existingNode) < minDistance) {
-                        foundTooClose = true;
-                        break;
-                    }
+    /**
+     * Generates a map in parallel on the common pool; the same seed gives the same map.
+     * @param noOfNodes
+     * @param minDistance
+     * @param maxX
+     * @param maxY
+     * @param seed
+     * @return
+     */
+    public static WorldMap generateMap(final int noOfNodes, final double minDistance, final int maxX, final int maxY,
+                                       final long seed) {
+        return generateMap(noOfNodes, minDistance, maxX, maxY, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a map in parallel on the pool. The same seed gives the same map whatever the pool's parallelism.
+     * The area is split into square placement cells no smaller than minDistance, each with its own SplittableRandom
+     * split from the seed in cell order, and each given its share of the nodes by area. Cells are filled in four
+     * checkerboard phases, by the parity of their column and row: cells of one phase are a whole cell apart, so they
+     * can be filled concurrently, and each only checks its neighbours filled in earlier phases. Nodes are named and
+     * numbered in cell order. A node that finds no free spot in its cell after MAX_RETRIES draws is dropped.
+     * Every node then looks up its neighbours concurrently, and the undirected edges are merged without locks: the
+     * reverse of every edge is counted into and placed by atomic counters, after which each node adds only its own
+     * edges.
+     * @param noOfNodes
+     * @param minDistance
+     * @param maxX
+     * @param maxY
+     * @param seed
+     * @param pool
+     * @return
+     */
+    public static WorldMap generateMap(final int noOfNodes, final double minDistance, final int maxX, final int maxY,
+                                       final long seed, final ForkJoinPool pool) {
+        final int cellSize = (int) Math.max(Math.ceil(minDistance), Math.max(1, Math.ceil(
+                Math.sqrt((maxX + 1.0) * (maxY + 1.0) * NODES_PER_PLACEMENT_CELL / Math.max(noOfNodes, 1)))));
+        final int noOfColumns = (maxX + cellSize) / cellSize;
+        final int noOfRows = (maxY + cellSize) / cellSize;
+        final int noOfCells = noOfColumns * noOfRows;
+
+        // Each cell's share of the nodes, by area, and its random stream.
+        final int[] quotas = new int[noOfCells];
+        final SplittableRandom[] randoms = new SplittableRandom[noOfCells];
+        final SplittableRandom seedRandom = new SplittableRandom(seed);
+        final double area = (maxX + 1.0) * (maxY + 1.0);
+        double cumulativeArea = 0;
+        int assigned = 0;
+        for (int cell = 0; cell < noOfCells; ++cell) {
+            cumulativeArea += (double) cellWidth(cell % noOfColumns, cellSize, maxX)
+                    * cellWidth(cell / noOfColumns, cellSize, maxY);
+            final int cumulativeQuota = (int) Math.round(noOfNodes * cumulativeArea / area);
+            quotas[cell] = cumulativeQuota - assigned;
+            assigned = cumulativeQuota;
+            randoms[cell] = seedRandom.split();
+        }
+
+        // Place nodes, one checkerboard phase at a time.
+        final int[][] cellXs = new int[noOfCells][];
+        final int[][] cellYs = new int[noOfCells][];
+        final int[] cellNoOfNodes = new int[noOfCells];
+        for (int phase = 0; phase < 4; ++phase) {
+            final int firstColumn = phase & 1;
+            final int firstRow = phase >> 1;
+            final int phaseColumns = (noOfColumns - firstColumn + 1) / 2;
+            final int phaseRows = (noOfRows - firstRow + 1) / 2;
+            pool.invoke(new RangeTask(0, phaseColumns * phaseRows, CELLS_PER_TASK, i -> {
+                final int column = firstColumn + 2 * (i % phaseColumns);
+                final int row = firstRow + 2 * (i / phaseColumns);
+                placeNodes(column, row, noOfColumns, noOfRows, cellSize, maxX, maxY, minDistance, quotas, randoms,
+                        cellXs, cellYs, cellNoOfNodes);
+            }));
+        }
+
+        int placedNodes = 0;
+        for (int cell = 0; cell < noOfCells; ++cell) {
+            placedNodes += cellNoOfNodes[cell];
+        }
+        // Spatial index cells no smaller than minDistance, as for the serial generator.
+        final WorldMap generatedMap = createSizedWorldMap(placedNodes, minDistance, maxX, maxY);
+        for (int cell = 0; cell < noOfCells; ++cell) {
+            for (int i = 0; i < cellNoOfNodes[cell]; ++i) {
+                generatedMap.addNode(new Node(String.valueOf(generatedMap.getNodeCount() + 1), cellXs[cell][i],
+                        cellYs[cell][i]));
+            }
+        }
+        if (placedNodes < 2) {
+            return generatedMap;
+        }
+
+        // Find each node's neighbours; the spatial index is only read from here on.
+        final Node[] nodes = generatedMap.nodesById.toArray(new Node[0]);
+        final int[][] neighborIds = new int[placedNodes][];
+        pool.invoke(new RangeTask(0, placedNodes, NODES_PER_TASK, nodeId -> {
+            final Node node = nodes[nodeId];
+            final Node closestNode = generatedMap.findNearestNode(node);
+            final double maxEdgeWeight = node.getDistanceFrom(closestNode) * EDGE_DISTANCE_MULTIPLIER;
+            final List<Node> nodesWithin = generatedMap.findNodesWithin(node.getX(), node.getY(), maxEdgeWeight);
+            final int[] ids = new int[nodesWithin.size() - 1];
+            int noOfIds = 0;
+            for (final Node otherNode : nodesWithin) {
+                if (otherNode != node) {
+                    ids[noOfIds++] = otherNode.getId();
                 }
-                if (!foundTooClose) {
-                    generatedMap.addNode(randomNode);
+            }
+            neighborIds[nodeId] = ids;
+        }));
+
+        // Reverse edges: count them per node, then place them at atomically claimed positions.
+        final AtomicIntegerArray reverseCounts = new AtomicIntegerArray(placedNodes);
+        pool.invoke(new RangeTask(0, placedNodes, NODES_PER_TASK, nodeId -> {
+            for (final int otherNodeId : neighborIds[nodeId]) {
+                reverseCounts.incrementAndGet(otherNodeId);
+            }
+        }));
+        final int[] reverseOffsets = new int[placedNodes + 1];
+        for (int nodeId = 0; nodeId < placedNodes; ++nodeId) {
+            reverseOffsets[nodeId + 1] = reverseOffsets[nodeId] + reverseCounts.get(nodeId);
+        }
+        final int[] reverseIds = new int[reverseOffsets[placedNodes]];
+        final AtomicIntegerArray reverseCursors = new AtomicIntegerArray(placedNodes);
+        pool.invoke(new RangeTask(0, placedNodes, NODES_PER_TASK, nodeId -> {
+            for (final int otherNodeId : neighborIds[nodeId]) {
+                reverseIds[reverseOffsets[otherNodeId] + reverseCursors.getAndIncrement(otherNodeId)] = nodeId;
+            }
+        }));
+
+        // Each node adds its own edges, in id order so the map does not depend on which task placed what.
+        pool.invoke(new RangeTask(0, placedNodes, NODES_PER_TASK, nodeId -> {
+            final int[] ids = Arrays.copyOf(neighborIds[nodeId],
+                    neighborIds[nodeId].length + reverseCounts.get(nodeId));
+            System.arraycopy(reverseIds, reverseOffsets[nodeId], ids, neighborIds[nodeId].length,
+                    reverseCounts.get(nodeId));
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; ++i) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    nodes[nodeId].addEdge(new Edge(nodes[nodeId], nodes[ids[i]]));
+                }
+            }
+        }));
+
+        return generatedMap;
+    }
+
+    /**
+     * Fills one placement cell with its quota of nodes, checking the distance to the nodes of the cell and of its
+     * neighbours filled so far.
+     */
+    private static void placeNodes(final int column, final int row, final int noOfColumns, final int noOfRows,
+                                   final int cellSize, final int maxX, final int maxY, final double minDistance,
+                                   final int[] quotas, final SplittableRandom[] randoms, final int[][] cellXs,
+                                   final int[][] cellYs, final int[] cellNoOfNodes) {
+        final int cell = row * noOfColumns + column;
+        final SplittableRandom random = randoms[cell];
+        final int minCellX = column * cellSize;
+        final int minCellY = row * cellSize;
+        final int width = cellWidth(column, cellSize, maxX);
+        final int height = cellWidth(row, cellSize, maxY);
+        cellXs[cell] = new int[quotas[cell]];
+        cellYs[cell] = new int[quotas[cell]];
+        for (int i = 0; i < quotas[cell]; ++i) {
+            for (int j = 0; j < MAX_RETRIES; ++j) {
+                final int x = minCellX + random.nextInt(width);
+                final int y = minCellY + random.nextInt(height);
+                if (!hasPlacedNodeWithin(x, y, minDistance, column, row, noOfColumns, noOfRows, cellXs, cellYs,
+                        cellNoOfNodes)) {
+                    cellXs[cell][cellNoOfNodes[cell]] = x;
+                    cellYs[cell][cellNoOfNodes[cell]] = y;
+                    ++cellNoOfNodes[cell];
                     break;
                 }
             }
         }
+    }
 
-        if (generatedMap.getNodes().size() < 2) {
-            return generatedMap;
+    private static boolean hasPlacedNodeWithin(final int x, final int y, final double minDistance, final int column,
+                                               final int row, final int noOfColumns, final int noOfRows,
+                                               final int[][] cellXs, final int[][] cellYs,
+                                               final int[] cellNoOfNodes) {
+        for (int otherRow = Math.max(0, row - 1); otherRow <= Math.min(noOfRows - 1, row + 1); ++otherRow) {
+            for (int otherColumn = Math.max(0, column - 1); otherColumn <= Math.min(noOfColumns - 1, column + 1);
+                 ++otherColumn) {
+                final int otherCell = otherRow * noOfColumns + otherColumn;
+                for (int i = 0; i < cellNoOfNodes[otherCell]; ++i) {
+                    final double xDiff = cellXs[otherCell][i] - x;
+                    final double yDiff = cellYs[otherCell][i] - y;
+                    if (Math.sqrt(xDiff * xDiff + yDiff * yDiff) < minDistance) {
+                        return true;
+                    }
+                }
+            }
         }
+        return false;
+    }
 
-        // Add edges.
-        for (final Node node : generatedMap.getNodes()) {
-            Node closestNode = null;
-            double closestNodeDistance = 0.0;
+    /**
+     * @param index column or row of a placement cell
+     * @param cellSize
+     * @param max largest coordinate of the area
+     * @return number of integer coordinates the cell spans, which is less than cellSize for the last one
+     */
+    private static int cellWidth(final int index, final int cellSize, final int max) {
+        return Math.min(cellSize, max + 1 - index * cellSize);
+    }
 
-            for (final Node otherNode : generatedMap.getNodes()) {
-                if (otherNode == node) {
-                    continue;
-                }
+    /**
+     * Runs the body for every index of a range, splitting the range across the pool.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeTask(final int from, final int to, final int grain, final IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
 
-                final double otherNodeDistance = node.getDistanceFrom(otherNode);
-                if (closestNode == null || otherNodeDistance < closestNodeDistance) {
-                    closestNode = otherNode;
-                    closestNodeDistance = otherNodeDistance;
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; ++i) {
+                    body.accept(i);
                 }
+                return;
             }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+        }
+    }
+
+    /**
+     * Generates a map on the calling thread, drawing node positions from the given random source, so a seeded source
+     * reproduces the map.
+     * @param noOfNodes
+     * @param minDistance
+     * @param maxX
+     * @param maxY
+     * @param random
+     * @return
+     */
+    public static WorldMap generateMap(final int noOfNodes, final double minDistance, final int maxX, final int maxY,
+                                       final Random random) {
+        // Cells no smaller than minDistance so a placement check spans 3x3 cells.
+        final WorldMap generatedMap = createSizedWorldMap(noOfNodes, minDistance, maxX, maxY);
 
-            final double maxEdgeWeight = closestNodeDistance * EDGE_DISTANCE_MULTIPLIER;
-            for (final Node otherNode : generatedMap.getNodes()) {
-                if (otherNode == node) {
-                    continue;
+        // Add nodes.
+        for (int i = 0; i < noOfNodes; ++i) {
+            for (int j = 0; j < MAX_RETRIES; ++j) {
+                int x = random.nextInt(maxX + 1);
+                int y = random.nextInt(maxY + 1);
+                if (!generatedMap.spatialIndex.hasNodeWithin(x, y, minDistance)) {
+                    generatedMap.addNode(new Node(String.valueOf(i + 1), x, y));
+                    break;
                 }
+            }
+        }
+
+        if (generatedMap.getNodes().size() < 2) {
+            return generatedMap;
+        }
 
-                if (node.getDistanceFrom(otherNode) <= maxEdgeWeight) {
-                    node.addEdge(new Edge(node, otherNode));
-                    otherNode.addEdge(new Edge(otherNode, node));
+        // Add edges.
+        for (final Node node : generatedMap.getNodes()) {
+            final Node closestNode = generatedMap.findNearestNode(node);
+            final double maxEdgeWeight = node.getDistanceFrom(closestNode) * EDGE_DISTANCE_MULTIPLIER;
+            for (final Node otherNode : generatedMap.findNodesWithin(node.getX(), node.getY(), maxEdgeWeight)) {
+                if (otherNode != node) {
+                    generatedMap.addEdge(node, otherNode);
                 }
             }
         }
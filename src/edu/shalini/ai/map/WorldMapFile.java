@@ -0,0 +1,210 @@
+package edu.shalini.ai.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Versioned binary form of a graph, laid out so that it can be memory-mapped and searched in place.
+ * All values are little-endian. Node ids are the positions in the per-node sections.
+ * <pre>
+ * int magic "WMAP", int version, int noOfNodes, int noOfEdges, int noOfNameBytes, int padding
+ * int xs[noOfNodes], int ys[noOfNodes]
+ * int offsets[noOfNodes + 1], int edgeTargets[noOfEdges]     CSR adjacency, as in GraphSnapshot
+ * int nameOffsets[noOfNodes + 1], int nameOrder[noOfNodes]   node ids sorted by name bytes
+ * padding to a multiple of 8
+ * double edgeWeights[noOfEdges]
+ * byte nameBytes[noOfNameBytes]                              UTF-8 node names
+ * </pre>
+ */
+public class WorldMapFile {
+    private static final int MAGIC = 'W' | 'M' << 8 | 'A' << 16 | 'P' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private WorldMapFile() {
+    }
+
+    public static void save(final WorldMap worldMap, final Path path) throws IOException {
+        save(worldMap.freeze(), path);
+    }
+
+    public static void save(final GraphSnapshot graph, final Path path) throws IOException {
+        final int noOfNodes = graph.getNodeCount();
+        final int noOfEdges = graph.getEdgeCount();
+        final byte[][] names = new byte[noOfNodes][];
+        long noOfNameBytes = 0;
+        for (int nodeId = 0; nodeId < noOfNodes; ++nodeId) {
+            names[nodeId] = graph.getNodeName(nodeId).getBytes(StandardCharsets.UTF_8);
+            noOfNameBytes += names[nodeId].length;
+        }
+        final long fileSize = getEdgeWeightsPosition(noOfNodes, noOfEdges) + (long) noOfEdges * Double.BYTES
+                + noOfNameBytes;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The graph is too large for a WorldMap file.");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(noOfNodes).putInt(noOfEdges).putInt((int) noOfNameBytes)
+                .putInt(0);
+        for (int nodeId = 0; nodeId < noOfNodes; ++nodeId) {
+            buffer.putInt(graph.getX(nodeId));
+        }
+        for (int nodeId = 0; nodeId < noOfNodes; ++nodeId) {
+            buffer.putInt(graph.getY(nodeId));
+        }
+        for (int nodeId = 0; nodeId <= noOfNodes; ++nodeId) {
+            buffer.putInt(nodeId < noOfNodes ? graph.getFirstEdge(nodeId) : noOfEdges);
+        }
+        for (int edge = 0; edge < noOfEdges; ++edge) {
+            buffer.putInt(graph.getEdgeTarget(edge));
+        }
+        int nameOffset = 0;
+        for (int nodeId = 0; nodeId <= noOfNodes; ++nodeId) {
+            buffer.putInt(nameOffset);
+            nameOffset += nodeId < noOfNodes ? names[nodeId].length : 0;
+        }
+        final Integer[] nameOrder = new Integer[noOfNodes];
+        for (int nodeId = 0; nodeId < noOfNodes; ++nodeId) {
+            nameOrder[nodeId] = nodeId;
+        }
+        Arrays.sort(nameOrder, Comparator.comparing(nodeId -> names[nodeId], WorldMapFile::compareUnsigned));
+        for (int i = 0; i < noOfNodes; ++i) {
+            if (i > 0 && compareUnsigned(names[nameOrder[i - 1]], names[nameOrder[i]]) == 0) {
+                throw new IllegalArgumentException("Duplicate node name '" + graph.getNodeName(nameOrder[i]) + "'.");
+            }
+            buffer.putInt(nameOrder[i]);
+        }
+        buffer.position((int) getEdgeWeightsPosition(noOfNodes, noOfEdges));
+        for (int edge = 0; edge < noOfEdges; ++edge) {
+            buffer.putDouble(graph.getEdgeWeight(edge));
+        }
+        for (final byte[] name : names) {
+            buffer.put(name);
+        }
+        buffer.flip();
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Memory-maps the file as a snapshot, without creating per-node objects.
+     * The mapping stays valid after this returns and lasts as long as the snapshot is reachable.
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static GraphSnapshot map(final Path path) throws IOException {
+        final MappedByteBuffer mappedBuffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + " is not a WorldMap file.");
+            }
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final ByteBuffer buffer = mappedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(path + " is not a WorldMap file.");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException(path + " has unsupported version " + buffer.getInt(Integer.BYTES)
+                    + ".");
+        }
+        final int noOfNodes = buffer.getInt(2 * Integer.BYTES);
+        final int noOfEdges = buffer.getInt(3 * Integer.BYTES);
+        final int noOfNameBytes = buffer.getInt(4 * Integer.BYTES);
+        final long edgeWeightsPosition = getEdgeWeightsPosition(noOfNodes, noOfEdges);
+        if (noOfNodes < 0 || noOfEdges < 0 || noOfNameBytes < 0 || buffer.capacity()
+                != edgeWeightsPosition + (long) noOfEdges * Double.BYTES + noOfNameBytes) {
+            throw new IllegalArgumentException(path + " is truncated or corrupt.");
+        }
+
+        int position = HEADER_SIZE;
+        final IntBuffer xs = intSection(buffer, position, noOfNodes);
+        position += noOfNodes * Integer.BYTES;
+        final IntBuffer ys = intSection(buffer, position, noOfNodes);
+        position += noOfNodes * Integer.BYTES;
+        final IntBuffer offsets = intSection(buffer, position, noOfNodes + 1);
+        position += (noOfNodes + 1) * Integer.BYTES;
+        final IntBuffer edgeTargets = intSection(buffer, position, noOfEdges);
+        position += noOfEdges * Integer.BYTES;
+        final IntBuffer nameOffsets = intSection(buffer, position, noOfNodes + 1);
+        position += (noOfNodes + 1) * Integer.BYTES;
+        final IntBuffer nameOrder = intSection(buffer, position, noOfNodes);
+        final DoubleBuffer edgeWeights = section(buffer, (int) edgeWeightsPosition, noOfEdges * Double.BYTES)
+                .asDoubleBuffer();
+        final ByteBuffer nameBytes = section(buffer, (int) edgeWeightsPosition + noOfEdges * Double.BYTES,
+                noOfNameBytes);
+
+        if (offsets.get(0) != 0 || offsets.get(noOfNodes) != noOfEdges || nameOffsets.get(0) != 0
+                || nameOffsets.get(noOfNodes) != noOfNameBytes) {
+            throw new IllegalArgumentException(path + " is truncated or corrupt.");
+        }
+        return new GraphSnapshot(noOfNodes, xs, ys, offsets, edgeTargets, edgeWeights, nameOffsets, nameOrder,
+                nameBytes);
+    }
+
+    /**
+     * Reads the file into a WorldMap of Node objects, e.g. to edit or render it.
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static WorldMap load(final Path path) throws IOException {
+        return WorldMap.fromSnapshot(map(path));
+    }
+
+    /**
+     * @param path
+     * @return whether the file starts like a WorldMap file
+     * @throws IOException
+     */
+    public static boolean isWorldMapFile(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the magic is complete or the file ends.
+            }
+            return !buffer.hasRemaining() && buffer.getInt(0) == MAGIC;
+        }
+    }
+
+    private static long getEdgeWeightsPosition(final int noOfNodes, final int noOfEdges) {
+        final long position = HEADER_SIZE + (5L * noOfNodes + 2 + noOfEdges) * Integer.BYTES;
+        return (position + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+    private static IntBuffer intSection(final ByteBuffer buffer, final int position, final int length) {
+        return section(buffer, position, length * Integer.BYTES).asIntBuffer();
+    }
+
+    private static ByteBuffer section(final ByteBuffer buffer, final int position, final int noOfBytes) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + noOfBytes);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int compareUnsigned(final byte[] name, final byte[] otherName) {
+        for (int i = 0; i < Math.min(name.length, otherName.length); ++i) {
+            final int diff = (name[i] & 0xFF) - (otherName[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length - otherName.length;
+    }
+}
@@ -0,0 +1,78 @@
+package edu.shalini.ai.map;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Plain text form of a WorldMap, one node or edge per line:
+ * <pre>
+ * node &lt;name&gt; &lt;x&gt; &lt;y&gt;
+ * edge &lt;name&gt; &lt;name&gt;
+ * </pre>
+ * Edges are undirected and are written once. Blank lines and lines starting with '#' are ignored.
+ */
+public class WorldMapTextFormat {
+    private static final String NODE = "node";
+    private static final String EDGE = "edge";
+
+    private WorldMapTextFormat() {
+    }
+
+    public static WorldMap read(final BufferedReader reader) throws IOException {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        int lineNo = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            ++lineNo;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = line.split("\\s+");
+            try {
+                if (fields[0].equals(NODE) && fields.length == 4) {
+                    worldMap.addNode(new Node(fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+                } else if (fields[0].equals(EDGE) && fields.length == 3) {
+                    worldMap.addEdge(getNode(worldMap, fields[1]), getNode(worldMap, fields[2]));
+                } else {
+                    throw new IllegalArgumentException("Expected a node or an edge.");
+                }
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        return worldMap;
+    }
+
+    public static void write(final WorldMap worldMap, final Writer writer) throws IOException {
+        write(worldMap.freeze(), writer);
+    }
+
+    public static void write(final GraphSnapshot graph, final Writer writer) throws IOException {
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            final String name = graph.getNodeName(nodeId);
+            if (name.isEmpty() || name.matches(".*\\s.*")) {
+                throw new IllegalArgumentException("Node name '" + name + "' cannot be written as text.");
+            }
+            writer.write(NODE + " " + name + " " + graph.getX(nodeId) + " " + graph.getY(nodeId) + "\n");
+        }
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            final int endEdge = graph.getEndEdge(nodeId);
+            for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                if (nodeId < graph.getEdgeTarget(edge)) {
+                    writer.write(EDGE + " " + graph.getNodeName(nodeId) + " "
+                            + graph.getNodeName(graph.getEdgeTarget(edge)) + "\n");
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private static Node getNode(final WorldMap worldMap, final String name) {
+        final Node node = worldMap.getNodeByName(name);
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown node '" + name + "'.");
+        }
+        return node;
+    }
+}
@@ -0,0 +1,113 @@
+package edu.shalini.ai.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, safe to record into from many threads at once.
+ * Values below 16 get a bucket each; above that, every power of two is split into 8 buckets, so quantiles are
+ * accurate to 12.5% over the whole range of a long with 488 buckets.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+    static final int NO_OF_BUCKETS = LINEAR_LIMIT + (Long.SIZE - 1 - LINEAR_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(NO_OF_BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * @param nanos negative durations are recorded as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts.incrementAndGet(toBucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        final long noOfValues = count.sum();
+        return noOfValues == 0 ? 0 : (double) sum.sum() / noOfValues;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the upper end of the bucket holding the quantile, capped at the maximum; 0 if nothing was recorded
+     */
+    public long getQuantileNanos(final double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        final long[] snapshot = new long[NO_OF_BUCKETS];
+        long noOfValues = 0;
+        for (int bucket = 0; bucket < NO_OF_BUCKETS; ++bucket) {
+            snapshot[bucket] = counts.get(bucket);
+            noOfValues += snapshot[bucket];
+        }
+        if (noOfValues == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * noOfValues));
+        long seen = 0;
+        for (int bucket = 0; bucket < NO_OF_BUCKETS; ++bucket) {
+            seen += snapshot[bucket];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @param unit
+     * @return mean, 50th, 90th and 99th percentile and maximum, converted to the unit
+     */
+    public double[] summarize(final TimeUnit unit) {
+        final double nanosPerUnit = unit.toNanos(1);
+        return new double[] {getMeanNanos() / nanosPerUnit, getQuantileNanos(0.5) / nanosPerUnit,
+                getQuantileNanos(0.9) / nanosPerUnit, getQuantileNanos(0.99) / nanosPerUnit,
+                getMaxNanos() / nanosPerUnit};
+    }
+
+    static int toBucket(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getBucketUpperBound(final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        final int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_EXPONENT;
+        final int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        final long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,220 @@
+package edu.shalini.ai.metrics;
+
+import edu.shalini.ai.search.SearchListener;
+import edu.shalini.ai.search.SearchStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Default SearchListener: adds up the counters of every search and keeps latency histograms of its phases, across
+ * any number of searches and threads. Totals only ever grow; snapshots are written as text or as CSV rows.
+ */
+public class SearchMetricsRecorder implements SearchListener {
+    private static final Logger LOGGER = Logger.getLogger(SearchMetricsRecorder.class.getName());
+    private static final String[] LATENCY_NAMES = {"total", "prepare", "expand", "hscore", "reconstruct"};
+    private static final String[] LATENCY_STATISTICS = {"mean", "p50", "p90", "p99", "max"};
+
+    private final LongAdder[] searchesByOutcome;
+    private final LongAdder expansions;
+    private final LongAdder reusedExpansions;
+    private final LongAdder statesGenerated;
+    private final LongAdder statesImproved;
+    private final LongAdder statesDominated;
+    private final LongAdder statesPrunedByBound;
+    private final LongAdder hScoreEvaluations;
+    private final LongAccumulator peakOpenListSize;
+    // Indexed like LATENCY_NAMES.
+    private final LatencyHistogram[] latencies;
+
+    public SearchMetricsRecorder() {
+        this.searchesByOutcome = new LongAdder[SearchStats.Outcome.values().length];
+        for (int i = 0; i < searchesByOutcome.length; ++i) {
+            searchesByOutcome[i] = new LongAdder();
+        }
+        this.expansions = new LongAdder();
+        this.reusedExpansions = new LongAdder();
+        this.statesGenerated = new LongAdder();
+        this.statesImproved = new LongAdder();
+        this.statesDominated = new LongAdder();
+        this.statesPrunedByBound = new LongAdder();
+        this.hScoreEvaluations = new LongAdder();
+        this.peakOpenListSize = new LongAccumulator(Math::max, 0);
+        this.latencies = new LatencyHistogram[LATENCY_NAMES.length];
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void onSearchEnded(final SearchStats stats) {
+        searchesByOutcome[stats.getOutcome().ordinal()].increment();
+        expansions.add(stats.getNumExpansions());
+        reusedExpansions.add(stats.getReusedExpansions());
+        statesGenerated.add(stats.getStatesGenerated());
+        statesImproved.add(stats.getStatesImproved());
+        statesDominated.add(stats.getStatesDominated());
+        statesPrunedByBound.add(stats.getStatesPrunedByBound());
+        hScoreEvaluations.add(stats.getHScoreEvaluations());
+        peakOpenListSize.accumulate(stats.getPeakOpenListSize());
+        latencies[0].record(stats.getTotalNanos());
+        latencies[1].record(stats.getPrepareNanos());
+        latencies[2].record(stats.getExpandNanos());
+        latencies[3].record(stats.getHScoreNanos());
+        latencies[4].record(stats.getReconstructNanos());
+    }
+
+    public long getSearches() {
+        long searches = 0;
+        for (final LongAdder adder : searchesByOutcome) {
+            searches += adder.sum();
+        }
+        return searches;
+    }
+
+    public long getSearches(final SearchStats.Outcome outcome) {
+        return searchesByOutcome[outcome.ordinal()].sum();
+    }
+
+    public long getExpansions() {
+        return expansions.sum();
+    }
+
+    public long getStatesGenerated() {
+        return statesGenerated.sum();
+    }
+
+    public long getHScoreEvaluations() {
+        return hScoreEvaluations.sum();
+    }
+
+    public LatencyHistogram getTotalLatency() {
+        return latencies[0];
+    }
+
+    public LatencyHistogram getHScoreLatency() {
+        return latencies[3];
+    }
+
+    /**
+     * Writes the totals and latencies in milliseconds as a table.
+     * @param out
+     * @throws IOException
+     */
+    public void writeText(final Appendable out) throws IOException {
+        out.append(String.format(Locale.ROOT, "searches %d (found %d, unreachable %d, cancelled %d, timed out %d)%n",
+                getSearches(), getSearches(SearchStats.Outcome.FOUND), getSearches(SearchStats.Outcome.UNREACHABLE),
+                getSearches(SearchStats.Outcome.CANCELLED), getSearches(SearchStats.Outcome.TIMED_OUT)));
+        out.append(String.format(Locale.ROOT, "expansions %d (reused %d), states generated %d, improved %d, "
+                        + "dominated %d, pruned by bound %d, h-score evaluations %d, peak open list %d%n",
+                expansions.sum(), reusedExpansions.sum(), statesGenerated.sum(), statesImproved.sum(),
+                statesDominated.sum(), statesPrunedByBound.sum(), hScoreEvaluations.sum(), peakOpenListSize.get()));
+        out.append(String.format(Locale.ROOT, "%-12s %10s %10s %10s %10s %10s (ms)%n", "latency", "mean", "p50",
+                "p90", "p99", "max"));
+        for (int i = 0; i < latencies.length; ++i) {
+            final double[] summary = latencies[i].summarize(TimeUnit.MILLISECONDS);
+            out.append(String.format(Locale.ROOT, "%-12s %10.3f %10.3f %10.3f %10.3f %10.3f%n", LATENCY_NAMES[i],
+                    summary[0], summary[1], summary[2], summary[3], summary[4]));
+        }
+    }
+
+    /**
+     * @return the column names of writeCsvRow, without a line break
+     */
+    public static String getCsvHeader() {
+        final StringBuilder header = new StringBuilder("timestamp_ms,searches,found,unreachable,cancelled,timed_out,"
+                + "expansions,reused_expansions,states_generated,states_improved,states_dominated,"
+                + "states_pruned_by_bound,hscore_evaluations,peak_open_list");
+        for (final String name : LATENCY_NAMES) {
+            for (final String statistic : LATENCY_STATISTICS) {
+                header.append(',').append(name).append('_').append(statistic).append("_us");
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * Writes the current totals and latencies in microseconds as one CSV line.
+     * @param out
+     * @param timestampMillis e.g. System.currentTimeMillis()
+     * @throws IOException
+     */
+    public void writeCsvRow(final Appendable out, final long timestampMillis) throws IOException {
+        out.append(Long.toString(timestampMillis)).append(',').append(Long.toString(getSearches()));
+        for (final SearchStats.Outcome outcome : SearchStats.Outcome.values()) {
+            out.append(',').append(Long.toString(getSearches(outcome)));
+        }
+        out.append(',').append(Long.toString(expansions.sum()))
+                .append(',').append(Long.toString(reusedExpansions.sum()))
+                .append(',').append(Long.toString(statesGenerated.sum()))
+                .append(',').append(Long.toString(statesImproved.sum()))
+                .append(',').append(Long.toString(statesDominated.sum()))
+                .append(',').append(Long.toString(statesPrunedByBound.sum()))
+                .append(',').append(Long.toString(hScoreEvaluations.sum()))
+                .append(',').append(Long.toString(peakOpenListSize.get()));
+        for (final LatencyHistogram latency : latencies) {
+            for (final double value : latency.summarize(TimeUnit.MICROSECONDS)) {
+                out.append(',').append(String.format(Locale.ROOT, "%.1f", value));
+            }
+        }
+        out.append(System.lineSeparator());
+    }
+
+    /**
+     * Appends a CSV row to the file every period, from a daemon thread, and once more on close. The header is written
+     * first if the file is new or empty.
+     * @param csvFile
+     * @param periodMillis
+     * @return closing it stops the snapshots
+     */
+    public Closeable startPeriodicSnapshots(final Path csvFile, final long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Snapshot period must be positive.");
+        }
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "search-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                appendSnapshot(csvFile);
+            } catch (final IOException e) {
+                // Keep the schedule alive; a later snapshot may succeed.
+                LOGGER.log(Level.WARNING, "Could not write search metrics to " + csvFile, e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return () -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(periodMillis, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            appendSnapshot(csvFile);
+        };
+    }
+
+    private synchronized void appendSnapshot(final Path csvFile) throws IOException {
+        try (final Writer writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (Files.size(csvFile) == 0) {
+                writer.append(getCsvHeader()).append(System.lineSeparator());
+            }
+            writeCsvRow(writer, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Anytime weighted A*: finds a first route quickly by expanding states in order of
+ * max(g + weight * h, maxWaitingTime), then keeps searching for cheaper ones until the open list is exhausted or the
+ * monitor's deadline passes.
+ * As in ARA*, the excess of the weight over 1 is halved after every route found and the open list is reordered, so
+ * the search turns into A* as it goes on. Unlike ARA*, the open list is kept as it is rather than rebuilt from
+ * scratch. States whose f-score is not below the best route found so far are pruned, and expanded states are
+ * reopened when a cheaper path to them turns up. The unweighted f-scores of the open states are kept in a second heap, whose
+ * minimum is a lower bound on the cost of any cheaper route; every route is reported with the ratio of its cost to
+ * that bound.
+ */
+public class AnytimeSearch {
+    /**
+     * A route together with how far from the optimum it is proven to be.
+     */
+    public static class Result extends Search.Result {
+        private final double suboptimalityBound;
+
+        public Result(final List<Node> shortestPath, final List<Double> shortestPathGScores,
+                      final double shortestPathCost, final int numExpansions, final Set<Node> expandedNodes,
+                      final double suboptimalityBound) {
+            super(shortestPath, shortestPathGScores, shortestPathCost, numExpansions, expandedNodes);
+            this.suboptimalityBound = suboptimalityBound;
+        }
+
+        /**
+         * @return a factor the cost is at most that many times the optimal cost by; 1 if it is optimal
+         */
+        public double getSuboptimalityBound() {
+            return suboptimalityBound;
+        }
+
+        public boolean isOptimal() {
+            return suboptimalityBound <= 1;
+        }
+    }
+
+    /**
+     * Told about every improved route, on the searching thread. These results leave out the expanded nodes.
+     */
+    public interface SolutionListener {
+        void onSolution(Result result);
+    }
+
+    // Below this the weight is rounded down to 1.
+    private static final double MIN_WEIGHT = 1.05;
+
+    private final double weight;
+    private final Queue<SearchContext> idleContexts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param weight heuristic weight of the first pass, at least 1; larger weights find a first route sooner
+     */
+    public AnytimeSearch(final double weight) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1.");
+        }
+        this.weight = weight;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Searches until the best route is proven optimal, or until the monitor's deadline passes once a route was
+     * found.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @param monitor
+     * @param listener told about every improved route; may be null
+     * @return the best route found, with its bound at the time the search stopped
+     * @throws java.util.concurrent.CancellationException if the monitor was cancelled
+     * @throws SearchTimeoutException if the monitor's deadline passed before any route was found
+     */
+    public Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                                   final HScoreComputer computer, final SearchMonitor monitor,
+                                   final SolutionListener listener) {
+        SearchContext context = idleContexts.poll();
+        if (context == null) {
+            context = new SearchContext();
+        }
+        try {
+            return findShortestPath(graph, sourceNodeId, targetNodeIds, computer, context, monitor, listener);
+        } finally {
+            context.reset();
+            idleContexts.add(context);
+        }
+    }
+
+    private Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                                    final HScoreComputer computer, final SearchContext context,
+                                    final SearchMonitor monitor, final SolutionListener listener) {
+        final int noOfTargets = Search.assignTargetBits(targetNodeIds, context);
+        computer.prepare(graph, targetNodeIds, monitor);
+        final long sourceTargets = noOfTargets == Search.MAX_TARGETS ? -1L : (1L << noOfTargets) - 1;
+
+        // The context's open list is ordered by the weighted f-score, this one by the f-score.
+        final OpenList openList = context.getOpenList();
+        final OpenList fScoreList = new OpenList();
+        double currentWeight = weight;
+        final int sourceState = context.addState(sourceNodeId, sourceTargets);
+        context.setGScore(sourceState, 0);
+        context.setMaxWaitingTime(sourceState, graph.getAlreadyWaited(sourceNodeId));
+        context.setHScore(sourceState, computer.computeHScore(sourceNodeId, sourceTargets));
+        open(context, fScoreList, sourceState, currentWeight);
+
+        Result bestResult = null;
+        int numExpansions = 0;
+        final Set<Node> expandedNodes = new HashSet<>();
+        while (!openList.isEmpty()) {
+            final int state = openList.poll();
+            fScoreList.remove(state);
+            final double fScore = context.getFScore(state);
+            if (bestResult != null && fScore >= bestResult.getShortestPathCost()) {
+                continue;
+            }
+            if (context.getTargets(state) == 0) {
+                bestResult = new Result(Search.reconstructPath(graph, state, context),
+                        Search.reconstructShortestPathGScores(state, context), fScore, numExpansions,
+                        Collections.emptySet(), computeBound(fScore, fScoreList));
+                if (listener != null) {
+                    listener.onSolution(bestResult);
+                }
+                if (currentWeight > 1) {
+                    currentWeight = currentWeight / 2 + 0.5 < MIN_WEIGHT ? 1 : currentWeight / 2 + 0.5;
+                    final double newWeight = currentWeight;
+                    openList.updateKeys(openState -> computeWeightedFScore(context, openState, newWeight));
+                }
+                continue;
+            }
+
+            context.setVisited(state);
+            if (++numExpansions % SearchMonitor.CHECK_INTERVAL == 0) {
+                try {
+                    monitor.check(numExpansions, openList.size(), fScoreList.isEmpty() ? fScore
+                            : fScoreList.peekKey());
+                } catch (final SearchTimeoutException e) {
+                    if (bestResult == null) {
+                        throw e;
+                    }
+                    fScoreList.addOrUpdate(state, fScore);
+                    return withBound(bestResult, numExpansions, expandedNodes,
+                            computeBound(bestResult.getShortestPathCost(), fScoreList));
+                }
+            }
+            expandedNodes.add(graph.getNode(context.getNodeId(state)));
+            relax(graph, computer, context, fScoreList, state, currentWeight,
+                    bestResult == null ? Double.POSITIVE_INFINITY : bestResult.getShortestPathCost());
+        }
+
+        if (bestResult == null) {
+            throw new UnreachableTargetsException("Destinations not reachable from " + graph.getNodeName(sourceNodeId));
+        }
+        return withBound(bestResult, numExpansions, expandedNodes, 1);
+    }
+
+    /**
+     * Like Search.relax, but skips neighbours that cannot beat the best route and reopens expanded ones reached more
+     * cheaply.
+     */
+    private static void relax(final GraphSnapshot graph, final HScoreComputer computer,
+                              final SearchContext context, final OpenList fScoreList, final int state,
+                              final double currentWeight, final double bestCost) {
+        final long targets = context.getTargets(state);
+        final int nodeId = context.getNodeId(state);
+        final double gScore = context.getGScore(state);
+        final double maxWaitingTime = context.getMaxWaitingTime(state);
+        final int endEdge = graph.getEndEdge(nodeId);
+        for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+            final int neighborNode = graph.getEdgeTarget(edge);
+            final long neighborTargets = context.computeTargets(neighborNode, targets);
+            int neighborState = context.findState(neighborNode, neighborTargets);
+
+            final double gScoreFromPrevNode = gScore + graph.getEdgeWeight(edge);
+            final double neighborMaxWaitingTime = Math.max(gScoreFromPrevNode + graph.getAlreadyWaited(neighborNode),
+                    maxWaitingTime);
+            final double hScore;
+            if (neighborState == SearchContext.NO_STATE) {
+                hScore = computer.computeHScore(neighborNode, neighborTargets);
+            } else if (gScoreFromPrevNode >= context.getGScore(neighborState)) {
+                continue;
+            } else {
+                hScore = context.getHScore(neighborState);
+            }
+            if (Math.max(gScoreFromPrevNode + hScore, neighborMaxWaitingTime) >= bestCost) {
+                continue;
+            }
+
+            if (neighborState == SearchContext.NO_STATE) {
+                neighborState = context.addState(neighborNode, neighborTargets);
+                context.setHScore(neighborState, hScore);
+            } else if (context.isVisited(neighborState)) {
+                context.clearVisited(neighborState);
+            }
+            context.setGScore(neighborState, gScoreFromPrevNode);
+            context.setMaxWaitingTime(neighborState, neighborMaxWaitingTime);
+            context.setPrevState(neighborState, state);
+            open(context, fScoreList, neighborState, currentWeight);
+        }
+    }
+
+    private static void open(final SearchContext context, final OpenList fScoreList, final int state,
+                             final double currentWeight) {
+        context.getOpenList().addOrUpdate(state, computeWeightedFScore(context, state, currentWeight));
+        fScoreList.addOrUpdate(state, context.getFScore(state));
+    }
+
+    private static double computeWeightedFScore(final SearchContext context, final int state,
+                                                final double currentWeight) {
+        return Math.max(context.getGScore(state) + currentWeight * context.getHScore(state),
+                context.getMaxWaitingTime(state));
+    }
+
+    /**
+     * @param cost
+     * @param fScoreList
+     * @return cost divided by the lowest cost any route could still have
+     */
+    private static double computeBound(final double cost, final OpenList fScoreList) {
+        final double lowerBound = fScoreList.isEmpty() ? cost : Math.min(cost, fScoreList.peekKey());
+        if (lowerBound >= cost) {
+            return 1;
+        }
+        return lowerBound > 0 ? cost / lowerBound : Double.POSITIVE_INFINITY;
+    }
+
+    private static Result withBound(final Result result, final int numExpansions, final Set<Node> expandedNodes,
+                                    final double suboptimalityBound) {
+        return new Result(result.getShortestPath(), result.getShortestPathGScores(), result.getShortestPathCost(),
+                numExpansions, expandedNodes, suboptimalityBound);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Runs many independent routing queries against one graph snapshot on a ForkJoinPool.
+ * Each query gets a fresh HScoreComputer from its supplier and its own pooled SearchContext, so the results do not
+ * depend on the number of threads.
+ */
+public class BatchSearch {
+    // Below this many queries a task runs them itself instead of splitting further.
+    private static final int QUERIES_PER_TASK = 4;
+
+    public static class Query {
+        private final int sourceNodeId;
+        private final int[] targetNodeIds;
+        private final Supplier<? extends HScoreComputer> computerSupplier;
+
+        /**
+         * @param sourceNodeId
+         * @param targetNodeIds distinct target node ids
+         * @param computerSupplier creates the HScoreComputer for this query
+         */
+        public Query(final int sourceNodeId, final int[] targetNodeIds,
+                     final Supplier<? extends HScoreComputer> computerSupplier) {
+            this.sourceNodeId = sourceNodeId;
+            this.targetNodeIds = targetNodeIds.clone();
+            this.computerSupplier = computerSupplier;
+        }
+
+        public int getSourceNodeId() {
+            return sourceNodeId;
+        }
+
+        public int[] getTargetNodeIds() {
+            return targetNodeIds.clone();
+        }
+    }
+
+    private final Search search;
+    private final ForkJoinPool pool;
+
+    public BatchSearch(final ForkJoinPool pool) {
+        this.search = new Search();
+        this.pool = pool;
+    }
+
+    /**
+     * @param graph
+     * @param queries
+     * @return one result per query, in query order; null where the targets are not reachable from the source
+     */
+    public List<Search.Result> findShortestPaths(final GraphSnapshot graph, final List<Query> queries) {
+        final Search.Result[] results = new Search.Result[queries.size()];
+        pool.invoke(new QueryTask(graph, queries, results, 0, queries.size()));
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    private Search.Result findShortestPath(final GraphSnapshot graph, final Query query) {
+        try {
+            return search.findShortestPath(graph, query.sourceNodeId, query.targetNodeIds,
+                    query.computerSupplier.get());
+        } catch (final UnreachableTargetsException ignored) {
+            return null;
+        }
+    }
+
+    private class QueryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GraphSnapshot graph;
+        private final List<Query> queries;
+        private final Search.Result[] results;
+        private final int from;
+        private final int to;
+
+        QueryTask(final GraphSnapshot graph, final List<Query> queries, final Search.Result[] results,
+                  final int from, final int to) {
+            this.graph = graph;
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= QUERIES_PER_TASK) {
+                for (int i = from; i < to; ++i) {
+                    results[i] = findShortestPath(graph, queries.get(i));
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new QueryTask(graph, queries, results, from, middle),
+                    new QueryTask(graph, queries, results, middle, to));
+        }
+    }
+}
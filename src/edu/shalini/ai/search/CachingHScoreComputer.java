@@ -0,0 +1,63 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+/**
+ * Decorates an HScoreComputer with an HScoreCache that outlives a single search.
+ * The cache must only ever be used with one kind of delegate. The delegate is prepared lazily, on the first miss,
+ * so a search served entirely from the cache also skips the delegate's setup.
+ */
+public class CachingHScoreComputer implements HScoreComputer {
+    private final HScoreComputer delegate;
+    private final HScoreCache cache;
+    private GraphSnapshot graph;
+    private int[] targetNodeIds = new int[0];
+    private long[] targetHashes = new long[0];
+    private SearchMonitor monitor = SearchMonitor.NONE;
+    private boolean delegatePrepared;
+
+    public CachingHScoreComputer(final HScoreComputer delegate, final HScoreCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds) {
+        prepare(graph, targetNodeIds, SearchMonitor.NONE);
+    }
+
+    /**
+     * The monitor is handed on to the delegate once it is prepared.
+     */
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds, final SearchMonitor monitor) {
+        cache.bind(graph);
+        this.monitor = monitor;
+        this.graph = graph;
+        this.targetNodeIds = targetNodeIds;
+        this.targetHashes = new long[targetNodeIds.length];
+        for (int i = 0; i < targetNodeIds.length; ++i) {
+            targetHashes[i] = HScoreCache.hashTarget(targetNodeIds[i]);
+        }
+        this.delegatePrepared = false;
+    }
+
+    @Override
+    public double computeHScore(int nodeId, long targets) {
+        long subsetHash = 0L;
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            subsetHash ^= targetHashes[Long.numberOfTrailingZeros(remaining)];
+        }
+
+        double hScore = cache.get(nodeId, subsetHash);
+        if (Double.isNaN(hScore)) {
+            if (!delegatePrepared) {
+                delegate.prepare(graph, targetNodeIds, monitor);
+                delegatePrepared = true;
+            }
+            hScore = delegate.computeHScore(nodeId, targets);
+            cache.put(nodeId, subsetHash, hScore);
+        }
+        return hScore;
+    }
+}
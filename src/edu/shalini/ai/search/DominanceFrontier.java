@@ -0,0 +1,205 @@
+package edu.shalini.ai.search;
+
+import java.util.Arrays;
+
+/**
+ * The Pareto frontier of the expanded states at every node: for each node, the (remaining targets, g-score, max
+ * waiting time) labels that no other label there dominates. A label dominates another if its targets are a subset of
+ * the other's and neither of its scores is higher: any route finishing the dominated state also finishes the other,
+ * at no higher cost. Search adds states as it expands them; states on the open list do not count, since their scores
+ * may still be replaced by a lower g-score with a higher max waiting time.
+ * The labels of a node are kept side by side in arrays of their own, so a lookup scans them with one mask test per
+ * label, whatever the number of targets. The arrays are kept for the next query; clearing only resets their counts.
+ * With waiting times, a state keeps only its lowest g-score path even if another has a lower max waiting time, so
+ * neither a search with pruning nor one without is exact, and pruning may end on a different route.
+ */
+final class DominanceFrontier {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int INITIAL_LABELS_PER_NODE = 4;
+
+    private long[][] targetsByNode;
+    private double[][] gScoresByNode;
+    private double[][] maxWaitingTimesByNode;
+    private int[] labelCounts;
+    // Per node: the lowest scores of its labels, which no dominator undercuts, and no less than their highest
+    // scores, which no label dominated by a new one exceeds.
+    private double[] minGScores;
+    private double[] minMaxWaitingTimes;
+    private double[] maxGScores;
+    private double[] maxMaxWaitingTimes;
+    private int[] touchedNodeIds;
+    private int noOfTouchedNodes;
+    private int noOfLabels;
+
+    DominanceFrontier() {
+        this.targetsByNode = new long[INITIAL_CAPACITY][];
+        this.gScoresByNode = new double[INITIAL_CAPACITY][];
+        this.maxWaitingTimesByNode = new double[INITIAL_CAPACITY][];
+        this.labelCounts = new int[INITIAL_CAPACITY];
+        this.minGScores = new double[INITIAL_CAPACITY];
+        this.minMaxWaitingTimes = new double[INITIAL_CAPACITY];
+        this.maxGScores = new double[INITIAL_CAPACITY];
+        this.maxMaxWaitingTimes = new double[INITIAL_CAPACITY];
+        this.touchedNodeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param nodeId
+     * @return labels on the node's frontier
+     */
+    int size(final int nodeId) {
+        return nodeId < labelCounts.length ? labelCounts[nodeId] : 0;
+    }
+
+    /**
+     * A quick test that rules out most states that are not dominated.
+     * @param nodeId
+     * @param gScore
+     * @param maxWaitingTime
+     * @return false if no label at the node has scores as low as these
+     */
+    boolean mayDominate(final int nodeId, final double gScore, final double maxWaitingTime) {
+        return size(nodeId) > 0 && minGScores[nodeId] <= gScore && minMaxWaitingTimes[nodeId] <= maxWaitingTime;
+    }
+
+    /**
+     * Scans the node's frontier.
+     * @param nodeId
+     * @param stateTargets
+     * @param gScore
+     * @param maxWaitingTime
+     * @return whether a label at the node has a subset of the targets and neither a higher g-score nor a higher max
+     *         waiting time
+     */
+    boolean isDominated(final int nodeId, final long stateTargets, final double gScore,
+                        final double maxWaitingTime) {
+        if (!mayDominate(nodeId, gScore, maxWaitingTime)) {
+            return false;
+        }
+        final long[] labelTargets = targetsByNode[nodeId];
+        final double[] labelGScores = gScoresByNode[nodeId];
+        final double[] labelMaxWaitingTimes = maxWaitingTimesByNode[nodeId];
+        for (int label = labelCounts[nodeId] - 1; label >= 0; --label) {
+            if ((labelTargets[label] & ~stateTargets) == 0L && labelGScores[label] <= gScore
+                    && labelMaxWaitingTimes[label] <= maxWaitingTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a label to the node's frontier and drops the labels it dominates: those with a superset of its targets
+     * and no lower scores. The caller must have checked that the label itself is not dominated.
+     * @param nodeId
+     * @param stateTargets
+     * @param gScore
+     * @param maxWaitingTime
+     */
+    void add(final int nodeId, final long stateTargets, final double gScore, final double maxWaitingTime) {
+        if (nodeId >= labelCounts.length) {
+            growNodes(nodeId + 1);
+        }
+        if (labelCounts[nodeId] == 0) {
+            if (noOfTouchedNodes == touchedNodeIds.length) {
+                touchedNodeIds = Arrays.copyOf(touchedNodeIds, 2 * noOfTouchedNodes);
+            }
+            touchedNodeIds[noOfTouchedNodes++] = nodeId;
+            if (targetsByNode[nodeId] == null) {
+                targetsByNode[nodeId] = new long[INITIAL_LABELS_PER_NODE];
+                gScoresByNode[nodeId] = new double[INITIAL_LABELS_PER_NODE];
+                maxWaitingTimesByNode[nodeId] = new double[INITIAL_LABELS_PER_NODE];
+            }
+            minGScores[nodeId] = gScore;
+            minMaxWaitingTimes[nodeId] = maxWaitingTime;
+            maxGScores[nodeId] = gScore;
+            maxMaxWaitingTimes[nodeId] = maxWaitingTime;
+        } else {
+            if (maxGScores[nodeId] >= gScore && maxMaxWaitingTimes[nodeId] >= maxWaitingTime) {
+                removeDominatedBy(nodeId, stateTargets, gScore, maxWaitingTime);
+            }
+            // A dominated label has no lower scores than the new one, so the lowest stay correct.
+            minGScores[nodeId] = Math.min(minGScores[nodeId], gScore);
+            minMaxWaitingTimes[nodeId] = Math.min(minMaxWaitingTimes[nodeId], maxWaitingTime);
+            maxGScores[nodeId] = Math.max(maxGScores[nodeId], gScore);
+            maxMaxWaitingTimes[nodeId] = Math.max(maxMaxWaitingTimes[nodeId], maxWaitingTime);
+        }
+
+        final int label = labelCounts[nodeId]++;
+        if (label == targetsByNode[nodeId].length) {
+            targetsByNode[nodeId] = Arrays.copyOf(targetsByNode[nodeId], 2 * label);
+            gScoresByNode[nodeId] = Arrays.copyOf(gScoresByNode[nodeId], 2 * label);
+            maxWaitingTimesByNode[nodeId] = Arrays.copyOf(maxWaitingTimesByNode[nodeId], 2 * label);
+        }
+        targetsByNode[nodeId][label] = stateTargets;
+        gScoresByNode[nodeId][label] = gScore;
+        maxWaitingTimesByNode[nodeId][label] = maxWaitingTime;
+        ++noOfLabels;
+    }
+
+    /**
+     * @return labels on the frontiers of all nodes
+     */
+    int size() {
+        return noOfLabels;
+    }
+
+    /**
+     * @return bytes taken by the label arrays and the per-node scores, as allocated
+     */
+    long getMemoryBytes() {
+        final long bytesPerLabel = Long.BYTES + 2 * Double.BYTES;
+        long bytes = (Integer.BYTES + 4L * Double.BYTES) * labelCounts.length
+                + (long) Integer.BYTES * touchedNodeIds.length;
+        for (final long[] labelTargets : targetsByNode) {
+            if (labelTargets != null) {
+                bytes += bytesPerLabel * labelTargets.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Forgets every label in time proportional to the nodes that had any.
+     */
+    void clear() {
+        for (int i = 0; i < noOfTouchedNodes; ++i) {
+            labelCounts[touchedNodeIds[i]] = 0;
+        }
+        noOfTouchedNodes = 0;
+        noOfLabels = 0;
+    }
+
+    private void removeDominatedBy(final int nodeId, final long stateTargets, final double gScore,
+                                   final double maxWaitingTime) {
+        final long[] labelTargets = targetsByNode[nodeId];
+        final double[] labelGScores = gScoresByNode[nodeId];
+        final double[] labelMaxWaitingTimes = maxWaitingTimesByNode[nodeId];
+        final int noOfNodeLabels = labelCounts[nodeId];
+        int kept = 0;
+        for (int label = 0; label < noOfNodeLabels; ++label) {
+            if ((stateTargets & ~labelTargets[label]) == 0L && labelGScores[label] >= gScore
+                    && labelMaxWaitingTimes[label] >= maxWaitingTime) {
+                continue;
+            }
+            labelTargets[kept] = labelTargets[label];
+            labelGScores[kept] = labelGScores[label];
+            labelMaxWaitingTimes[kept] = labelMaxWaitingTimes[label];
+            ++kept;
+        }
+        noOfLabels -= noOfNodeLabels - kept;
+        labelCounts[nodeId] = kept;
+    }
+
+    private void growNodes(final int minCapacity) {
+        final int capacity = Math.max(2 * labelCounts.length, minCapacity);
+        targetsByNode = Arrays.copyOf(targetsByNode, capacity);
+        gScoresByNode = Arrays.copyOf(gScoresByNode, capacity);
+        maxWaitingTimesByNode = Arrays.copyOf(maxWaitingTimesByNode, capacity);
+        labelCounts = Arrays.copyOf(labelCounts, capacity);
+        minGScores = Arrays.copyOf(minGScores, capacity);
+        minMaxWaitingTimes = Arrays.copyOf(minMaxWaitingTimes, capacity);
+        maxGScores = Arrays.copyOf(maxGScores, capacity);
+        maxMaxWaitingTimes = Arrays.copyOf(maxMaxWaitingTimes, capacity);
+    }
+}
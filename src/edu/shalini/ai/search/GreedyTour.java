@@ -0,0 +1,178 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+
+import java.util.*;
+
+/**
+ * A quick, usually good route that visits every target: the nearest-neighbour order of the targets, improved by 2-opt
+ * moves, with the shortest paths between consecutive targets joined up.
+ * The order is chosen on the target-to-target distances with the cost of HeldKarpSearch, which only counts the
+ * waiting times of the targets; the route is then costed as Search costs it, counting every node it passes and ending
+ * where the last target is first reached. That cost is an upper bound on the cost of the best route.
+ * There is no tour when a target is the source: Search only counts the source as visited once the route comes back
+ * to it, which the order of the targets cannot express, so such a search runs without an upper bound.
+ */
+final class GreedyTour {
+    // 2-opt moves must gain at least this much, so rounding cannot make them cycle.
+    private static final double MIN_GAIN = 1e-9;
+
+    private GreedyTour() {
+    }
+
+    /**
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param monitor checked before each Dijkstra and each round of 2-opt moves
+     * @return the route, or null if some target is the source or cannot be reached from it; the search then has no
+     *         upper bound
+     */
+    static Search.Result compute(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                                 final SearchMonitor monitor) {
+        final int noOfTargets = targetNodeIds.length;
+        for (final int targetNodeId : targetNodeIds) {
+            if (targetNodeId == sourceNodeId) {
+                // Search only counts the source as visited once the route comes back to it.
+                return null;
+            }
+        }
+        // Shortest paths from every target and, last, from the source, only as far as the farthest target.
+        final int[] rootNodeIds = new int[noOfTargets + 1];
+        System.arraycopy(targetNodeIds, 0, rootNodeIds, 0, noOfTargets);
+        rootNodeIds[noOfTargets] = sourceNodeId;
+        final double[][] distances = new double[noOfTargets + 1][];
+        final int[][] prevNodeIds = new int[noOfTargets + 1][graph.getNodeCount()];
+        for (int root = noOfTargets; root >= 0; --root) {
+            monitor.check();
+            distances[root] = ShortestPaths.computeDistances(graph, rootNodeIds[root], prevNodeIds[root],
+                    targetNodeIds);
+            if (root == noOfTargets) {
+                for (final int targetNodeId : targetNodeIds) {
+                    if (Double.isInfinite(distances[root][targetNodeId])) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        // d[j][i]: from root j to target i.
+        final double[][] d = new double[noOfTargets + 1][noOfTargets];
+        for (int root = 0; root <= noOfTargets; ++root) {
+            for (int i = 0; i < noOfTargets; ++i) {
+                d[root][i] = distances[root][targetNodeIds[i]];
+            }
+        }
+        final double[] alreadyWaited = new double[noOfTargets];
+        for (int i = 0; i < noOfTargets; ++i) {
+            alreadyWaited[i] = graph.getAlreadyWaited(targetNodeIds[i]);
+        }
+
+        final int[] order = findNearestNeighborOrder(d);
+        improve(order, d, alreadyWaited, monitor);
+
+        final List<Node> path = new ArrayList<>();
+        final List<Double> gScores = new ArrayList<>();
+        path.add(graph.getNode(sourceNodeId));
+        gScores.add(0.0);
+        int root = noOfTargets;
+        for (final int target : order) {
+            HeldKarpSearch.appendSegment(graph, rootNodeIds[root], targetNodeIds[target], distances[root],
+                    prevNodeIds[root], path, gScores);
+            root = target;
+        }
+        return truncateAndCost(graph, sourceNodeId, targetNodeIds, path, gScores);
+    }
+
+    private static int[] findNearestNeighborOrder(final double[][] d) {
+        final int noOfTargets = d.length - 1;
+        final int[] order = new int[noOfTargets];
+        final boolean[] visited = new boolean[noOfTargets];
+        int root = noOfTargets;
+        for (int position = 0; position < noOfTargets; ++position) {
+            int nearest = -1;
+            for (int i = 0; i < noOfTargets; ++i) {
+                if (!visited[i] && (nearest == -1 || d[root][i] < d[root][nearest])) {
+                    nearest = i;
+                }
+            }
+            order[position] = nearest;
+            visited[nearest] = true;
+            root = nearest;
+        }
+        return order;
+    }
+
+    /**
+     * Reverses stretches of the order as long as that lowers its cost.
+     */
+    private static void improve(final int[] order, final double[][] d, final double[] alreadyWaited,
+                                final SearchMonitor monitor) {
+        double cost = computeCost(order, d, alreadyWaited);
+        boolean improved = true;
+        while (improved) {
+            monitor.check();
+            improved = false;
+            for (int from = 0; from < order.length - 1; ++from) {
+                for (int to = from + 1; to < order.length; ++to) {
+                    reverse(order, from, to);
+                    final double newCost = computeCost(order, d, alreadyWaited);
+                    if (newCost < cost - MIN_GAIN) {
+                        cost = newCost;
+                        improved = true;
+                    } else {
+                        reverse(order, from, to);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return max(arrival at the last target, max over the targets of arrival + already waited)
+     */
+    private static double computeCost(final int[] order, final double[][] d, final double[] alreadyWaited) {
+        double time = 0;
+        double maxWaitingTime = 0;
+        int root = d.length - 1;
+        for (final int target : order) {
+            time += d[root][target];
+            maxWaitingTime = Math.max(maxWaitingTime, time + alreadyWaited[target]);
+            root = target;
+        }
+        return Math.max(time, maxWaitingTime);
+    }
+
+    private static void reverse(final int[] order, int from, int to) {
+        for (; from < to; ++from, --to) {
+            final int target = order[from];
+            order[from] = order[to];
+            order[to] = target;
+        }
+    }
+
+    /**
+     * Cuts the route where it has passed every target and costs it the way Search costs a route.
+     */
+    private static Search.Result truncateAndCost(final GraphSnapshot graph, final int sourceNodeId,
+                                                 final int[] targetNodeIds, final List<Node> path,
+                                                 final List<Double> gScores) {
+        final Set<Integer> remainingTargets = new HashSet<>();
+        for (final int targetNodeId : targetNodeIds) {
+            remainingTargets.add(targetNodeId);
+        }
+        int end = 0;
+        double maxWaitingTime = graph.getAlreadyWaited(sourceNodeId);
+        while (!remainingTargets.isEmpty()) {
+            ++end;
+            final int nodeId = path.get(end).getId();
+            remainingTargets.remove(nodeId);
+            maxWaitingTime = Math.max(maxWaitingTime, gScores.get(end) + graph.getAlreadyWaited(nodeId));
+        }
+        final List<Node> shortestPath = new ArrayList<>(path.subList(0, end + 1));
+        final List<Double> shortestPathGScores = new ArrayList<>(gScores.subList(0, end + 1));
+        return new Search.Result(shortestPath, shortestPathGScores, Math.max(gScores.get(end), maxWaitingTime), 0,
+                Collections.emptySet());
+    }
+}
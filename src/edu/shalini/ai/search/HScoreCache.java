@@ -0,0 +1,183 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * Bounded store of HScores keyed by (node, target subset), shared by the CachingHScoreComputers of many searches.
+ * A target subset is identified by the XOR of a 64-bit hash of each target's node id, so the key does not depend
+ * on the bit order a particular search picked. Entries are evicted with the CLOCK algorithm. The cache is bound to
+ * one graph snapshot and empties itself when used with another one, i.e. after the map has been regenerated.
+ * All methods are thread-safe.
+ */
+public class HScoreCache {
+    private final int capacity;
+    private final int[] keyNodeIds;
+    private final long[] keySubsetHashes;
+    private final double[] values;
+    private final boolean[] referenced;
+    // Open-addressing index from key to entry + 1; 0 marks an empty slot.
+    private final int[] index;
+    private int noOfEntries;
+    private int clockHand;
+    private GraphSnapshot graph;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity maximum number of HScores kept
+     */
+    public HScoreCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.keyNodeIds = new int[capacity];
+        this.keySubsetHashes = new long[capacity];
+        this.values = new double[capacity];
+        this.referenced = new boolean[capacity];
+        this.index = new int[Integer.highestOneBit(capacity) << 2];
+    }
+
+    /**
+     * Hash of a single target; the hash of a subset is the XOR of those of its targets.
+     * @param targetNodeId
+     * @return
+     */
+    static long hashTarget(final int targetNodeId) {
+        long h = (targetNodeId + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Clears the cache if it was filled for another graph.
+     * @param graph
+     */
+    synchronized void bind(final GraphSnapshot graph) {
+        if (this.graph != graph) {
+            clear();
+            this.graph = graph;
+        }
+    }
+
+    /**
+     * @param nodeId
+     * @param subsetHash
+     * @return the cached HScore, or NaN on a miss
+     */
+    synchronized double get(final int nodeId, final long subsetHash) {
+        final int slot = findSlot(nodeId, subsetHash);
+        if (index[slot] == 0) {
+            ++misses;
+            return Double.NaN;
+        }
+        ++hits;
+        final int entry = index[slot] - 1;
+        referenced[entry] = true;
+        return values[entry];
+    }
+
+    synchronized void put(final int nodeId, final long subsetHash, final double value) {
+        final int slot = findSlot(nodeId, subsetHash);
+        if (index[slot] != 0) {
+            values[index[slot] - 1] = value;
+            return;
+        }
+
+        final int entry;
+        if (noOfEntries < capacity) {
+            entry = noOfEntries++;
+        } else {
+            entry = evict();
+        }
+        keyNodeIds[entry] = nodeId;
+        keySubsetHashes[entry] = subsetHash;
+        values[entry] = value;
+        referenced[entry] = false;
+        index[findSlot(nodeId, subsetHash)] = entry + 1;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(index, 0);
+        noOfEntries = 0;
+        clockHand = 0;
+        graph = null;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return noOfEntries;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Advances the clock hand past recently referenced entries and frees the first one that was not.
+     * @return the freed entry
+     */
+    private int evict() {
+        while (referenced[clockHand]) {
+            referenced[clockHand] = false;
+            clockHand = (clockHand + 1) % capacity;
+        }
+        final int entry = clockHand;
+        clockHand = (clockHand + 1) % capacity;
+        removeFromIndex(findSlot(keyNodeIds[entry], keySubsetHashes[entry]));
+        ++evictions;
+        return entry;
+    }
+
+    /**
+     * Linear-probing deletion: entries further along the probe run are shifted back so they stay reachable.
+     * @param slot
+     */
+    private void removeFromIndex(int slot) {
+        final int mask = index.length - 1;
+        index[slot] = 0;
+        for (int next = (slot + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            final int entry = index[next] - 1;
+            final int home = hash(keyNodeIds[entry], keySubsetHashes[entry]) & mask;
+            // Move the entry into the hole unless its home slot lies cyclically in (slot, next].
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                index[slot] = index[next];
+                index[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private int findSlot(final int nodeId, final long subsetHash) {
+        final int mask = index.length - 1;
+        int slot = hash(nodeId, subsetHash) & mask;
+        while (index[slot] != 0) {
+            final int entry = index[slot] - 1;
+            if (keyNodeIds[entry] == nodeId && keySubsetHashes[entry] == subsetHash) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(final int nodeId, final long subsetHash) {
+        final long h = (subsetHash ^ (nodeId * 0xC2B2AE3D27D4EB4FL)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
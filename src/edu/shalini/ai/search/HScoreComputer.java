@@ -1,10 +1,33 @@
 package edu.shalini.ai.search;
 
-import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.GraphSnapshot;
 
 /**
- * Interface defining a computeHScore method
+ * Interface defining a computeHScore method.
+ * Nodes are given by their dense id, and targets as a bitmask: bit i is set while targetNodeIds[i] from prepare
+ * is still to be visited.
  */
 public interface HScoreComputer {
-    double computeHScore(Node node, String prefix);
+    /**
+     * Called once at search start, before any HScore is computed.
+     * @param graph graph being searched
+     * @param targetNodeIds targets in bit index order
+     */
+    default void prepare(GraphSnapshot graph, int[] targetNodeIds) {
+    }
+
+    /**
+     * Same as prepare(graph, targetNodeIds); computers with a long setup override it to give up once the monitor is
+     * cancelled or its deadline passes.
+     * @param graph graph being searched
+     * @param targetNodeIds targets in bit index order
+     * @param monitor monitor of the search
+     * @throws java.util.concurrent.CancellationException if the monitor was cancelled
+     * @throws SearchTimeoutException if the monitor's deadline passed
+     */
+    default void prepare(GraphSnapshot graph, int[] targetNodeIds, SearchMonitor monitor) {
+        prepare(graph, targetNodeIds);
+    }
+
+    double computeHScore(int nodeId, long targets);
 }
@@ -0,0 +1,182 @@
+package edu.shalini.ai.search;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the states in flat arrays on the heap, one per field, indexed by state id, with an open-addressing index of
+ * state id + 1 in an int array; 0 marks an empty slot.
+ */
+final class HeapStateStorage implements StateStorage {
+    private int[] nodeIds;
+    private long[] targets;
+    private double[] gScores;
+    private double[] hScores;
+    private double[] maxWaitingTimes;
+    private int[] prevStates;
+    private boolean[] visited;
+    private int noOfStates;
+    private int[] index;
+
+    /**
+     * @param capacity initial number of states, a power of two
+     */
+    HeapStateStorage(final int capacity) {
+        this.nodeIds = new int[capacity];
+        this.targets = new long[capacity];
+        this.gScores = new double[capacity];
+        this.hScores = new double[capacity];
+        this.maxWaitingTimes = new double[capacity];
+        this.prevStates = new int[capacity];
+        this.visited = new boolean[capacity];
+        this.index = new int[2 * capacity];
+    }
+
+    @Override
+    public int findState(final int nodeId, final long stateTargets) {
+        final int mask = index.length - 1;
+        for (int slot = SearchContext.hash(nodeId, stateTargets) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            final int stateId = index[slot] - 1;
+            if (nodeIds[stateId] == nodeId && targets[stateId] == stateTargets) {
+                return stateId;
+            }
+        }
+        return SearchContext.NO_STATE;
+    }
+
+    @Override
+    public int addState(final int nodeId, final long stateTargets) {
+        if (noOfStates == nodeIds.length) {
+            grow();
+        }
+        final int stateId = noOfStates++;
+        nodeIds[stateId] = nodeId;
+        targets[stateId] = stateTargets;
+        gScores[stateId] = Double.MAX_VALUE;
+        hScores[stateId] = Double.MAX_VALUE;
+        maxWaitingTimes[stateId] = 0.0;
+        prevStates[stateId] = SearchContext.NO_STATE;
+        visited[stateId] = false;
+        insertIntoIndex(stateId);
+        return stateId;
+    }
+
+    @Override
+    public int size() {
+        return noOfStates;
+    }
+
+    @Override
+    public int getCapacity() {
+        return nodeIds.length;
+    }
+
+    @Override
+    public void clear() {
+        // Later insertions may have probed past earlier ones, so unlink them first.
+        for (int stateId = noOfStates - 1; stateId >= 0; --stateId) {
+            index[findSlot(stateId)] = 0;
+        }
+        noOfStates = 0;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        final long bytesPerState = Integer.BYTES + Long.BYTES + 3 * Double.BYTES + Integer.BYTES + 1;
+        return bytesPerState * nodeIds.length + (long) Integer.BYTES * index.length;
+    }
+
+    @Override
+    public int getNodeId(final int stateId) {
+        return nodeIds[stateId];
+    }
+
+    @Override
+    public long getTargets(final int stateId) {
+        return targets[stateId];
+    }
+
+    @Override
+    public double getGScore(final int stateId) {
+        return gScores[stateId];
+    }
+
+    @Override
+    public void setGScore(final int stateId, final double gScore) {
+        gScores[stateId] = gScore;
+    }
+
+    @Override
+    public double getHScore(final int stateId) {
+        return hScores[stateId];
+    }
+
+    @Override
+    public void setHScore(final int stateId, final double hScore) {
+        hScores[stateId] = hScore;
+    }
+
+    @Override
+    public double getMaxWaitingTime(final int stateId) {
+        return maxWaitingTimes[stateId];
+    }
+
+    @Override
+    public void setMaxWaitingTime(final int stateId, final double maxWaitingTime) {
+        maxWaitingTimes[stateId] = maxWaitingTime;
+    }
+
+    @Override
+    public int getPrevState(final int stateId) {
+        return prevStates[stateId];
+    }
+
+    @Override
+    public void setPrevState(final int stateId, final int prevStateId) {
+        prevStates[stateId] = prevStateId;
+    }
+
+    @Override
+    public boolean isVisited(final int stateId) {
+        return visited[stateId];
+    }
+
+    @Override
+    public void setVisited(final int stateId, final boolean visited) {
+        this.visited[stateId] = visited;
+    }
+
+    private int findSlot(final int stateId) {
+        final int mask = index.length - 1;
+        int slot = SearchContext.hash(nodeIds[stateId], targets[stateId]) & mask;
+        while (index[slot] != stateId + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertIntoIndex(final int stateId) {
+        final int mask = index.length - 1;
+        int slot = SearchContext.hash(nodeIds[stateId], targets[stateId]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = stateId + 1;
+    }
+
+    private void grow() {
+        final int capacity = 2 * nodeIds.length;
+        nodeIds = Arrays.copyOf(nodeIds, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        gScores = Arrays.copyOf(gScores, capacity);
+        hScores = Arrays.copyOf(hScores, capacity);
+        maxWaitingTimes = Arrays.copyOf(maxWaitingTimes, capacity);
+        prevStates = Arrays.copyOf(prevStates, capacity);
+        visited = Arrays.copyOf(visited, capacity);
+
+        // Keep the index at most half full; states are re-inserted in id order so clear stays valid.
+        index = new int[2 * capacity];
+        for (int stateId = 0; stateId < noOfStates; ++stateId) {
+            insertIntoIndex(stateId);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves the routing problem exactly by dynamic programming over target subsets (Held-Karp), instead of by A* over
+ * (node, remaining targets) states.
+ * After one Dijkstra from the source and from every target, only the order of the targets is left to choose. Leaving
+ * target j at time t to visit the targets in S costs t + cost(j, S), where
+ * <pre>
+ * cost(j, {})  = 0
+ * cost(j, S)   = min over i in S of d(j, i) + max(alreadyWaited(i), cost(i, S - {i}))
+ * </pre>
+ * so the answer is max(alreadyWaited(source), cost(source, targets)). Subsets of one size only depend on smaller
+ * ones, so each size is computed as one parallel layer on the ForkJoinPool. A layer's subsets are enumerated in
+ * increasing order with Gosper's hack, each task starting from the subset of its rank.
+ * Only the waiting times of the source and the targets count, at the first arrival; A* also counts nodes that the
+ * route merely passes through, so the two can differ when the route passes a waiting node again.
+ * Time is O(2^k k^2) and memory O(2^k k) for k targets: every query allocates 9 * 2^k * k bytes for the costs and
+ * first targets, 9.4 MB at MAX_TARGETS.
+ */
+public class HeldKarpSearch implements SearchEngine {
+    public static final int MAX_TARGETS = 16;
+    // Below this many subsets a task computes them itself instead of splitting further.
+    private static final int SUBSETS_PER_TASK = 1 << 10;
+    // BINOMIALS[n][k] is n choose k.
+    private static final int[][] BINOMIALS = new int[MAX_TARGETS + 1][MAX_TARGETS + 1];
+
+    static {
+        for (int n = 0; n <= MAX_TARGETS; ++n) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; ++k) {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + (k < n ? BINOMIALS[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public HeldKarpSearch(final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Search.Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId,
+                                          final int[] targetNodeIds, final SearchMonitor monitor) {
+        final int noOfTargets = targetNodeIds.length;
+        if (noOfTargets > MAX_TARGETS) {
+            throw new IllegalArgumentException("At most " + MAX_TARGETS + " targets are supported.");
+        }
+        final int[] sortedTargetNodeIds = targetNodeIds.clone();
+        Arrays.sort(sortedTargetNodeIds);
+        for (int i = 1; i < noOfTargets; ++i) {
+            if (sortedTargetNodeIds[i - 1] == sortedTargetNodeIds[i]) {
+                throw new IllegalArgumentException("Duplicate target node " + sortedTargetNodeIds[i] + ".");
+            }
+        }
+
+        // Shortest paths from every target and, last, from the source.
+        final int[] rootNodeIds = Arrays.copyOf(targetNodeIds, noOfTargets + 1);
+        rootNodeIds[noOfTargets] = sourceNodeId;
+        final double[][] distances = new double[noOfTargets + 1][];
+        final int[][] prevNodeIds = new int[noOfTargets + 1][graph.getNodeCount()];
+        final List<ForkJoinTask<?>> dijkstraTasks = new ArrayList<>();
+        for (int root = 0; root <= noOfTargets; ++root) {
+            final int rootIndex = root;
+            dijkstraTasks.add(pool.submit(() -> {
+                // Exceptions thrown on the pool reach the caller wrapped, so the caller checks the monitor instead.
+                if (!monitor.isStopped()) {
+                    distances[rootIndex] = ShortestPaths.computeDistances(graph, rootNodeIds[rootIndex],
+                            prevNodeIds[rootIndex]);
+                }
+            }));
+        }
+        for (final ForkJoinTask<?> dijkstraTask : dijkstraTasks) {
+            dijkstraTask.join();
+        }
+        monitor.check();
+        for (final int targetNodeId : targetNodeIds) {
+            if (Double.isInfinite(distances[noOfTargets][targetNodeId])) {
+                throw new UnreachableTargetsException(
+                        "Destinations not reachable from " + graph.getNodeName(sourceNodeId));
+            }
+        }
+
+        // d[j][i]: from root j to target i.
+        final double[][] d = new double[noOfTargets + 1][noOfTargets];
+        for (int root = 0; root <= noOfTargets; ++root) {
+            for (int i = 0; i < noOfTargets; ++i) {
+                d[root][i] = distances[root][targetNodeIds[i]];
+            }
+        }
+        final double[] alreadyWaited = new double[noOfTargets];
+        for (int i = 0; i < noOfTargets; ++i) {
+            alreadyWaited[i] = graph.getAlreadyWaited(targetNodeIds[i]);
+        }
+
+        // cost(j, S) and the target visited first from j are stored at S * noOfTargets + j.
+        final int noOfSubsets = 1 << noOfTargets;
+        final double[] costs = new double[noOfSubsets * noOfTargets];
+        final byte[] firstTargets = new byte[noOfSubsets * noOfTargets];
+        int numExpansions = noOfTargets;
+        for (int layer = 1; layer < noOfTargets; ++layer) {
+            pool.invoke(new LayerTask(layer, 0, BINOMIALS[noOfTargets][layer], noOfTargets, d, alreadyWaited, costs,
+                    firstTargets, monitor));
+            monitor.check(numExpansions, 0, Double.NaN);
+            numExpansions += BINOMIALS[noOfTargets][layer] * (noOfTargets - layer);
+        }
+
+        // From the source, with every target left.
+        final int allTargets = noOfSubsets - 1;
+        int firstTarget = -1;
+        double cost = 0;
+        if (noOfTargets > 0) {
+            cost = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < noOfTargets; ++i) {
+                final double costVia = d[noOfTargets][i]
+                        + Math.max(alreadyWaited[i], costs[(allTargets ^ 1 << i) * noOfTargets + i]);
+                if (costVia < cost) {
+                    cost = costVia;
+                    firstTarget = i;
+                }
+            }
+        }
+        cost = Math.max(graph.getAlreadyWaited(sourceNodeId), cost);
+
+        // Follow the first-target choices, joining the shortest paths between consecutive stops.
+        final List<Node> shortestPath = new ArrayList<>();
+        final List<Double> shortestPathGScores = new ArrayList<>();
+        shortestPath.add(graph.getNode(sourceNodeId));
+        shortestPathGScores.add(0.0);
+        int root = noOfTargets;
+        int remainingTargets = allTargets;
+        for (int target = firstTarget; target != -1; ) {
+            appendSegment(graph, rootNodeIds[root], targetNodeIds[target], distances[root], prevNodeIds[root],
+                    shortestPath, shortestPathGScores);
+            remainingTargets ^= 1 << target;
+            root = target;
+            target = remainingTargets == 0 ? -1 : firstTargets[remainingTargets * noOfTargets + target];
+        }
+
+        return new Search.Result(shortestPath, shortestPathGScores, cost, numExpansions, Collections.emptySet());
+    }
+
+    /**
+     * Appends the shortest path from the root to the node, without the root itself.
+     */
+    static void appendSegment(final GraphSnapshot graph, final int rootNodeId, final int nodeId,
+                                      final double[] distances, final int[] prevNodeIds,
+                                      final List<Node> shortestPath, final List<Double> shortestPathGScores) {
+        final double rootGScore = shortestPathGScores.get(shortestPathGScores.size() - 1);
+        final int start = shortestPath.size();
+        for (int currNodeId = nodeId; currNodeId != rootNodeId; currNodeId = prevNodeIds[currNodeId]) {
+            shortestPath.add(graph.getNode(currNodeId));
+            shortestPathGScores.add(rootGScore + distances[currNodeId]);
+        }
+        Collections.reverse(shortestPath.subList(start, shortestPath.size()));
+        Collections.reverse(shortestPathGScores.subList(start, shortestPathGScores.size()));
+    }
+
+    /**
+     * @param rank
+     * @param size
+     * @return the subset of the size with the rank, in increasing order of the subsets of that size
+     */
+    static int unrankSubset(int rank, final int size) {
+        int subset = 0;
+        int element = MAX_TARGETS;
+        for (int k = size; k > 0; --k) {
+            // The largest element of the remaining subset is the largest with at most rank smaller subsets.
+            while (element >= k && BINOMIALS[element][k] > rank) {
+                --element;
+            }
+            subset |= 1 << element;
+            rank -= BINOMIALS[element][k];
+        }
+        return subset;
+    }
+
+    /**
+     * Gosper's hack.
+     * @param subset a non-empty subset
+     * @return the next larger subset of the same size
+     */
+    static int nextSubset(final int subset) {
+        final int lowestBit = subset & -subset;
+        final int ripple = subset + lowestBit;
+        return ripple | ((subset ^ ripple) >>> 2) / lowestBit;
+    }
+
+    /**
+     * Computes cost(j, S) for every j not in S and every subset S of the layer's size whose rank is in [from, to).
+     */
+    private static class LayerTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int layer;
+        private final int from;
+        private final int to;
+        private final int noOfTargets;
+        private final double[][] d;
+        private final double[] alreadyWaited;
+        private final double[] costs;
+        private final byte[] firstTargets;
+        private final SearchMonitor monitor;
+
+        LayerTask(final int layer, final int from, final int to, final int noOfTargets, final double[][] d,
+                  final double[] alreadyWaited, final double[] costs, final byte[] firstTargets,
+                  final SearchMonitor monitor) {
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+            this.noOfTargets = noOfTargets;
+            this.d = d;
+            this.alreadyWaited = alreadyWaited;
+            this.costs = costs;
+            this.firstTargets = firstTargets;
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected void compute() {
+            // Exceptions thrown on the pool reach the caller wrapped, so the caller checks the monitor instead.
+            if (monitor.isStopped()) {
+                return;
+            }
+            if (to - from > SUBSETS_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new LayerTask(layer, from, middle, noOfTargets, d, alreadyWaited, costs, firstTargets,
+                                monitor),
+                        new LayerTask(layer, middle, to, noOfTargets, d, alreadyWaited, costs, firstTargets,
+                                monitor));
+                return;
+            }
+
+            int subset = unrankSubset(from, layer);
+            for (int rank = from; rank < to; ++rank, subset = nextSubset(subset)) {
+                for (int j = 0; j < noOfTargets; ++j) {
+                    if ((subset & 1 << j) != 0) {
+                        continue;
+                    }
+                    double cost = Double.POSITIVE_INFINITY;
+                    int firstTarget = -1;
+                    for (int remaining = subset; remaining != 0; remaining &= remaining - 1) {
+                        final int i = Integer.numberOfTrailingZeros(remaining);
+                        final double costVia = d[j][i]
+                                + Math.max(alreadyWaited[i], costs[(subset ^ 1 << i) * noOfTargets + i]);
+                        if (costVia < cost) {
+                            cost = costVia;
+                            firstTarget = i;
+                        }
+                    }
+                    costs[subset * noOfTargets + j] = cost;
+                    firstTargets[subset * noOfTargets + j] = (byte) firstTarget;
+                }
+            }
+        }
+    }
+}
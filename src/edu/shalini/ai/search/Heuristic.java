@@ -0,0 +1,66 @@
+package edu.shalini.ai.search;
+
+import java.util.function.Supplier;
+
+/**
+ * The HScore Computers available to users, by name.
+ */
+public enum Heuristic {
+    ZERO("zero", "No heuristic function", ZeroHScoreComputer::new, false),
+    FARTHEST("farthest", "Euclidean distance to farthest target", FarthestTargetHScoreComputer::new, false),
+    NEAREST("nearest", "Euclidean distance to nearest target", NearestTargetHScoreComputer::new, false),
+    MST("mst", "Shortest path to nearest target plus MST of targets", MinimumSpanningTreeHScoreComputer::new, true),
+    LANDMARKS("landmarks", "Landmark (ALT) bound to farthest target", LandmarkHScoreComputer::new, false);
+
+    private final String name;
+    private final String description;
+    private final Supplier<HScoreComputer> computerSupplier;
+    private final boolean costlyToPrepare;
+
+    Heuristic(final String name, final String description, final Supplier<HScoreComputer> computerSupplier,
+              final boolean costlyToPrepare) {
+        this.name = name;
+        this.description = description;
+        this.computerSupplier = computerSupplier;
+        this.costlyToPrepare = costlyToPrepare;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return a new computer; computers are not shared between concurrent searches
+     */
+    public HScoreComputer createComputer() {
+        return computerSupplier.get();
+    }
+
+    /**
+     * @return whether preparing the computer costs enough that its HScores are worth caching across searches
+     */
+    public boolean isCostlyToPrepare() {
+        return costlyToPrepare;
+    }
+
+    public static Heuristic forName(final String name) {
+        for (final Heuristic heuristic : values()) {
+            if (heuristic.name.equals(name)) {
+                return heuristic;
+            }
+        }
+        throw new IllegalArgumentException("Unknown heuristic '" + name + "'.");
+    }
+
+    public static String[] getDescriptions() {
+        final String[] descriptions = new String[values().length];
+        for (final Heuristic heuristic : values()) {
+            descriptions[heuristic.ordinal()] = heuristic.description;
+        }
+        return descriptions;
+    }
+}
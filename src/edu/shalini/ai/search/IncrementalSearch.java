@@ -0,0 +1,204 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * Replans one driver's route on a graph, reusing the previous search tree when the driver has moved along the
+ * previous solution.
+ * In the manner of fringe-retrieving A*, a replan from a state on the previous shortest path keeps the part of the
+ * search tree rooted at that state. Its g-scores are rebased on the new source and its waiting times recomputed
+ * from the current alreadyWaited values. States it had expanded stay expanded, the open list is rebuilt from the
+ * fringe of the kept tree, and A* resumes from there. Everything else falls back to a cold search.
+ * The kept tree is copied into a second context, and the two contexts swap roles at every replan, so replanning
+ * allocates nothing once they have grown to the size of the search.
+ * An IncrementalSearch is not thread-safe.
+ */
+public class IncrementalSearch {
+    private final GraphSnapshot graph;
+    private final Search search;
+    private SearchContext context;
+    // Reset, and filled by the next replan.
+    private SearchContext spareContext;
+    // Per state of context, while a replan copies its tree: children lists, ids in spareContext, and the states to
+    // copy in breadth-first order.
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] retainedIds;
+    private int[] pendingStates;
+    private int reusedExpansions;
+
+    public IncrementalSearch(final GraphSnapshot graph) {
+        this(graph, SearchListener.NONE);
+    }
+
+    /**
+     * @param graph
+     * @param listener told about every search once it has ended; replans report the repair of the previous search
+     *                 tree as their prepare phase
+     */
+    public IncrementalSearch(final GraphSnapshot graph, final SearchListener listener) {
+        this.graph = graph;
+        this.search = new Search(listener);
+        this.context = new SearchContext();
+        this.spareContext = new SearchContext();
+        this.firstChildren = new int[0];
+        this.nextSiblings = new int[0];
+        this.retainedIds = new int[0];
+        this.pendingStates = new int[0];
+        this.reusedExpansions = 0;
+    }
+
+    /**
+     * Finds the shortest path, repairing the previous search if its shortest path passes through a state at the
+     * source node with exactly these targets remaining.
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @return
+     */
+    public Search.Result findShortestPath(final int sourceNodeId, final int[] targetNodeIds,
+                                          final HScoreComputer computer) {
+        return findShortestPath(sourceNodeId, targetNodeIds, computer, SearchMonitor.NONE);
+    }
+
+    /**
+     * Same as findShortestPath(sourceNodeId, targetNodeIds, computer), under the given monitor. After a cancelled or
+     * timed out search, the next one starts cold.
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @param monitor
+     * @return
+     */
+    public Search.Result findShortestPath(final int sourceNodeId, final int[] targetNodeIds,
+                                          final HScoreComputer computer, final SearchMonitor monitor) {
+        final int rootState = findStateOnPreviousPath(sourceNodeId, targetNodeIds);
+        if (rootState == SearchContext.NO_STATE) {
+            reusedExpansions = 0;
+            context.reset();
+            return search.findShortestPath(graph, sourceNodeId, targetNodeIds, computer, context, monitor);
+        }
+
+        final long start = System.nanoTime();
+        final int[] previousTargetNodeIds = new int[context.getNoOfTargets()];
+        for (int bit = 0; bit < previousTargetNodeIds.length; ++bit) {
+            previousTargetNodeIds[bit] = context.getTargetNodeId(bit);
+        }
+        computer.prepare(graph, previousTargetNodeIds, monitor);
+        retainSubtree(rootState, computer);
+        final SearchContext previousContext = context;
+        context = spareContext;
+        spareContext = previousContext;
+        spareContext.reset();
+        context.startTiming(search.getListener() != SearchListener.NONE, start);
+        context.setReusedExpansions(reusedExpansions);
+        return search.expand(graph, computer, context, monitor);
+    }
+
+    /**
+     * @return number of expanded states the last findShortestPath took over from the previous search instead of
+     * expanding them again
+     */
+    public int getReusedExpansions() {
+        return reusedExpansions;
+    }
+
+    private int findStateOnPreviousPath(final int sourceNodeId, final int[] targetNodeIds) {
+        if (context.getGoalState() == SearchContext.NO_STATE) {
+            return SearchContext.NO_STATE;
+        }
+
+        long targets = 0L;
+        for (final int targetNodeId : targetNodeIds) {
+            final long targetMask = context.getTargetMask(targetNodeId);
+            if (targetMask == 0L || (targets & targetMask) != 0L) {
+                return SearchContext.NO_STATE;
+            }
+            targets |= targetMask;
+        }
+
+        for (int state = context.getGoalState(); state != SearchContext.NO_STATE;
+             state = context.getPrevState(state)) {
+            if (context.getNodeId(state) == sourceNodeId && context.getTargets(state) == targets) {
+                return state;
+            }
+        }
+        return SearchContext.NO_STATE;
+    }
+
+    /**
+     * Copies the search tree below rootState into the spare context, parents before children, and rebuilds the open
+     * list from the unexpanded states and the neighbours of the expanded ones.
+     * @param rootState
+     * @param computer
+     */
+    private void retainSubtree(final int rootState, final HScoreComputer computer) {
+        final int noOfStates = context.size();
+        if (firstChildren.length < noOfStates) {
+            firstChildren = new int[noOfStates];
+            nextSiblings = new int[noOfStates];
+            retainedIds = new int[noOfStates];
+            pendingStates = new int[noOfStates];
+        }
+        Arrays.fill(firstChildren, 0, noOfStates, SearchContext.NO_STATE);
+        for (int state = 0; state < noOfStates; ++state) {
+            final int prevState = context.getPrevState(state);
+            if (prevState != SearchContext.NO_STATE) {
+                nextSiblings[state] = firstChildren[prevState];
+                firstChildren[prevState] = state;
+            }
+        }
+
+        final SearchContext retained = spareContext;
+        for (int bit = 0; bit < context.getNoOfTargets(); ++bit) {
+            retained.setTargetMask(context.getTargetNodeId(bit), 1L << bit);
+        }
+
+        final double rootGScore = context.getGScore(rootState);
+        int noOfPendingStates = 0;
+        pendingStates[noOfPendingStates++] = rootState;
+        reusedExpansions = 0;
+        for (int next = 0; next < noOfPendingStates; ++next) {
+            final int state = pendingStates[next];
+            final int nodeId = context.getNodeId(state);
+            final int retainedState = retained.addState(nodeId, context.getTargets(state));
+            retainedIds[state] = retainedState;
+
+            final double gScore = context.getGScore(state) - rootGScore;
+            final double alreadyWaited = graph.getAlreadyWaited(nodeId);
+            retained.setGScore(retainedState, gScore);
+            retained.setHScore(retainedState, retained.computeHScore(computer, nodeId, context.getTargets(state)));
+            if (state == rootState) {
+                retained.setMaxWaitingTime(retainedState, alreadyWaited);
+            } else {
+                final int retainedPrevState = retainedIds[context.getPrevState(state)];
+                retained.setPrevState(retainedState, retainedPrevState);
+                retained.setMaxWaitingTime(retainedState,
+                        Math.max(gScore + alreadyWaited, retained.getMaxWaitingTime(retainedPrevState)));
+            }
+            if (context.isVisited(state)) {
+                retained.setVisited(retainedState);
+                ++reusedExpansions;
+            }
+
+            for (int child = firstChildren[state]; child != SearchContext.NO_STATE; child = nextSiblings[child]) {
+                pendingStates[noOfPendingStates++] = child;
+            }
+        }
+
+        final OpenList openList = retained.getOpenList();
+        final int noOfRetainedStates = retained.size();
+        for (int state = 0; state < noOfRetainedStates; ++state) {
+            if (!retained.isVisited(state)) {
+                openList.addOrUpdate(state, retained.getFScore(state));
+            }
+        }
+        for (int state = 0; state < noOfRetainedStates; ++state) {
+            if (retained.isVisited(state)) {
+                search.relax(graph, computer, retained, state);
+            }
+        }
+    }
+}
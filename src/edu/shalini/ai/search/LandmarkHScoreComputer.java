@@ -0,0 +1,69 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+/**
+ * Computes the HScore as the farthest target heuristic, with the distance to each target bounded from below by both
+ * the Euclidean distance and the landmark (ALT) bound, whichever is larger.
+ * Every remaining target must still be reached, so the largest lower bound over them is admissible; it dominates
+ * the nearest target heuristic, which takes the smallest.
+ * The landmark distances of the targets are copied next to each other in prepare.
+ */
+public class LandmarkHScoreComputer implements HScoreComputer {
+    private final LandmarkTable fixedTable;
+    private LandmarkTable table;
+    private GraphSnapshot graph;
+    private int[] targetNodeIds = new int[0];
+    private double[] targetDistances = new double[0];
+
+    /**
+     * Uses the table registered for the searched graph, computing it on first use.
+     */
+    public LandmarkHScoreComputer() {
+        this(null);
+    }
+
+    /**
+     * @param table table of the graphs this computer will search
+     */
+    public LandmarkHScoreComputer(final LandmarkTable table) {
+        this.fixedTable = table;
+    }
+
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds) {
+        this.graph = graph;
+        this.targetNodeIds = targetNodeIds;
+        this.table = fixedTable != null ? fixedTable : LandmarkTable.forGraph(graph);
+
+        final int noOfLandmarks = table.getNoOfLandmarks();
+        targetDistances = new double[targetNodeIds.length * noOfLandmarks];
+        for (int target = 0; target < targetNodeIds.length; ++target) {
+            for (int landmark = 0; landmark < noOfLandmarks; ++landmark) {
+                targetDistances[target * noOfLandmarks + landmark] = table.getDistance(targetNodeIds[target],
+                        landmark);
+            }
+        }
+    }
+
+    @Override
+    public double computeHScore(final int nodeId, final long targets) {
+        final int noOfLandmarks = table.getNoOfLandmarks();
+        double maxDistance = 0;
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            final int target = Long.numberOfTrailingZeros(remaining);
+            double distance = graph.getDistance(nodeId, targetNodeIds[target]);
+            final int targetRow = target * noOfLandmarks;
+            for (int landmark = 0; landmark < noOfLandmarks; ++landmark) {
+                final double difference = Math.abs(table.getDistance(nodeId, landmark)
+                        - targetDistances[targetRow + landmark]);
+                // Infinite differences come from pairs without any path, which bound nothing.
+                if (difference > distance && difference != Double.POSITIVE_INFINITY) {
+                    distance = difference;
+                }
+            }
+            maxDistance = Math.max(maxDistance, distance);
+        }
+        return maxDistance;
+    }
+}
@@ -0,0 +1,261 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shortest-path distances from a few landmark nodes to every node, for the ALT (A*, landmarks, triangle inequality)
+ * bound: on an undirected graph, d(u, v) >= |d(l, u) - d(l, v)| for every landmark l.
+ * Landmarks are chosen by farthest-point selection: each one is the node farthest from the landmarks chosen before
+ * it, so they end up on the rim of the map, where their bounds are tightest. A node unreachable from every landmark
+ * so far is the farthest of all, so every component of the graph gets a landmark while there are landmarks left.
+ * Distances are kept node by node in one array, so the bounds for one node read consecutive values.
+ * Tables can be saved next to their map and loaded back, e.g. as map.wmap.landmarks.
+ * <pre>
+ * int magic "WLMK", int version, int noOfNodes, int noOfLandmarks, long graphFingerprint
+ * int landmarkNodeIds[noOfLandmarks]
+ * padding to a multiple of 8
+ * double distances[noOfNodes * noOfLandmarks]              infinite when unreachable
+ * </pre>
+ */
+public class LandmarkTable {
+    public static final int DEFAULT_NO_OF_LANDMARKS = 16;
+    public static final String FILE_EXTENSION = ".landmarks";
+
+    private static final int MAGIC = 'W' | 'L' << 8 | 'M' << 16 | 'K' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES;
+
+    // Tables of the graphs searched with LandmarkHScoreComputer, computed on first use or registered.
+    private static final Map<GraphSnapshot, LandmarkTable> TABLES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int noOfNodes;
+    private final int[] landmarkNodeIds;
+    private final double[] distances;
+    private final long graphFingerprint;
+
+    private LandmarkTable(final int noOfNodes, final int[] landmarkNodeIds, final double[] distances,
+                          final long graphFingerprint) {
+        this.noOfNodes = noOfNodes;
+        this.landmarkNodeIds = landmarkNodeIds;
+        this.distances = distances;
+        this.graphFingerprint = graphFingerprint;
+    }
+
+    /**
+     * Chooses the landmarks and runs one Dijkstra from each.
+     * @param graph undirected graph
+     * @param noOfLandmarks capped at the number of nodes
+     * @return
+     */
+    public static LandmarkTable compute(final GraphSnapshot graph, final int noOfLandmarks) {
+        if (noOfLandmarks < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed.");
+        }
+        final int noOfNodes = graph.getNodeCount();
+        final int noOfTableLandmarks = Math.min(noOfLandmarks, noOfNodes);
+        final int[] landmarkNodeIds = new int[noOfTableLandmarks];
+        final double[] distances = new double[noOfNodes * noOfTableLandmarks];
+        // Distance from every node to its nearest landmark so far.
+        final double[] nearestLandmarkDistances = new double[noOfNodes];
+        Arrays.fill(nearestLandmarkDistances, Double.POSITIVE_INFINITY);
+
+        // The first landmark is the node farthest from an arbitrary one, which is usually on the rim.
+        int nextLandmark = noOfNodes == 0 ? 0 : findFarthest(ShortestPaths.computeDistances(graph, 0));
+        for (int landmark = 0; landmark < noOfTableLandmarks; ++landmark) {
+            landmarkNodeIds[landmark] = nextLandmark;
+            final double[] landmarkDistances = ShortestPaths.computeDistances(graph, nextLandmark);
+            for (int nodeId = 0; nodeId < noOfNodes; ++nodeId) {
+                distances[nodeId * noOfTableLandmarks + landmark] = landmarkDistances[nodeId];
+                nearestLandmarkDistances[nodeId] = Math.min(nearestLandmarkDistances[nodeId],
+                        landmarkDistances[nodeId]);
+            }
+            nextLandmark = findFarthest(nearestLandmarkDistances);
+        }
+        return new LandmarkTable(noOfNodes, landmarkNodeIds, distances, fingerprint(graph));
+    }
+
+    /**
+     * @param graph
+     * @return the table registered for the graph, computed with DEFAULT_NO_OF_LANDMARKS on first use
+     */
+    public static LandmarkTable forGraph(final GraphSnapshot graph) {
+        synchronized (TABLES) {
+            return TABLES.computeIfAbsent(graph, g -> compute(g, DEFAULT_NO_OF_LANDMARKS));
+        }
+    }
+
+    /**
+     * Makes LandmarkHScoreComputer use the table for the graph, e.g. one loaded from disk.
+     * @param graph
+     * @param table
+     */
+    public static void register(final GraphSnapshot graph, final LandmarkTable table) {
+        if (!table.matches(graph)) {
+            throw new IllegalArgumentException("The landmark table was computed for a different graph.");
+        }
+        TABLES.put(graph, table);
+    }
+
+    /**
+     * @param mapPath
+     * @return where the landmark table of the map file is kept
+     */
+    public static Path pathFor(final Path mapPath) {
+        return Paths.get(mapPath + FILE_EXTENSION);
+    }
+
+    public int getNoOfLandmarks() {
+        return landmarkNodeIds.length;
+    }
+
+    public int getLandmarkNodeId(final int landmark) {
+        return landmarkNodeIds[landmark];
+    }
+
+    /**
+     * @param nodeId
+     * @param landmark
+     * @return shortest-path distance between the landmark and the node
+     */
+    public double getDistance(final int nodeId, final int landmark) {
+        return distances[nodeId * landmarkNodeIds.length + landmark];
+    }
+
+    /**
+     * @param nodeId
+     * @param otherNodeId
+     * @return a lower bound on the shortest-path distance between the nodes; 0 if they are in different components
+     */
+    public double computeLowerBound(final int nodeId, final int otherNodeId) {
+        final int noOfLandmarks = landmarkNodeIds.length;
+        final int row = nodeId * noOfLandmarks;
+        final int otherRow = otherNodeId * noOfLandmarks;
+        double lowerBound = 0;
+        for (int landmark = 0; landmark < noOfLandmarks; ++landmark) {
+            final double difference = Math.abs(distances[row + landmark] - distances[otherRow + landmark]);
+            // Infinite on both sides gives NaN, and on one side a pair without any path; neither bounds anything.
+            if (difference > lowerBound && difference != Double.POSITIVE_INFINITY) {
+                lowerBound = difference;
+            }
+        }
+        return lowerBound;
+    }
+
+    /**
+     * @param graph
+     * @return whether the table was computed for a graph with the same nodes and edges
+     */
+    public boolean matches(final GraphSnapshot graph) {
+        return graph.getNodeCount() == noOfNodes && fingerprint(graph) == graphFingerprint;
+    }
+
+    public void save(final Path path) throws IOException {
+        final long fileSize = getDistancesPosition(landmarkNodeIds.length) + (long) distances.length * Double.BYTES;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The landmark table is too large for a file.");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(noOfNodes).putInt(landmarkNodeIds.length)
+                .putLong(graphFingerprint);
+        for (final int landmarkNodeId : landmarkNodeIds) {
+            buffer.putInt(landmarkNodeId);
+        }
+        buffer.position((int) getDistancesPosition(landmarkNodeIds.length));
+        buffer.asDoubleBuffer().put(distances);
+        buffer.position(buffer.capacity());
+        buffer.flip();
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @param path
+     * @param graph the graph the table is for
+     * @return
+     * @throws IOException
+     * @throws IllegalArgumentException if the file is not a landmark table of the graph
+     */
+    public static LandmarkTable load(final Path path, final GraphSnapshot graph) throws IOException {
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + " is not a landmark table.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(path + " is not a landmark table.");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException(path + " has unsupported version " + buffer.getInt(Integer.BYTES)
+                    + ".");
+        }
+        final int noOfNodes = buffer.getInt(2 * Integer.BYTES);
+        final int noOfLandmarks = buffer.getInt(3 * Integer.BYTES);
+        if (noOfNodes < 0 || noOfLandmarks < 0 || buffer.capacity()
+                != getDistancesPosition(noOfLandmarks) + (long) noOfNodes * noOfLandmarks * Double.BYTES) {
+            throw new IllegalArgumentException(path + " is truncated or corrupt.");
+        }
+
+        final int[] landmarkNodeIds = new int[noOfLandmarks];
+        buffer.position(HEADER_SIZE);
+        buffer.asIntBuffer().get(landmarkNodeIds);
+        final double[] distances = new double[noOfNodes * noOfLandmarks];
+        buffer.position((int) getDistancesPosition(noOfLandmarks));
+        buffer.asDoubleBuffer().get(distances);
+        final LandmarkTable table = new LandmarkTable(noOfNodes, landmarkNodeIds, distances,
+                buffer.getLong(4 * Integer.BYTES));
+        if (!table.matches(graph)) {
+            throw new IllegalArgumentException(path + " was computed for a different graph.");
+        }
+        return table;
+    }
+
+    private static long getDistancesPosition(final int noOfLandmarks) {
+        final long position = HEADER_SIZE + (long) noOfLandmarks * Integer.BYTES;
+        return (position + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+    private static int findFarthest(final double[] distances) {
+        int farthest = 0;
+        for (int nodeId = 1; nodeId < distances.length; ++nodeId) {
+            if (distances[nodeId] > distances[farthest]) {
+                farthest = nodeId;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * @param graph
+     * @return a hash of the graph's adjacency and edge weights
+     */
+    private static long fingerprint(final GraphSnapshot graph) {
+        long hash = graph.getEdgeCount();
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            hash = hash * 31 + graph.getFirstEdge(nodeId);
+        }
+        for (int edge = 0; edge < graph.getEdgeCount(); ++edge) {
+            hash = hash * 31 + graph.getEdgeTarget(edge);
+            hash = hash * 31 + Double.doubleToLongBits(graph.getEdgeWeight(edge));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,307 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+
+import java.util.*;
+
+/**
+ * IDA* with a transposition table of at most maxStates states, for target sets whose (node, remaining targets)
+ * state space does not fit in memory.
+ * Each iteration is a depth-first branch and bound below an f-score threshold: paths are cut once their f-score
+ * exceeds the threshold or reaches the best route found so far. A route found within the threshold is optimal. The
+ * threshold grows at least geometrically, so real-valued edge weights do not cause one iteration per distinct
+ * f-score.
+ * The table keeps the lowest g-score each state was reached with in the iteration, and cuts paths reaching it with
+ * a higher one. Once it is full, further states are searched without it: the search slows down, but its memory stays
+ * bounded by the table and the depth-first stack.
+ */
+public class MemoryBoundedSearch {
+    // Each threshold is at least this factor above the previous one.
+    private static final double THRESHOLD_GROWTH = 1.05;
+
+    /**
+     * A route together with how much memory finding it took.
+     */
+    public static class Result extends Search.Result {
+        private final int peakStates;
+        private final long peakMemoryBytes;
+        private final int numIterations;
+
+        public Result(final List<Node> shortestPath, final List<Double> shortestPathGScores,
+                      final double shortestPathCost, final int numExpansions, final int peakStates,
+                      final long peakMemoryBytes, final int numIterations) {
+            super(shortestPath, shortestPathGScores, shortestPathCost, numExpansions, Collections.emptySet());
+            this.peakStates = peakStates;
+            this.peakMemoryBytes = peakMemoryBytes;
+            this.numIterations = numIterations;
+        }
+
+        /**
+         * @return the most states held at once: transposition table entries plus the depth-first stack
+         */
+        public int getPeakStates() {
+            return peakStates;
+        }
+
+        /**
+         * @return the most bytes held at once by the transposition table and the depth-first stack, as allocated
+         */
+        public long getPeakMemoryBytes() {
+            return peakMemoryBytes;
+        }
+
+        public int getNumIterations() {
+            return numIterations;
+        }
+    }
+
+    private final int maxStates;
+
+    /**
+     * @param maxStates most states kept in the transposition table
+     */
+    public MemoryBoundedSearch(final int maxStates) {
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("The state budget must be positive.");
+        }
+        this.maxStates = maxStates;
+    }
+
+    public int getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * The result has no expanded nodes.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @param monitor
+     * @return
+     * @throws java.util.concurrent.CancellationException if the monitor was cancelled
+     * @throws SearchTimeoutException if the monitor's deadline passed
+     */
+    public Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                                   final HScoreComputer computer, final SearchMonitor monitor) {
+        final SearchContext table = new SearchContext();
+        final int noOfTargets = Search.assignTargetBits(targetNodeIds, table);
+        computer.prepare(graph, targetNodeIds, monitor);
+        final long sourceTargets = noOfTargets == Search.MAX_TARGETS ? -1L : (1L << noOfTargets) - 1;
+
+        final Iteration iteration = new Iteration(graph, computer, table, monitor);
+        double threshold = Math.max(computer.computeHScore(sourceNodeId, sourceTargets),
+                graph.getAlreadyWaited(sourceNodeId));
+        int numIterations = 0;
+        while (true) {
+            ++numIterations;
+            iteration.run(sourceNodeId, sourceTargets, threshold);
+            if (iteration.bestPathLength > 0) {
+                break;
+            }
+            if (Double.isInfinite(iteration.nextThreshold)) {
+                throw new UnreachableTargetsException(
+                        "Destinations not reachable from " + graph.getNodeName(sourceNodeId));
+            }
+            threshold = Math.max(iteration.nextThreshold, threshold * THRESHOLD_GROWTH);
+
+            // Start the next iteration with an empty table, keeping the target bits.
+            table.reset();
+            Search.assignTargetBits(targetNodeIds, table);
+        }
+
+        final List<Node> shortestPath = new ArrayList<>(iteration.bestPathLength);
+        final List<Double> shortestPathGScores = new ArrayList<>(iteration.bestPathLength);
+        for (int i = 0; i < iteration.bestPathLength; ++i) {
+            shortestPath.add(graph.getNode(iteration.bestPathNodeIds[i]));
+            shortestPathGScores.add(iteration.bestPathGScores[i]);
+        }
+        return new Result(shortestPath, shortestPathGScores, iteration.bestCost, iteration.numExpansions,
+                iteration.peakStates, iteration.peakMemoryBytes, numIterations);
+    }
+
+    /**
+     * One depth-first branch and bound, on an explicit stack so that long routes cannot overflow the thread's stack.
+     * The children of every node on the path are tried in order of f-score, so that states tend to be reached with
+     * their lowest g-score first. Counters carry over between iterations.
+     */
+    private class Iteration {
+        private final GraphSnapshot graph;
+        private final HScoreComputer computer;
+        private final SearchContext table;
+        private final SearchMonitor monitor;
+
+        private double threshold;
+
+        // One frame per node on the current path.
+        private int[] stackNodeIds = new int[64];
+        private long[] stackTargets = new long[64];
+        private double[] stackGScores = new double[64];
+        private double[] stackMaxWaitingTimes = new double[64];
+        private int[] stackNextChildren = new int[64];
+        private int[] stackEndChildren = new int[64];
+
+        // Children of the frames, frame after frame, each frame's sorted by f-score.
+        private int[] childEdges = new int[256];
+        private double[] childHScores = new double[256];
+        private double[] childFScores = new double[256];
+
+        private double bestCost;
+        private int[] bestPathNodeIds = new int[0];
+        private double[] bestPathGScores = new double[0];
+        private int bestPathLength;
+        private double nextThreshold;
+
+        private int numExpansions;
+        private int peakStates;
+        private long peakMemoryBytes;
+
+        Iteration(final GraphSnapshot graph, final HScoreComputer computer, final SearchContext table,
+                  final SearchMonitor monitor) {
+            this.graph = graph;
+            this.computer = computer;
+            this.table = table;
+            this.monitor = monitor;
+        }
+
+        void run(final int sourceNodeId, final long sourceTargets, final double threshold) {
+            this.threshold = threshold;
+            bestCost = Double.POSITIVE_INFINITY;
+            bestPathLength = 0;
+            nextThreshold = Double.POSITIVE_INFINITY;
+
+            int depth = 0;
+            final int sourceState = table.addState(sourceNodeId, sourceTargets);
+            table.setGScore(sourceState, 0);
+            if (sourceTargets == 0) {
+                push(depth, sourceNodeId, sourceTargets, 0, graph.getAlreadyWaited(sourceNodeId), false);
+                recordBestPath(depth, stackMaxWaitingTimes[depth]);
+                return;
+            }
+            push(depth, sourceNodeId, sourceTargets, 0, graph.getAlreadyWaited(sourceNodeId), true);
+            while (depth >= 0) {
+                final int child = stackNextChildren[depth];
+                if (child == stackEndChildren[depth]) {
+                    --depth;
+                    continue;
+                }
+                stackNextChildren[depth] = child + 1;
+
+                final int edge = childEdges[child];
+                final int neighborNode = graph.getEdgeTarget(edge);
+                final long neighborTargets = table.computeTargets(neighborNode, stackTargets[depth]);
+                final double gScore = stackGScores[depth] + graph.getEdgeWeight(edge);
+                final double maxWaitingTime = Math.max(gScore + graph.getAlreadyWaited(neighborNode),
+                        stackMaxWaitingTimes[depth]);
+                final double fScore = childFScores[child];
+                if (fScore >= bestCost) {
+                    // Children are sorted, so none of the remaining ones can beat the best route either.
+                    stackNextChildren[depth] = stackEndChildren[depth];
+                    continue;
+                }
+
+                int neighborState = table.findState(neighborNode, neighborTargets);
+                if (neighborState != SearchContext.NO_STATE && gScore >= table.getGScore(neighborState)) {
+                    continue;
+                }
+                if (neighborState == SearchContext.NO_STATE && table.size() < maxStates) {
+                    neighborState = table.addState(neighborNode, neighborTargets);
+                    table.setHScore(neighborState, childHScores[child]);
+                }
+                if (neighborState != SearchContext.NO_STATE) {
+                    table.setGScore(neighborState, gScore);
+                }
+
+                if (neighborTargets == 0) {
+                    push(++depth, neighborNode, neighborTargets, gScore, maxWaitingTime, false);
+                    recordBestPath(depth, fScore);
+                    --depth;
+                } else {
+                    push(++depth, neighborNode, neighborTargets, gScore, maxWaitingTime, true);
+                }
+            }
+        }
+
+        /**
+         * Puts the node on the path, and its children within the threshold after the previous frame's children.
+         */
+        private void push(final int depth, final int nodeId, final long targets, final double gScore,
+                          final double maxWaitingTime, final boolean expand) {
+            if (depth == stackNodeIds.length) {
+                final int capacity = 2 * stackNodeIds.length;
+                stackNodeIds = Arrays.copyOf(stackNodeIds, capacity);
+                stackTargets = Arrays.copyOf(stackTargets, capacity);
+                stackGScores = Arrays.copyOf(stackGScores, capacity);
+                stackMaxWaitingTimes = Arrays.copyOf(stackMaxWaitingTimes, capacity);
+                stackNextChildren = Arrays.copyOf(stackNextChildren, capacity);
+                stackEndChildren = Arrays.copyOf(stackEndChildren, capacity);
+            }
+            stackNodeIds[depth] = nodeId;
+            stackTargets[depth] = targets;
+            stackGScores[depth] = gScore;
+            stackMaxWaitingTimes[depth] = maxWaitingTime;
+            final int firstChild = depth == 0 ? 0 : stackEndChildren[depth - 1];
+            stackNextChildren[depth] = firstChild;
+            stackEndChildren[depth] = firstChild;
+            if (!expand) {
+                return;
+            }
+
+            if (++numExpansions % SearchMonitor.CHECK_INTERVAL == 0) {
+                monitor.check(numExpansions, depth + 1, Math.min(threshold, bestCost));
+            }
+            final int endEdge = graph.getEndEdge(nodeId);
+            int endChild = firstChild;
+            for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                final int neighborNode = graph.getEdgeTarget(edge);
+                final long neighborTargets = table.computeTargets(neighborNode, targets);
+                final double neighborGScore = gScore + graph.getEdgeWeight(edge);
+                final int neighborState = table.findState(neighborNode, neighborTargets);
+                if (neighborState != SearchContext.NO_STATE && neighborGScore >= table.getGScore(neighborState)) {
+                    continue;
+                }
+                final double hScore = neighborState != SearchContext.NO_STATE ? table.getHScore(neighborState)
+                        : computer.computeHScore(neighborNode, neighborTargets);
+                final double fScore = Math.max(neighborGScore + hScore, Math.max(
+                        neighborGScore + graph.getAlreadyWaited(neighborNode), maxWaitingTime));
+                if (fScore > threshold) {
+                    nextThreshold = Math.min(nextThreshold, fScore);
+                    continue;
+                }
+
+                if (endChild == childEdges.length) {
+                    childEdges = Arrays.copyOf(childEdges, 2 * endChild);
+                    childHScores = Arrays.copyOf(childHScores, 2 * endChild);
+                    childFScores = Arrays.copyOf(childFScores, 2 * endChild);
+                }
+                int position = endChild++;
+                for (; position > firstChild && childFScores[position - 1] > fScore; --position) {
+                    childEdges[position] = childEdges[position - 1];
+                    childHScores[position] = childHScores[position - 1];
+                    childFScores[position] = childFScores[position - 1];
+                }
+                childEdges[position] = edge;
+                childHScores[position] = hScore;
+                childFScores[position] = fScore;
+            }
+            stackEndChildren[depth] = endChild;
+
+            peakStates = Math.max(peakStates, table.size() + depth + 1);
+            peakMemoryBytes = Math.max(peakMemoryBytes, table.getMemoryBytes()
+                    + (long) stackNodeIds.length * (3 * Integer.BYTES + Long.BYTES + 2 * Double.BYTES)
+                    + (long) childEdges.length * (Integer.BYTES + 2 * Double.BYTES));
+        }
+
+        private void recordBestPath(final int depth, final double cost) {
+            bestCost = cost;
+            bestPathLength = depth + 1;
+            if (bestPathNodeIds.length < bestPathLength) {
+                bestPathNodeIds = new int[stackNodeIds.length];
+                bestPathGScores = new double[stackNodeIds.length];
+            }
+            System.arraycopy(stackNodeIds, 0, bestPathNodeIds, 0, bestPathLength);
+            System.arraycopy(stackGScores, 0, bestPathGScores, 0, bestPathLength);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the HScore as the shortest-path distance to the nearest remaining target plus the weight of a minimum
+ * spanning tree over the remaining targets.
+ * Any route that visits every remaining target first reaches one of them and then connects all of them, so the
+ * bound is admissible. Distances come from one Dijkstra per target at search start, and MST weights are memoised
+ * per target subset.
+ */
+public class MinimumSpanningTreeHScoreComputer implements HScoreComputer {
+    // Up to this many targets the MST weights are memoised in an array indexed by the subset itself, 512 KB at most;
+    // above it a search only reaches a small share of the subsets, so a map holds them.
+    private static final int MAX_TARGETS_FOR_ARRAY_MEMO = 16;
+
+    private double[][] distancesFromTargets = new double[0][];
+    private double[][] distancesBetweenTargets = new double[0][];
+    private double[] mstWeightBySubset;
+    private Map<Long, Double> mstWeightBySubsetMap;
+
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds) {
+        prepare(graph, targetNodeIds, SearchMonitor.NONE);
+    }
+
+    /**
+     * Checks the monitor before each target's Dijkstra.
+     */
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds, final SearchMonitor monitor) {
+        final int noOfTargets = targetNodeIds.length;
+        distancesFromTargets = new double[noOfTargets][];
+        for (int i = 0; i < noOfTargets; ++i) {
+            monitor.check();
+            distancesFromTargets[i] = ShortestPaths.computeDistances(graph, targetNodeIds[i]);
+        }
+        distancesBetweenTargets = new double[noOfTargets][noOfTargets];
+        for (int i = 0; i < noOfTargets; ++i) {
+            for (int j = 0; j < noOfTargets; ++j) {
+                distancesBetweenTargets[i][j] = distancesFromTargets[i][targetNodeIds[j]];
+            }
+        }
+
+        if (noOfTargets <= MAX_TARGETS_FOR_ARRAY_MEMO) {
+            // A computer prepared for many searches keeps its array while the number of targets stays the same.
+            if (mstWeightBySubset == null || mstWeightBySubset.length != 1 << noOfTargets) {
+                mstWeightBySubset = new double[1 << noOfTargets];
+            }
+            Arrays.fill(mstWeightBySubset, Double.NaN);
+            mstWeightBySubsetMap = null;
+        } else {
+            mstWeightBySubset = null;
+            mstWeightBySubsetMap = new HashMap<>();
+        }
+    }
+
+    @Override
+    public double computeHScore(int nodeId, long targets) {
+        if (targets == 0) return 0;
+
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            minDistance = Math.min(minDistance, distancesFromTargets[Long.numberOfTrailingZeros(remaining)][nodeId]);
+        }
+        return minDistance + getMstWeight(targets);
+    }
+
+    private double getMstWeight(final long targets) {
+        if (mstWeightBySubset != null) {
+            double mstWeight = mstWeightBySubset[(int) targets];
+            if (Double.isNaN(mstWeight)) {
+                mstWeight = computeMstWeight(targets);
+                mstWeightBySubset[(int) targets] = mstWeight;
+            }
+            return mstWeight;
+        }
+        return mstWeightBySubsetMap.computeIfAbsent(targets, this::computeMstWeight);
+    }
+
+    /**
+     * Prim's algorithm on the complete graph of target-to-target shortest-path distances.
+     * @param targets
+     * @return
+     */
+    private double computeMstWeight(final long targets) {
+        final int[] targetIndices = new int[Long.bitCount(targets)];
+        int noOfTargets = 0;
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            targetIndices[noOfTargets++] = Long.numberOfTrailingZeros(remaining);
+        }
+
+        final double[] connectionCosts = new double[noOfTargets];
+        final boolean[] inTree = new boolean[noOfTargets];
+        Arrays.fill(connectionCosts, Double.POSITIVE_INFINITY);
+        connectionCosts[0] = 0;
+        double mstWeight = 0;
+        for (int added = 0; added < noOfTargets; ++added) {
+            int next = -1;
+            for (int i = 0; i < noOfTargets; ++i) {
+                if (!inTree[i] && (next == -1 || connectionCosts[i] < connectionCosts[next])) {
+                    next = i;
+                }
+            }
+            inTree[next] = true;
+            mstWeight += connectionCosts[next];
+            for (int i = 0; i < noOfTargets; ++i) {
+                if (!inTree[i]) {
+                    connectionCosts[i] = Math.min(connectionCosts[i],
+                            distancesBetweenTargets[targetIndices[next]][targetIndices[i]]);
+                }
+            }
+        }
+        return mstWeight;
+    }
+}
@@ -1,10 +1,6 @@
 package edu.shalini.ai.search;
 
-import edu.shalini.ai.map.Node;
-import edu.shalini.ai.map.WorldMap;
-
-import java.util.HashSet;
-import java.util.Set;
+import edu.shalini.ai.map.GraphSnapshot;
 
 /**
  *
@@ -12,32 +8,23 @@ import java.util.Set;
  *
  */
 public class NearestTargetHScoreComputer implements HScoreComputer {
-    private final WorldMap worldMap;
-
-    public NearestTargetHScoreComputer(final WorldMap worldMap) {
-        this.worldMap = worldMap;
-    }
-
-    private Set<Node> getTargetNodesFromPrefix(final String prefix) {
-        final String[] nodeNames = prefix.split("/");
-        final Set<Node> targetNodes = new HashSet<>();
+    private GraphSnapshot graph;
+    private int[] targetNodeIds = new int[0];
 
-        if (prefix.isEmpty()) return targetNodes;
-
-        for (final String nodeName : nodeNames) {
-            targetNodes.add(worldMap.getNodeByName(nodeName));
-        }
-        return targetNodes;
+    @Override
+    public void prepare(final GraphSnapshot graph, final int[] targetNodeIds) {
+        this.graph = graph;
+        this.targetNodeIds = targetNodeIds;
     }
 
     @Override
-    public double computeHScore(Node node, String prefix) {
-        final Set<Node> targetNodes = getTargetNodesFromPrefix(prefix);
-        if (targetNodes.isEmpty()) return 0;
+    public double computeHScore(int nodeId, long targets) {
+        if (targets == 0) return 0;
 
         double minDistance = Double.MAX_VALUE;
-        for (final Node targetNode : targetNodes) {
-            final double distance = node.getDistanceFrom(targetNode);
+        for (long remaining = targets; remaining != 0; remaining &= remaining - 1) {
+            final int targetNodeId = targetNodeIds[Long.numberOfTrailingZeros(remaining)];
+            final double distance = graph.getDistance(nodeId, targetNodeId);
             minDistance = Math.min(minDistance, distance);
         }
         return minDistance;
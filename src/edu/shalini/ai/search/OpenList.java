@@ -0,0 +1,178 @@
+package edu.shalini.ai.search;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Indexed binary min-heap of search state ids keyed by f-score.
+ * Keys are kept in a primitive array next to the heap, and the position of every state id is tracked so that
+ * a changed key is restored in O(log n) instead of a linear remove and re-insert.
+ */
+class OpenList {
+    private static final int NOT_IN_HEAP = -1;
+
+    private int[] heap;
+    private double[] keys;
+    private int[] positionById;
+    private int size;
+
+    OpenList() {
+        this.heap = new int[64];
+        this.keys = new double[64];
+        this.positionById = new int[64];
+        Arrays.fill(this.positionById, NOT_IN_HEAP);
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final int id) {
+        return id < positionById.length && positionById[id] != NOT_IN_HEAP;
+    }
+
+    /**
+     * Inserts the state, or moves it to its new place if it is already in the heap.
+     * @param id
+     * @param key
+     */
+    void addOrUpdate(final int id, final double key) {
+        if (contains(id)) {
+            final int position = positionById[id];
+            final double oldKey = keys[position];
+            keys[position] = key;
+            if (key < oldKey) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+            return;
+        }
+
+        ensureCapacity(id);
+        heap[size] = id;
+        keys[size] = key;
+        positionById[id] = size;
+        siftUp(size++);
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes the state with the lowest key.
+     * @return its id
+     */
+    int poll() {
+        final int id = heap[0];
+        positionById[id] = NOT_IN_HEAP;
+        if (--size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return id;
+    }
+
+    /**
+     * Removes the state if it is in the heap.
+     * @param id
+     */
+    void remove(final int id) {
+        if (!contains(id)) {
+            return;
+        }
+        final int position = positionById[id];
+        positionById[id] = NOT_IN_HEAP;
+        if (--size > position) {
+            final double removedKey = keys[position];
+            move(size, position);
+            if (keys[position] < removedKey) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the key of every state and restores the heap in O(n).
+     * @param keyFunction new key by state id
+     */
+    void updateKeys(final IntToDoubleFunction keyFunction) {
+        for (int position = 0; position < size; ++position) {
+            keys[position] = keyFunction.applyAsDouble(heap[position]);
+        }
+        for (int position = (size >>> 1) - 1; position >= 0; --position) {
+            siftDown(position);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; ++i) {
+            positionById[heap[i]] = NOT_IN_HEAP;
+        }
+        size = 0;
+    }
+
+    private void ensureCapacity(final int id) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heap.length);
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+        }
+        if (id >= positionById.length) {
+            final int oldLength = positionById.length;
+            positionById = Arrays.copyOf(positionById, Math.max(2 * oldLength, id + 1));
+            Arrays.fill(positionById, oldLength, positionById.length, NOT_IN_HEAP);
+        }
+    }
+
+    private void siftUp(int position) {
+        final int id = heap[position];
+        final double key = keys[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, position);
+            position = parent;
+        }
+        place(id, key, position);
+    }
+
+    private void siftDown(int position) {
+        final int id = heap[position];
+        final double key = keys[position];
+        final int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                ++child;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            move(child, position);
+            position = child;
+        }
+        place(id, key, position);
+    }
+
+    private void move(final int from, final int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positionById[heap[to]] = to;
+    }
+
+    private void place(final int id, final double key, final int position) {
+        heap[position] = id;
+        keys[position] = key;
+        positionById[id] = position;
+    }
+}
@@ -0,0 +1,536 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Hash-distributed A* (HDA*): one query searched by several threads at once.
+ * Every (node, remaining targets) state is owned by the worker its hash picks, and only that worker keeps its
+ * scores, open list entry and closed flag, in a SearchContext of its own. A worker expanding a state sends each
+ * neighbour state to its owner through the owner's lock-free inbox, one batch per owner and expansion; the owner
+ * keeps it if it improves on what it has, and reopens it if it was already expanded, since workers do not expand in
+ * global f-score order. Received batches go back to their sender to be filled again.
+ * Every g-score a worker gives a state is recorded as a label that also names the label it came from. Labels are
+ * never changed, so the best route is read back through them even after states on it were improved.
+ * A route to the goal only becomes the best route found so far; states whose f-score reaches its cost are no longer
+ * expanded. The search ends once every worker is idle and no batch is in flight, so no state that could beat the
+ * best route is left and the route is optimal.
+ * The workers run on threads the instance keeps between queries; each first prepares its own HScoreComputer there,
+ * so their preparations run side by side. The calling thread detects termination and checks the monitor while they
+ * search.
+ */
+public class ParallelSearch {
+    // A worker sends what it generated after every expansion, since owners working on stale information expand
+    // states a sequential search never would; a batch only collects the states one expansion sends to one owner.
+    private static final int INITIAL_BATCH_CAPACITY = 4;
+    private static final int INITIAL_LABEL_CAPACITY = 256;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final long COORDINATOR_PARK_NANOS = 100_000;
+    private static final int NO_LABEL = -1;
+
+    private final int noOfThreads;
+    private final Queue<SearchContext> idleContexts = new ConcurrentLinkedQueue<>();
+    // Grows to as many threads as the queries running at once need, each of which ends after a minute unused.
+    private final ExecutorService workerThreads;
+
+    /**
+     * @param noOfThreads number of workers searching each query
+     */
+    public ParallelSearch(final int noOfThreads) {
+        if (noOfThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.noOfThreads = noOfThreads;
+        final AtomicInteger noOfWorkerThreads = new AtomicInteger();
+        this.workerThreads = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "parallel-search-" + noOfWorkerThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    /**
+     * The result's expanded nodes are those expanded by any worker.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computers a new HScoreComputer per worker, prepared on that worker's thread
+     * @param monitor checked by the calling thread while the workers search, and by every worker's computer while it
+     *                prepares
+     * @return
+     * @throws java.util.concurrent.CancellationException if the monitor was cancelled
+     * @throws SearchTimeoutException if the monitor's deadline passed
+     */
+    public Search.Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId,
+                                          final int[] targetNodeIds, final Supplier<HScoreComputer> computers,
+                                          final SearchMonitor monitor) {
+        final SearchContext[] contexts = new SearchContext[noOfThreads];
+        for (int i = 0; i < noOfThreads; ++i) {
+            contexts[i] = idleContexts.poll();
+            if (contexts[i] == null) {
+                contexts[i] = new SearchContext();
+            }
+        }
+        try {
+            for (final SearchContext context : contexts) {
+                Search.assignTargetBits(targetNodeIds, context);
+            }
+            return new Query(graph, sourceNodeId, targetNodeIds, computers, contexts, monitor)
+                    .run(workerThreads, monitor);
+        } finally {
+            for (final SearchContext context : contexts) {
+                context.reset();
+                idleContexts.add(context);
+            }
+        }
+    }
+
+    /**
+     * @param nodeId
+     * @param targets
+     * @param noOfWorkers
+     * @return the worker owning the state
+     */
+    static int ownerOf(final int nodeId, final long targets, final int noOfWorkers) {
+        long h = targets * 0x9E3779B97F4A7C15L + nodeId;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (int) ((h >>> 1) % noOfWorkers);
+    }
+
+    /**
+     * States sent from one worker to another, as parallel arrays, with the labels of their parents at the sender.
+     */
+    private static final class Batch {
+        int[] nodeIds = new int[INITIAL_BATCH_CAPACITY];
+        long[] targets = new long[INITIAL_BATCH_CAPACITY];
+        double[] gScores = new double[INITIAL_BATCH_CAPACITY];
+        double[] maxWaitingTimes = new double[INITIAL_BATCH_CAPACITY];
+        int[] prevLabels = new int[INITIAL_BATCH_CAPACITY];
+        final int prevWorker;
+        int size;
+        // The batch below this one on a BatchStack.
+        Batch next;
+
+        Batch(final int prevWorker) {
+            this.prevWorker = prevWorker;
+        }
+
+        void add(final int nodeId, final long stateTargets, final double gScore, final double maxWaitingTime,
+                 final int prevLabel) {
+            if (size == nodeIds.length) {
+                final int capacity = 2 * size;
+                nodeIds = Arrays.copyOf(nodeIds, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                gScores = Arrays.copyOf(gScores, capacity);
+                maxWaitingTimes = Arrays.copyOf(maxWaitingTimes, capacity);
+                prevLabels = Arrays.copyOf(prevLabels, capacity);
+            }
+            nodeIds[size] = nodeId;
+            targets[size] = stateTargets;
+            gScores[size] = gScore;
+            maxWaitingTimes[size] = maxWaitingTime;
+            prevLabels[size] = prevLabel;
+            ++size;
+        }
+    }
+
+    /**
+     * A lock-free stack of batches linked through their next fields, so pushing one allocates nothing. Any thread
+     * may push; the one owning the stack takes all of its batches at once.
+     */
+    private static final class BatchStack {
+        private final AtomicReference<Batch> top = new AtomicReference<>();
+
+        void push(final Batch batch) {
+            Batch next;
+            do {
+                next = top.get();
+                batch.next = next;
+            } while (!top.compareAndSet(next, batch));
+        }
+
+        /**
+         * @return the batches pushed since the last call, linked from the last one pushed, or null
+         */
+        Batch popAll() {
+            return top.getAndSet(null);
+        }
+    }
+
+    /**
+     * What the workers of one query share.
+     */
+    private static final class Query {
+        final GraphSnapshot graph;
+        final int sourceNodeId;
+        final int[] targetNodeIds;
+        final SearchMonitor monitor;
+        final Worker[] workers;
+
+        // Cost of the best route found so far, and the label of its goal state.
+        volatile double bestCost = Double.POSITIVE_INFINITY;
+        int bestWorker = -1;
+        int bestLabel = NO_LABEL;
+
+        // Batches offered to an inbox and not yet received, and batches received so far.
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong received = new AtomicLong();
+        volatile boolean done;
+        volatile Throwable failure;
+
+        Query(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+              final Supplier<HScoreComputer> computers, final SearchContext[] contexts,
+              final SearchMonitor monitor) {
+            this.graph = graph;
+            this.sourceNodeId = sourceNodeId;
+            this.targetNodeIds = targetNodeIds;
+            this.monitor = monitor;
+            final int noOfTargets = targetNodeIds.length;
+            final long sourceTargets = noOfTargets == Search.MAX_TARGETS ? -1L : (1L << noOfTargets) - 1;
+            this.workers = new Worker[contexts.length];
+            for (int i = 0; i < contexts.length; ++i) {
+                workers[i] = new Worker(this, i, contexts[i], computers.get());
+            }
+
+            final Worker owner = workers[ownerOf(sourceNodeId, sourceTargets, workers.length)];
+            final Batch source = new Batch(-1);
+            source.add(sourceNodeId, sourceTargets, 0, graph.getAlreadyWaited(sourceNodeId), NO_LABEL);
+            inFlight.incrementAndGet();
+            owner.inbox.push(source);
+        }
+
+        synchronized void offerRoute(final double cost, final int worker, final int label) {
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestWorker = worker;
+                bestLabel = label;
+            }
+        }
+
+        void fail(final Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+            stop();
+        }
+
+        void stop() {
+            done = true;
+            for (final Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+
+        /**
+         * Every worker is idle and no batch is in flight. A worker only stops being idle by receiving a batch, so
+         * a batch received while the flags are read shows up in the received count.
+         * @return
+         */
+        boolean isFinished() {
+            final long receivedBefore = received.get();
+            for (final Worker worker : workers) {
+                if (!worker.idle) {
+                    return false;
+                }
+            }
+            return inFlight.get() == 0 && received.get() == receivedBefore;
+        }
+
+        Search.Result run(final ExecutorService workerThreads, final SearchMonitor monitor) {
+            final List<Future<?>> runningWorkers = new ArrayList<>(workers.length);
+            try {
+                for (final Worker worker : workers) {
+                    runningWorkers.add(workerThreads.submit(worker));
+                }
+                while (!done) {
+                    LockSupport.parkNanos(COORDINATOR_PARK_NANOS);
+                    if (isFinished()) {
+                        break;
+                    }
+                    int numExpansions = 0;
+                    int openListSize = 0;
+                    for (final Worker worker : workers) {
+                        numExpansions += worker.publishedExpansions;
+                        openListSize += worker.publishedOpenListSize;
+                    }
+                    monitor.check(numExpansions, openListSize, Double.NaN);
+                }
+            } catch (final RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                stop();
+                for (final Future<?> runningWorker : runningWorkers) {
+                    awaitUninterruptibly(runningWorker);
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IllegalStateException(failure);
+            }
+
+            if (bestLabel == NO_LABEL) {
+                throw new UnreachableTargetsException(
+                        "Destinations not reachable from " + graph.getNodeName(sourceNodeId));
+            }
+            return reconstructResult();
+        }
+
+        private Search.Result reconstructResult() {
+            final List<Node> shortestPath = new ArrayList<>();
+            final List<Double> shortestPathGScores = new ArrayList<>();
+            int worker = bestWorker;
+            for (int label = bestLabel; label != NO_LABEL; ) {
+                final Worker labelWorker = workers[worker];
+                shortestPath.add(graph.getNode(labelWorker.labelNodeIds[label]));
+                shortestPathGScores.add(labelWorker.labelGScores[label]);
+                worker = labelWorker.labelPrevWorkers[label];
+                label = labelWorker.labelPrevLabels[label];
+            }
+            Collections.reverse(shortestPath);
+            Collections.reverse(shortestPathGScores);
+
+            int numExpansions = 0;
+            final BitSet expandedNodeIds = new BitSet(graph.getNodeCount());
+            for (final Worker w : workers) {
+                numExpansions += w.numExpansions;
+                expandedNodeIds.or(w.expandedNodeIds);
+            }
+            final Set<Node> expandedNodes = new HashSet<>();
+            for (int nodeId = expandedNodeIds.nextSetBit(0); nodeId >= 0;
+                 nodeId = expandedNodeIds.nextSetBit(nodeId + 1)) {
+                expandedNodes.add(graph.getNode(nodeId));
+            }
+            return new Search.Result(shortestPath, shortestPathGScores, bestCost, numExpansions, expandedNodes);
+        }
+
+        private static void awaitUninterruptibly(final Future<?> runningWorker) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    runningWorker.get();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                } catch (final ExecutionException e) {
+                    // Workers report their failures to the query themselves.
+                    break;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Searches the states it owns.
+     */
+    private static final class Worker implements Runnable {
+        final Query query;
+        final int id;
+        final SearchContext context;
+        final HScoreComputer computer;
+        final BatchStack inbox = new BatchStack();
+        // Batches this worker sent, handed back by their receivers.
+        final BatchStack spareBatches = new BatchStack();
+        final Batch[] outgoing;
+        final BitSet expandedNodeIds = new BitSet();
+        // Taken from the inbox or spareBatches and not used yet.
+        Batch receivedBatches;
+        Batch freeBatches;
+        // Label of the current g-score of each state.
+        int[] labelByState = new int[INITIAL_LABEL_CAPACITY];
+        int[] labelNodeIds = new int[INITIAL_LABEL_CAPACITY];
+        double[] labelGScores = new double[INITIAL_LABEL_CAPACITY];
+        int[] labelPrevWorkers = new int[INITIAL_LABEL_CAPACITY];
+        int[] labelPrevLabels = new int[INITIAL_LABEL_CAPACITY];
+        int noOfLabels;
+        int numExpansions;
+
+        // The pool thread running the worker, while it runs.
+        volatile Thread thread;
+        volatile boolean idle;
+        volatile int publishedExpansions;
+        volatile int publishedOpenListSize;
+
+        Worker(final Query query, final int id, final SearchContext context, final HScoreComputer computer) {
+            this.query = query;
+            this.id = id;
+            this.context = context;
+            this.computer = computer;
+            this.outgoing = new Batch[query.workers.length];
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                // Batches sent meanwhile wait in the inbox, and the worker is not idle until it has prepared.
+                computer.prepare(query.graph, query.targetNodeIds, query.monitor);
+                final OpenList openList = context.getOpenList();
+                while (!query.done) {
+                    if (receivedBatches == null) {
+                        receivedBatches = inbox.popAll();
+                    }
+                    if (receivedBatches != null) {
+                        final Batch batch = receivedBatches;
+                        receivedBatches = batch.next;
+                        idle = false;
+                        for (int i = 0; i < batch.size; ++i) {
+                            receive(batch.nodeIds[i], batch.targets[i], batch.gScores[i], batch.maxWaitingTimes[i],
+                                    batch.prevWorker, batch.prevLabels[i]);
+                        }
+                        if (batch.prevWorker >= 0) {
+                            batch.size = 0;
+                            query.workers[batch.prevWorker].spareBatches.push(batch);
+                        }
+                        query.received.incrementAndGet();
+                        query.inFlight.decrementAndGet();
+                    } else if (!openList.isEmpty() && openList.peekKey() < query.bestCost) {
+                        expand(openList.poll());
+                        flush();
+                    } else if (!idle) {
+                        // Nothing left that can beat the best route: look at the inbox once more before parking.
+                        idle = true;
+                    } else {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                }
+            } catch (final RuntimeException | Error e) {
+                query.fail(e);
+            } finally {
+                thread = null;
+            }
+        }
+
+        private void expand(final int state) {
+            context.setVisited(state);
+            ++numExpansions;
+            final GraphSnapshot graph = query.graph;
+            final int nodeId = context.getNodeId(state);
+            expandedNodeIds.set(nodeId);
+            final long targets = context.getTargets(state);
+            final double gScore = context.getGScore(state);
+            final double maxWaitingTime = context.getMaxWaitingTime(state);
+            final int label = labelByState[state];
+            final int endEdge = graph.getEndEdge(nodeId);
+            for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                final int neighborNode = graph.getEdgeTarget(edge);
+                final long neighborTargets = context.computeTargets(neighborNode, targets);
+                final double neighborGScore = gScore + graph.getEdgeWeight(edge);
+                final double neighborMaxWaitingTime = Math.max(
+                        neighborGScore + graph.getAlreadyWaited(neighborNode), maxWaitingTime);
+                if (Math.max(neighborGScore, neighborMaxWaitingTime) >= query.bestCost) {
+                    continue;
+                }
+                final int owner = ownerOf(neighborNode, neighborTargets, query.workers.length);
+                if (owner == id) {
+                    receive(neighborNode, neighborTargets, neighborGScore, neighborMaxWaitingTime, id, label);
+                    continue;
+                }
+                Batch batch = outgoing[owner];
+                if (batch == null) {
+                    batch = outgoing[owner] = takeFreeBatch();
+                }
+                batch.add(neighborNode, neighborTargets, neighborGScore, neighborMaxWaitingTime, label);
+            }
+        }
+
+        private void receive(final int nodeId, final long targets, final double gScore, final double maxWaitingTime,
+                             final int prevWorker, final int prevLabel) {
+            int state = context.findState(nodeId, targets);
+            if (state == SearchContext.NO_STATE) {
+                state = context.addState(nodeId, targets);
+                context.setHScore(state, targets == 0 ? 0 : context.computeHScore(computer, nodeId, targets));
+                if (state >= labelByState.length) {
+                    labelByState = Arrays.copyOf(labelByState, 2 * labelByState.length);
+                }
+            } else if (gScore >= context.getGScore(state)) {
+                return;
+            }
+            final double fScore = Math.max(gScore + context.getHScore(state), maxWaitingTime);
+            if (fScore >= query.bestCost) {
+                return;
+            }
+
+            context.setGScore(state, gScore);
+            context.setMaxWaitingTime(state, maxWaitingTime);
+            final int label = addLabel(nodeId, gScore, prevWorker, prevLabel);
+            labelByState[state] = label;
+            if (targets == 0) {
+                query.offerRoute(fScore, id, label);
+                return;
+            }
+            if (context.isVisited(state)) {
+                context.clearVisited(state);
+            }
+            context.getOpenList().addOrUpdate(state, fScore);
+        }
+
+        private int addLabel(final int nodeId, final double gScore, final int prevWorker, final int prevLabel) {
+            if (noOfLabels == labelNodeIds.length) {
+                final int capacity = 2 * noOfLabels;
+                labelNodeIds = Arrays.copyOf(labelNodeIds, capacity);
+                labelGScores = Arrays.copyOf(labelGScores, capacity);
+                labelPrevWorkers = Arrays.copyOf(labelPrevWorkers, capacity);
+                labelPrevLabels = Arrays.copyOf(labelPrevLabels, capacity);
+            }
+            labelNodeIds[noOfLabels] = nodeId;
+            labelGScores[noOfLabels] = gScore;
+            labelPrevWorkers[noOfLabels] = prevWorker;
+            labelPrevLabels[noOfLabels] = prevLabel;
+            return noOfLabels++;
+        }
+
+        private Batch takeFreeBatch() {
+            if (freeBatches == null) {
+                freeBatches = spareBatches.popAll();
+                if (freeBatches == null) {
+                    return new Batch(id);
+                }
+            }
+            final Batch batch = freeBatches;
+            freeBatches = batch.next;
+            batch.next = null;
+            return batch;
+        }
+
+        private void flush() {
+            for (int owner = 0; owner < outgoing.length; ++owner) {
+                if (outgoing[owner] == null) {
+                    continue;
+                }
+                final Worker target = query.workers[owner];
+                query.inFlight.incrementAndGet();
+                target.inbox.push(outgoing[owner]);
+                outgoing[owner] = null;
+                if (target.idle) {
+                    LockSupport.unpark(target.thread);
+                }
+            }
+            publishedExpansions = numExpansions;
+            publishedOpenListSize = context.getOpenList().size();
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package edu.shalini.ai.search;
 
-import edu.shalini.ai.map.Edge;
+import edu.shalini.ai.map.GraphSnapshot;
 import edu.shalini.ai.map.Node;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Searches the graph to identify the shortest path computed based on the HScore selected by the user
  */
 public class Search {
-    public class Result {
+    static final int MAX_TARGETS = Long.SIZE;
+
+    public static class Result {
         private final List<Node> shortestPath;
         private final  List<Double> shortestPathGScores;
         private final double shortestPathCost;
@@ -46,101 +50,349 @@ public class Search {
         }
     }
 
-    private String getPrefix(final Collection<Node> targetNodes) {
-        final SortedSet<String> targetNodeNames = new TreeSet<>();
-        for (final Node node : targetNodes) {
-            targetNodeNames.add(node.getName());
-        }
+    private final Queue<SearchContext> idleContexts = new ConcurrentLinkedQueue<>();
+    private final SearchListener listener;
+    private final boolean pruneDominated;
+    private final boolean seedUpperBound;
+    private final boolean offHeapStates;
+
+    public Search() {
+        this(SearchListener.NONE);
+    }
+
+    /**
+     * @param listener told about every search once it has ended
+     */
+    public Search(final SearchListener listener) {
+        this(listener, false);
+    }
 
-        final StringBuffer prefix = new StringBuffer("");
-        for (final String nodeName : targetNodeNames) {
-            if (prefix.length() > 0) {
-                prefix.append("/");
+    /**
+     * @param listener told about every search once it has ended
+     * @param pruneDominated whether to drop states that an expanded state at the same node dominates, see
+     *                       DominanceFrontier
+     */
+    public Search(final SearchListener listener, final boolean pruneDominated) {
+        this(listener, pruneDominated, false);
+    }
+
+    /**
+     * With an upper bound, every search first computes a GreedyTour and drops every state whose f-score is not below
+     * its cost; the tour is returned if no cheaper route is found or the monitor's deadline passes.
+     * @param listener told about every search once it has ended
+     * @param pruneDominated whether to drop states that an expanded state at the same node dominates, see
+     *                       DominanceFrontier
+     * @param seedUpperBound whether to start from a GreedyTour as the best route so far
+     */
+    public Search(final SearchListener listener, final boolean pruneDominated, final boolean seedUpperBound) {
+        this(listener, pruneDominated, seedUpperBound, false);
+    }
+
+    /**
+     * @param listener told about every search once it has ended
+     * @param pruneDominated whether to drop states that an expanded state at the same node dominates, see
+     *                       DominanceFrontier
+     * @param seedUpperBound whether to start from a GreedyTour as the best route so far
+     * @param offHeapStates whether to keep the states of a search in a StateArena rather than on the heap
+     */
+    public Search(final SearchListener listener, final boolean pruneDominated, final boolean seedUpperBound,
+                  final boolean offHeapStates) {
+        this.listener = listener;
+        this.pruneDominated = pruneDominated;
+        this.seedUpperBound = seedUpperBound;
+        this.offHeapStates = offHeapStates;
+    }
+
+    public SearchListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Assigns each target its bit index, in array order.
+     * @param targetNodeIds
+     * @param context
+     * @return the number of targets
+     */
+    static int assignTargetBits(final int[] targetNodeIds, final SearchContext context) {
+        if (targetNodeIds.length > MAX_TARGETS) {
+            throw new IllegalArgumentException("At most " + MAX_TARGETS + " targets are supported.");
+        }
+        for (int i = 0; i < targetNodeIds.length; ++i) {
+            if (context.getTargetMask(targetNodeIds[i]) != 0L) {
+                throw new IllegalArgumentException("Duplicate target node " + targetNodeIds[i] + ".");
             }
-            prefix.append(nodeName);
+            context.setTargetMask(targetNodeIds[i], 1L << i);
         }
-        return prefix.toString();
+        return targetNodeIds.length;
     }
 
     /**
-     * Shoretst path computation
+     * Shoretst path computation.
+     * Nodes must belong to the WorldMap the graph was frozen from.
+     * @param graph
      * @param sourceNode
      * @param targetNodes
      * @param computer
      * @return
      */
-    public Result findShortestPath(final Node sourceNode, final Collection<Node> targetNodes,
+    public Result findShortestPath(final GraphSnapshot graph, final Node sourceNode,
+                                   final Collection<Node> targetNodes, final HScoreComputer computer) {
+        final int[] targetNodeIds = new LinkedHashSet<>(targetNodes).stream().mapToInt(Node::getId).toArray();
+        return findShortestPath(graph, sourceNode.getId(), targetNodeIds, computer);
+    }
+
+    /**
+     * Shortest path computation on node ids.
+     * The graph is only read, so a Search may run many queries concurrently as long as each one is given its own
+     * HScoreComputer.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @return
+     */
+    public Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
                                    final HScoreComputer computer) {
-        final String sourcePrefix = getPrefix(targetNodes);
-        final Queue<Node> unvisitedNodes = new PriorityQueue<>();
+        return findShortestPath(graph, sourceNodeId, targetNodeIds, computer, SearchMonitor.NONE);
+    }
+
+    /**
+     * Shortest path computation that can be cancelled, gives up at the monitor's deadline and reports its progress.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param computer
+     * @param monitor
+     * @return the route found; when the deadline passed with an upper bound seeded, the upper bound route as an
+     *         AnytimeSearch.Result
+     * @throws java.util.concurrent.CancellationException if the monitor was cancelled
+     * @throws SearchTimeoutException if the monitor's deadline passed and no upper bound was seeded
+     */
+    public Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                                   final HScoreComputer computer, final SearchMonitor monitor) {
+        SearchContext context = idleContexts.poll();
+        if (context == null) {
+            context = new SearchContext(offHeapStates);
+        }
+        try {
+            return findShortestPath(graph, sourceNodeId, targetNodeIds, computer, context, monitor);
+        } finally {
+            context.reset();
+            idleContexts.add(context);
+        }
+    }
+
+    /**
+     * Searches with the given context, which is left as the search left it.
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds
+     * @param computer
+     * @param context a reset context
+     * @param monitor
+     * @return
+     */
+    Result findShortestPath(final GraphSnapshot graph, final int sourceNodeId, final int[] targetNodeIds,
+                            final HScoreComputer computer, final SearchContext context, final SearchMonitor monitor) {
+        context.startTiming(listener != SearchListener.NONE);
+        final int noOfTargets = assignTargetBits(targetNodeIds, context);
+        try {
+            computer.prepare(graph, targetNodeIds, monitor);
+            if (seedUpperBound && noOfTargets > 0) {
+                final Result upperBoundRoute = GreedyTour.compute(graph, sourceNodeId, targetNodeIds, monitor);
+                if (upperBoundRoute != null) {
+                    context.setUpperBoundRoute(upperBoundRoute);
+                }
+            }
+        } catch (final CancellationException e) {
+            if (context.isTimed()) {
+                context.endPrepare();
+                listener.onSearchEnded(new SearchStats(e instanceof SearchTimeoutException
+                        ? SearchStats.Outcome.TIMED_OUT : SearchStats.Outcome.CANCELLED, context, 0, 0, 0));
+            }
+            throw e;
+        }
+        final long sourceTargets = noOfTargets == MAX_TARGETS ? -1L : (1L << noOfTargets) - 1;
+
+        final int sourceState = context.addState(sourceNodeId, sourceTargets);
+        context.setGScore(sourceState, 0);
+        context.setMaxWaitingTime(sourceState, graph.getAlreadyWaited(sourceNodeId));
+        context.setHScore(sourceState, context.computeHScore(computer, sourceNodeId, sourceTargets));
+        context.getOpenList().addOrUpdate(sourceState, context.getFScore(sourceState));
+
+        return expand(graph, computer, context, monitor);
+    }
+
+    /**
+     * Expands states from the context's open list until one without remaining targets is polled, then tells the
+     * listener how the search went. If the open list runs out or the deadline passes, the context's upper bound
+     * route is returned if it has one.
+     * The first state of the context is the source state. The prepare phase ends here; it began at the context's
+     * startTiming.
+     * @param graph
+     * @param computer
+     * @param context
+     * @param monitor checked every SearchMonitor.CHECK_INTERVAL expansions
+     * @return
+     */
+    Result expand(final GraphSnapshot graph, final HScoreComputer computer, final SearchContext context,
+                  final SearchMonitor monitor) {
+        final long expandStart = context.endPrepare();
+        final OpenList openList = context.getOpenList();
         int numExpansions = 0;
         final Set<Node> expandedNodes = new HashSet<>();
-        sourceNode.createSourceState(sourcePrefix, computer);
-        unvisitedNodes.add(sourceNode);
-
-        while(!unvisitedNodes.isEmpty()) {
-            final Node nodeWithLowestFScore = unvisitedNodes.poll();
-            final Node.State stateWithLowestFScore = nodeWithLowestFScore.getMinFScoreState();
-            if (stateWithLowestFScore.prefix.isEmpty()) { // Empty prefix implies that all target nodes were visited.
-                final List<Node> shortestPath = reconstructPath(nodeWithLowestFScore, stateWithLowestFScore);
-                final List<Double> shortestPathGScores =
-                        reconstructShortestPathGScores(nodeWithLowestFScore, stateWithLowestFScore);
-                return new Result(shortestPath, shortestPathGScores,
-                        getShortestPathScore(nodeWithLowestFScore, stateWithLowestFScore), numExpansions,
-                        expandedNodes);
-            }
+        SearchStats.Outcome outcome = null;
+        double lowestFScore = 0;
+
+        try {
+            while (!openList.isEmpty()) {
+                final int stateWithLowestFScore = openList.poll();
+                lowestFScore = context.getFScore(stateWithLowestFScore);
+                if (context.getTargets(stateWithLowestFScore) == 0) { // No remaining targets: all targets visited.
+                    final long reconstructStart = context.isTimed() ? System.nanoTime() : 0;
+                    context.setGoalState(stateWithLowestFScore);
+                    final Result result = new Result(reconstructPath(graph, stateWithLowestFScore, context),
+                            reconstructShortestPathGScores(stateWithLowestFScore, context),
+                            context.getFScore(stateWithLowestFScore), numExpansions, expandedNodes);
+                    outcome = SearchStats.Outcome.FOUND;
+                    if (context.isTimed()) {
+                        final long end = System.nanoTime();
+                        listener.onSearchEnded(new SearchStats(outcome, context, numExpansions,
+                                reconstructStart - expandStart, end - reconstructStart));
+                    }
+                    return result;
+                }
 
-            stateWithLowestFScore.visited = true;
-            ++numExpansions;
-            expandedNodes.add(nodeWithLowestFScore);
-            for (final Edge neighborEdge : nodeWithLowestFScore.getIncidentEdges()) {
-                final Node neighborNode = neighborEdge.getToNode();
-                final String neighborPrefix = neighborNode.computePrefix(stateWithLowestFScore.prefix);
-                final Node.State neighborState = neighborNode.getStateByPrefix(neighborPrefix);
-                if (neighborState == null || !neighborState.visited) {
-                    neighborNode.updateGScoreFromPrevNode(nodeWithLowestFScore, stateWithLowestFScore.prefix, computer);
-                    unvisitedNodes.remove(neighborNode);
-                    unvisitedNodes.add(neighborNode);
+                if (pruneDominated) {
+                    final DominanceFrontier frontier = context.getDominanceFrontier();
+                    final int nodeId = context.getNodeId(stateWithLowestFScore);
+                    final long targets = context.getTargets(stateWithLowestFScore);
+                    final double gScore = context.getGScore(stateWithLowestFScore);
+                    final double maxWaitingTime = context.getMaxWaitingTime(stateWithLowestFScore);
+                    if (frontier.isDominated(nodeId, targets, gScore, maxWaitingTime)) {
+                        // Generated before the state dominating it was expanded.
+                        context.countStateDominated();
+                        continue;
+                    }
+                    frontier.add(nodeId, targets, gScore, maxWaitingTime);
                 }
+                context.setVisited(stateWithLowestFScore);
+                if (++numExpansions % SearchMonitor.CHECK_INTERVAL == 0) {
+                    monitor.check(numExpansions, openList.size(), context.getFScore(stateWithLowestFScore));
+                }
+                expandedNodes.add(graph.getNode(context.getNodeId(stateWithLowestFScore)));
+                relax(graph, computer, context, stateWithLowestFScore);
+                context.updatePeakOpenListSize();
             }
 
-            // Add the node back as it may have other valid unvisited states.
-            if (nodeWithLowestFScore.getMinFScoreState() != null) {
-                unvisitedNodes.add(nodeWithLowestFScore);
+            final Result upperBoundRoute = context.getUpperBoundRoute();
+            if (upperBoundRoute != null) {
+                // Every state that could have led to a cheaper route was pruned: the upper bound is optimal.
+                outcome = SearchStats.Outcome.FOUND;
+                if (context.isTimed()) {
+                    listener.onSearchEnded(new SearchStats(outcome, context, numExpansions,
+                            System.nanoTime() - expandStart, 0));
+                }
+                return new Result(upperBoundRoute.getShortestPath(), upperBoundRoute.getShortestPathGScores(),
+                        upperBoundRoute.getShortestPathCost(), numExpansions, expandedNodes);
+            }
+            outcome = SearchStats.Outcome.UNREACHABLE;
+            throw new UnreachableTargetsException(
+                    "Destinations not reachable from " + graph.getNodeName(context.getNodeId(0)));
+        } catch (final SearchTimeoutException e) {
+            outcome = SearchStats.Outcome.TIMED_OUT;
+            final Result upperBoundRoute = context.getUpperBoundRoute();
+            if (upperBoundRoute == null) {
+                throw e;
+            }
+            final double cost = upperBoundRoute.getShortestPathCost();
+            return new AnytimeSearch.Result(upperBoundRoute.getShortestPath(),
+                    upperBoundRoute.getShortestPathGScores(), cost, numExpansions, expandedNodes,
+                    lowestFScore >= cost ? 1 : lowestFScore > 0 ? cost / lowestFScore : Double.POSITIVE_INFINITY);
+        } catch (final CancellationException e) {
+            outcome = SearchStats.Outcome.CANCELLED;
+            throw e;
+        } finally {
+            if (outcome != null && outcome != SearchStats.Outcome.FOUND && context.isTimed()) {
+                listener.onSearchEnded(new SearchStats(outcome, context, numExpansions,
+                        System.nanoTime() - expandStart, 0));
             }
         }
-
-        throw new IllegalArgumentException("Destinations not reachable from " + sourceNode.getName());
     }
 
-    private double getShortestPathScore(final Node node, final Node.State nodeState) {
-        return nodeState.getFScore();
+    /**
+     * Relaxes every edge leaving the state's node, adding new or improved neighbour states to the open list.
+     * Neighbour states whose f-score is not below the context's upper bound are dropped, and with dominance pruning
+     * so are those that an expanded state at their node dominates.
+     * @param graph
+     * @param computer
+     * @param context
+     * @param state
+     */
+    void relax(final GraphSnapshot graph, final HScoreComputer computer, final SearchContext context,
+               final int state) {
+        final long targets = context.getTargets(state);
+        final int nodeId = context.getNodeId(state);
+        final double gScore = context.getGScore(state);
+        final double maxWaitingTime = context.getMaxWaitingTime(state);
+        final int endEdge = graph.getEndEdge(nodeId);
+        for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+            final int neighborNode = graph.getEdgeTarget(edge);
+            final long neighborTargets = context.computeTargets(neighborNode, targets);
+            int neighborState = context.findState(neighborNode, neighborTargets);
+            if (neighborState != SearchContext.NO_STATE && context.isVisited(neighborState)) {
+                continue;
+            }
+
+            final double gScoreFromPrevNode = gScore + graph.getEdgeWeight(edge);
+            if (neighborState != SearchContext.NO_STATE && gScoreFromPrevNode >= context.getGScore(neighborState)) {
+                continue;
+            }
+            final double neighborMaxWaitingTime = Math.max(
+                    gScoreFromPrevNode + graph.getAlreadyWaited(neighborNode), maxWaitingTime);
+            if (pruneDominated && context.getDominanceFrontier().isDominated(neighborNode, neighborTargets,
+                    gScoreFromPrevNode, neighborMaxWaitingTime)) {
+                context.countStateDominated();
+                continue;
+            }
+            final double hScore = neighborState == SearchContext.NO_STATE
+                    ? context.computeHScore(computer, neighborNode, neighborTargets)
+                    : context.getHScore(neighborState);
+            if (Math.max(gScoreFromPrevNode + hScore, neighborMaxWaitingTime) >= context.getUpperBound()) {
+                context.countStatePrunedByBound();
+                continue;
+            }
+            if (neighborState == SearchContext.NO_STATE) {
+                neighborState = context.addState(neighborNode, neighborTargets);
+                context.setHScore(neighborState, hScore);
+            } else {
+                context.countStateImproved();
+            }
+            context.setGScore(neighborState, gScoreFromPrevNode);
+            context.setMaxWaitingTime(neighborState, neighborMaxWaitingTime);
+            context.setPrevState(neighborState, state);
+            context.getOpenList().addOrUpdate(neighborState, context.getFScore(neighborState));
+        }
     }
 
-    private List<Node> reconstructPath(final Node node, final Node.State nodeState) {
+    static List<Node> reconstructPath(final GraphSnapshot graph, final int state, final SearchContext context) {
         final List<Node> path = new ArrayList<>();
 
-        Node currNode = node;
-        Node.State currState = nodeState;
-        while(currNode != null) {
-            path.add(0, currNode);
-            currNode = currState.prevNode;
-            currState = (currNode == null ? null : currNode.getStateByPrefix(currState.prevNodePrefix));
+        for (int currState = state; currState != SearchContext.NO_STATE; currState = context.getPrevState(currState)) {
+            path.add(graph.getNode(context.getNodeId(currState)));
         }
+        Collections.reverse(path);
 
         return path;
     }
 
-    private List<Double> reconstructShortestPathGScores(final Node node, final Node.State nodeState) {
+    static List<Double> reconstructShortestPathGScores(final int state, final SearchContext context) {
         final List<Double> shortestPathGScores = new ArrayList<>();
 
-        Node currNode = node;
-        Node.State currState = nodeState;
-        while(currNode != null) {
-            shortestPathGScores.add(0, currState.gScore);
-            currNode = currState.prevNode;
-            currState = (currNode == null ? null : currNode.getStateByPrefix(currState.prevNodePrefix));
+        for (int currState = state; currState != SearchContext.NO_STATE; currState = context.getPrevState(currState)) {
+            shortestPathGScores.add(context.getGScore(currState));
         }
+        Collections.reverse(shortestPathGScores);
 
         return shortestPathGScores;
     }
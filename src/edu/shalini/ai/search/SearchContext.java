@@ -0,0 +1,396 @@
+package edu.shalini.ai.search;
+
+import java.util.Arrays;
+
+/**
+ * Per-query search state, kept out of the map so that one WorldMap can serve many searches at once.
+ * A state is a (node, remaining targets) pair identified by a dense state id; its scores, parent and visited
+ * flag live in a StateStorage indexed by that id: flat arrays on the heap, or for an off-heap context a StateArena, so
+ * that queries creating millions of states leave the collector nothing to trace or copy but the arena's two buffers.
+ * Target bits are kept in an array indexed by the dense node id.
+ * A context is reused across queries: reset only clears what the previous query touched, and replaces a storage the
+ * query grew past MAX_RETAINED_STATES, so that one large query does not pin its memory in an idle context.
+ */
+final class SearchContext {
+    static final int NO_STATE = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    // About 100 MB of states and index, on the heap or in an arena; a larger storage is reallocated by every query
+    // that needs it, which costs less than keeping it while the context is idle.
+    private static final int MAX_RETAINED_STATES = 1 << 21;
+
+    private long[] targetMaskByNode;
+    private int[] targetNodeIds;
+    private int noOfTargetNodes;
+
+    private final boolean offHeap;
+    private StateStorage states;
+    // Expanded states by node, for dominance pruning; created by the first search that prunes.
+    private DominanceFrontier dominanceFrontier;
+
+    private final OpenList openList;
+    private int goalState;
+    // Cost of a route known before the search, and that route; states with an f-score this high are not generated.
+    private double upperBound;
+    private Search.Result upperBoundRoute;
+
+    // Statistics of the current query, see SearchStats; the timings are only taken when timed.
+    private boolean timed;
+    private long startNanos;
+    private long prepareNanos;
+    private long hScoreNanos;
+    private int hScoreEvaluations;
+    private int statesImproved;
+    private int statesDominated;
+    private int statesPrunedByBound;
+    private int peakOpenListSize;
+    private int reusedExpansions;
+
+    SearchContext() {
+        this(false);
+    }
+
+    /**
+     * @param offHeap whether to keep the states in a StateArena rather than in arrays on the heap
+     */
+    SearchContext(final boolean offHeap) {
+        this.targetMaskByNode = new long[INITIAL_CAPACITY];
+        this.targetNodeIds = new int[Long.SIZE];
+        this.offHeap = offHeap;
+        this.states = createStorage(offHeap);
+        this.openList = new OpenList();
+        this.goalState = NO_STATE;
+        this.upperBound = Double.POSITIVE_INFINITY;
+    }
+
+    OpenList getOpenList() {
+        return openList;
+    }
+
+    void setTargetMask(final int nodeId, final long targetMask) {
+        if (nodeId >= targetMaskByNode.length) {
+            targetMaskByNode = Arrays.copyOf(targetMaskByNode, Math.max(2 * targetMaskByNode.length, nodeId + 1));
+        }
+        targetMaskByNode[nodeId] = targetMask;
+        targetNodeIds[noOfTargetNodes++] = nodeId;
+    }
+
+    int getNoOfTargets() {
+        return noOfTargetNodes;
+    }
+
+    /**
+     * @param bit
+     * @return id of the target node assigned the bit
+     */
+    int getTargetNodeId(final int bit) {
+        return targetNodeIds[bit];
+    }
+
+    long getTargetMask(final int nodeId) {
+        return nodeId < targetMaskByNode.length ? targetMaskByNode[nodeId] : 0L;
+    }
+
+    /**
+     * Remaining targets once the node is reached: its own bit, if any, is cleared.
+     * @param nodeId
+     * @param prevTargets
+     * @return
+     */
+    long computeTargets(final int nodeId, final long prevTargets) {
+        return prevTargets & ~getTargetMask(nodeId);
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    int findState(final int nodeId, final long stateTargets) {
+        return states.findState(nodeId, stateTargets);
+    }
+
+    /**
+     * Adds an unvisited state with no parent. The caller must have checked that it is not present yet.
+     * @param nodeId
+     * @param stateTargets
+     * @return its state id
+     */
+    int addState(final int nodeId, final long stateTargets) {
+        return states.addState(nodeId, stateTargets);
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    /**
+     * Starts timing the query, if timed.
+     * @param timed whether the h-score evaluations and phases of the query are timed
+     */
+    void startTiming(final boolean timed) {
+        startTiming(timed, timed ? System.nanoTime() : 0);
+    }
+
+    /**
+     * @param timed
+     * @param startNanos System.nanoTime at which the query started
+     */
+    void startTiming(final boolean timed, final long startNanos) {
+        this.timed = timed;
+        this.startNanos = startNanos;
+    }
+
+    boolean isTimed() {
+        return timed;
+    }
+
+    /**
+     * Ends the prepare phase, which began at startTiming.
+     * @return the current time, if timed
+     */
+    long endPrepare() {
+        if (!timed) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        prepareNanos = now - startNanos;
+        return now;
+    }
+
+    long getPrepareNanos() {
+        return prepareNanos;
+    }
+
+    /**
+     * @param computer
+     * @param nodeId
+     * @param stateTargets
+     * @return the computer's h-score, counted and, if timed, timed
+     */
+    double computeHScore(final HScoreComputer computer, final int nodeId, final long stateTargets) {
+        ++hScoreEvaluations;
+        if (!timed) {
+            return computer.computeHScore(nodeId, stateTargets);
+        }
+        final long start = System.nanoTime();
+        final double hScore = computer.computeHScore(nodeId, stateTargets);
+        hScoreNanos += System.nanoTime() - start;
+        return hScore;
+    }
+
+    long getHScoreNanos() {
+        return hScoreNanos;
+    }
+
+    int getHScoreEvaluations() {
+        return hScoreEvaluations;
+    }
+
+    void countStateImproved() {
+        ++statesImproved;
+    }
+
+    int getStatesImproved() {
+        return statesImproved;
+    }
+
+    /**
+     * Counts a state dropped because an expanded state at its node dominates it.
+     */
+    void countStateDominated() {
+        ++statesDominated;
+    }
+
+    int getStatesDominated() {
+        return statesDominated;
+    }
+
+    /**
+     * Counts a state dropped because its f-score is not below the upper bound.
+     */
+    void countStatePrunedByBound() {
+        ++statesPrunedByBound;
+    }
+
+    int getStatesPrunedByBound() {
+        return statesPrunedByBound;
+    }
+
+    void updatePeakOpenListSize() {
+        peakOpenListSize = Math.max(peakOpenListSize, openList.size());
+    }
+
+    int getPeakOpenListSize() {
+        return peakOpenListSize;
+    }
+
+    void setReusedExpansions(final int reusedExpansions) {
+        this.reusedExpansions = reusedExpansions;
+    }
+
+    int getReusedExpansions() {
+        return reusedExpansions;
+    }
+
+    /**
+     * @return bytes taken by the per-state arrays and their index, or by the arena, and by the dominance frontier, as
+     *         allocated; the open list is not included
+     */
+    long getMemoryBytes() {
+        long bytes = (long) Long.BYTES * targetMaskByNode.length;
+        if (dominanceFrontier != null) {
+            bytes += dominanceFrontier.getMemoryBytes();
+        }
+        return bytes + states.getMemoryBytes();
+    }
+
+    /**
+     * @return the frontier of the states expanded so far, created on first use
+     */
+    DominanceFrontier getDominanceFrontier() {
+        if (dominanceFrontier == null) {
+            dominanceFrontier = new DominanceFrontier();
+        }
+        return dominanceFrontier;
+    }
+
+    /**
+     * @return the state the last search ended in, or NO_STATE
+     */
+    int getGoalState() {
+        return goalState;
+    }
+
+    void setGoalState(final int goalState) {
+        this.goalState = goalState;
+    }
+
+    /**
+     * @param upperBoundRoute a route visiting every target, e.g. a GreedyTour
+     */
+    void setUpperBoundRoute(final Search.Result upperBoundRoute) {
+        this.upperBound = upperBoundRoute.getShortestPathCost();
+        this.upperBoundRoute = upperBoundRoute;
+    }
+
+    /**
+     * @return the cost of the upper bound route, or infinity if there is none
+     */
+    double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return the route set with setUpperBoundRoute, or null
+     */
+    Search.Result getUpperBoundRoute() {
+        return upperBoundRoute;
+    }
+
+    int getNodeId(final int stateId) {
+        return states.getNodeId(stateId);
+    }
+
+    long getTargets(final int stateId) {
+        return states.getTargets(stateId);
+    }
+
+    double getGScore(final int stateId) {
+        return states.getGScore(stateId);
+    }
+
+    void setGScore(final int stateId, final double gScore) {
+        states.setGScore(stateId, gScore);
+    }
+
+    double getHScore(final int stateId) {
+        return states.getHScore(stateId);
+    }
+
+    void setHScore(final int stateId, final double hScore) {
+        states.setHScore(stateId, hScore);
+    }
+
+    double getMaxWaitingTime(final int stateId) {
+        return states.getMaxWaitingTime(stateId);
+    }
+
+    void setMaxWaitingTime(final int stateId, final double maxWaitingTime) {
+        states.setMaxWaitingTime(stateId, maxWaitingTime);
+    }
+
+    double getFScore(final int stateId) {
+        return Math.max(states.getGScore(stateId) + states.getHScore(stateId), states.getMaxWaitingTime(stateId));
+    }
+
+    int getPrevState(final int stateId) {
+        return states.getPrevState(stateId);
+    }
+
+    void setPrevState(final int stateId, final int prevStateId) {
+        states.setPrevState(stateId, prevStateId);
+    }
+
+    boolean isVisited(final int stateId) {
+        return states.isVisited(stateId);
+    }
+
+    void setVisited(final int stateId) {
+        states.setVisited(stateId, true);
+    }
+
+    /**
+     * Reopens an expanded state, e.g. after a cheaper path to it was found by a search that does not expand states
+     * in f-score order.
+     * @param stateId
+     */
+    void clearVisited(final int stateId) {
+        states.setVisited(stateId, false);
+    }
+
+    /**
+     * Forgets the previous query in time proportional to what it touched.
+     */
+    void reset() {
+        for (int i = 0; i < noOfTargetNodes; ++i) {
+            targetMaskByNode[targetNodeIds[i]] = 0L;
+        }
+        noOfTargetNodes = 0;
+
+        if (states.getCapacity() > MAX_RETAINED_STATES) {
+            // Dropping an arena leaves its direct memory to be freed by the next collection.
+            states = createStorage(offHeap);
+        } else {
+            states.clear();
+        }
+        if (dominanceFrontier != null) {
+            dominanceFrontier.clear();
+        }
+
+        openList.clear();
+        goalState = NO_STATE;
+        upperBound = Double.POSITIVE_INFINITY;
+        upperBoundRoute = null;
+
+        timed = false;
+        prepareNanos = 0;
+        hScoreNanos = 0;
+        hScoreEvaluations = 0;
+        statesImproved = 0;
+        statesDominated = 0;
+        statesPrunedByBound = 0;
+        peakOpenListSize = 0;
+        reusedExpansions = 0;
+    }
+
+    private static StateStorage createStorage(final boolean offHeap) {
+        return offHeap ? new StateArena(INITIAL_CAPACITY) : new HeapStateStorage(INITIAL_CAPACITY);
+    }
+
+    static int hash(final int nodeId, final long stateTargets) {
+        long h = stateTargets * 0x9E3779B97F4A7C15L + nodeId;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
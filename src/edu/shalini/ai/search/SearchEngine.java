@@ -0,0 +1,64 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+/**
+ * A solver for the multi-target routing problem: the route from the source through every target that minimises
+ * max(route length, max over visited nodes of arrival time + alreadyWaited).
+ */
+public interface SearchEngine {
+    /**
+     * @param graph
+     * @param sourceNodeId
+     * @param targetNodeIds distinct target node ids
+     * @param monitor
+     * @return
+     * @throws UnreachableTargetsException if some target cannot be reached from the source
+     */
+    Search.Result findShortestPath(GraphSnapshot graph, int sourceNodeId, int[] targetNodeIds,
+                                   SearchMonitor monitor);
+
+    /**
+     * @param heuristic
+     * @return an engine running Search's A* with a new computer of the given heuristic per query
+     */
+    static SearchEngine aStar(final Heuristic heuristic) {
+        final Search search = new Search();
+        return (graph, sourceNodeId, targetNodeIds, monitor) -> search.findShortestPath(graph, sourceNodeId,
+                targetNodeIds, heuristic.createComputer(), monitor);
+    }
+
+    /**
+     * @param heuristic
+     * @param weight heuristic weight of the first pass, at least 1
+     * @return an engine running AnytimeSearch, which returns the best route found so far when the monitor's deadline
+     * passes
+     */
+    static SearchEngine anytimeAStar(final Heuristic heuristic, final double weight) {
+        final AnytimeSearch search = new AnytimeSearch(weight);
+        return (graph, sourceNodeId, targetNodeIds, monitor) -> search.findShortestPath(graph, sourceNodeId,
+                targetNodeIds, heuristic.createComputer(), monitor, null);
+    }
+
+    /**
+     * @param heuristic
+     * @param maxStates most states kept in the transposition table
+     * @return an engine running MemoryBoundedSearch
+     */
+    static SearchEngine memoryBounded(final Heuristic heuristic, final int maxStates) {
+        final MemoryBoundedSearch search = new MemoryBoundedSearch(maxStates);
+        return (graph, sourceNodeId, targetNodeIds, monitor) -> search.findShortestPath(graph, sourceNodeId,
+                targetNodeIds, heuristic.createComputer(), monitor);
+    }
+
+    /**
+     * @param heuristic
+     * @param noOfThreads number of workers searching each query
+     * @return an engine running ParallelSearch, with a new computer of the given heuristic per worker
+     */
+    static SearchEngine parallelAStar(final Heuristic heuristic, final int noOfThreads) {
+        final ParallelSearch search = new ParallelSearch(noOfThreads);
+        return (graph, sourceNodeId, targetNodeIds, monitor) -> search.findShortestPath(graph, sourceNodeId,
+                targetNodeIds, heuristic::createComputer, monitor);
+    }
+}
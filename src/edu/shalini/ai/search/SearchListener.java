@@ -0,0 +1,32 @@
+package edu.shalini.ai.search;
+
+/**
+ * Told about every search a Search runs, once it has ended, on the searching thread.
+ * Statistics are only gathered when a Search has a listener other than NONE, so a Search without one pays no more
+ * than a few counter increments.
+ */
+public interface SearchListener {
+    /**
+     * Listener that ignores every search; timing is skipped entirely for it.
+     */
+    SearchListener NONE = stats -> {
+    };
+
+    /**
+     * @param stats
+     */
+    void onSearchEnded(SearchStats stats);
+
+    /**
+     * @param listeners
+     * @return a listener telling all the given ones, in order
+     */
+    static SearchListener compose(final SearchListener... listeners) {
+        final SearchListener[] copy = listeners.clone();
+        return stats -> {
+            for (final SearchListener listener : copy) {
+                listener.onSearchEnded(stats);
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package edu.shalini.ai.search;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets one search be cancelled from another thread, gives it a deadline and reports its progress.
+ * The search checks its monitor every CHECK_INTERVAL expansions, and between the Dijkstras and other steps of its
+ * preparation, so it stops shortly after cancel is called or the deadline passes, by throwing a CancellationException
+ * or a SearchTimeoutException respectively.
+ */
+public class SearchMonitor {
+    static final int CHECK_INTERVAL = 256;
+
+    /**
+     * Monitor of searches that are never cancelled and have no deadline; it is shared, so cancel does nothing.
+     */
+    public static final SearchMonitor NONE = new SearchMonitor(Long.MAX_VALUE, Long.MAX_VALUE, null) {
+        @Override
+        public void cancel() {
+        }
+    };
+
+    /**
+     * A search's state at one of its checks.
+     */
+    public static class Progress {
+        private final int numExpansions;
+        private final int openListSize;
+        private final double bestFScore;
+
+        public Progress(final int numExpansions, final int openListSize, final double bestFScore) {
+            this.numExpansions = numExpansions;
+            this.openListSize = openListSize;
+            this.bestFScore = bestFScore;
+        }
+
+        public int getNumExpansions() {
+            return numExpansions;
+        }
+
+        public int getOpenListSize() {
+            return openListSize;
+        }
+
+        /**
+         * @return FScore of the state expanded last, which no path found from here on can beat
+         */
+        public double getBestFScore() {
+            return bestFScore;
+        }
+    }
+
+    public interface ProgressListener {
+        /**
+         * Called on the searching thread.
+         * @param progress
+         */
+        void onProgress(Progress progress);
+    }
+
+    private final long deadline;
+    private final long progressPeriod;
+    private final ProgressListener listener;
+    private volatile boolean cancelled;
+    private long lastProgressTime;
+
+    /**
+     * @param timeoutMillis time from now after which the search gives up
+     * @param progressPeriodMillis least time between two progress reports
+     * @param listener told about the progress; may be null
+     */
+    public SearchMonitor(final long timeoutMillis, final long progressPeriodMillis, final ProgressListener listener) {
+        final long now = System.nanoTime();
+        this.deadline = timeoutMillis >= TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE - now)
+                ? Long.MAX_VALUE : now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.progressPeriod = TimeUnit.MILLISECONDS.toNanos(Math.min(progressPeriodMillis,
+                TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE)));
+        this.listener = listener;
+        this.cancelled = false;
+        this.lastProgressTime = now;
+    }
+
+    /**
+     * Asks the search to stop. May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * May be called from any thread, e.g. by tasks that cannot throw to the searching thread.
+     * @return whether the search was cancelled or its deadline has passed
+     */
+    boolean isStopped() {
+        return cancelled || deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Called between the steps of work done before the first expansion, such as the Dijkstras of a prepare.
+     */
+    void check() {
+        if (cancelled) {
+            throw new CancellationException("Search cancelled while preparing.");
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new SearchTimeoutException("Search timed out while preparing.");
+        }
+    }
+
+    /**
+     * Called by the search every CHECK_INTERVAL expansions.
+     * @param numExpansions
+     * @param openListSize
+     * @param bestFScore
+     */
+    void check(final int numExpansions, final int openListSize, final double bestFScore) {
+        if (cancelled) {
+            throw new CancellationException("Search cancelled after " + numExpansions + " expansions.");
+        }
+        if (deadline == Long.MAX_VALUE && listener == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (deadline != Long.MAX_VALUE && now - deadline > 0) {
+            throw new SearchTimeoutException("Search timed out after " + numExpansions + " expansions.");
+        }
+        if (listener != null && now - lastProgressTime >= progressPeriod) {
+            lastProgressTime = now;
+            listener.onProgress(new Progress(numExpansions, openListSize, bestFScore));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package edu.shalini.ai.search;
+
+/**
+ * What one search did and where its time went. Only gathered for a Search given a listener other than
+ * SearchListener.NONE.
+ */
+public class SearchStats {
+    public enum Outcome {
+        FOUND, UNREACHABLE, CANCELLED, TIMED_OUT
+    }
+
+    private final Outcome outcome;
+    private final int noOfTargets;
+    private final int numExpansions;
+    private final int reusedExpansions;
+    private final int statesGenerated;
+    private final int statesImproved;
+    private final int statesDominated;
+    private final int statesPrunedByBound;
+    private final int peakOpenListSize;
+    private final int hScoreEvaluations;
+    private final long prepareNanos;
+    private final long expandNanos;
+    private final long hScoreNanos;
+    private final long reconstructNanos;
+
+    SearchStats(final Outcome outcome, final SearchContext context, final int numExpansions,
+                final long expandNanos, final long reconstructNanos) {
+        this.outcome = outcome;
+        this.noOfTargets = context.getNoOfTargets();
+        this.numExpansions = numExpansions;
+        this.reusedExpansions = context.getReusedExpansions();
+        this.statesGenerated = context.size();
+        this.statesImproved = context.getStatesImproved();
+        this.statesDominated = context.getStatesDominated();
+        this.statesPrunedByBound = context.getStatesPrunedByBound();
+        this.peakOpenListSize = context.getPeakOpenListSize();
+        this.hScoreEvaluations = context.getHScoreEvaluations();
+        this.prepareNanos = context.getPrepareNanos();
+        this.expandNanos = expandNanos;
+        this.hScoreNanos = context.getHScoreNanos();
+        this.reconstructNanos = reconstructNanos;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getNoOfTargets() {
+        return noOfTargets;
+    }
+
+    public int getNumExpansions() {
+        return numExpansions;
+    }
+
+    /**
+     * @return expanded states an IncrementalSearch took over from its previous search
+     */
+    public int getReusedExpansions() {
+        return reusedExpansions;
+    }
+
+    public int getStatesGenerated() {
+        return statesGenerated;
+    }
+
+    /**
+     * @return times a state already on the open list was reached with a lower g-score
+     */
+    public int getStatesImproved() {
+        return statesImproved;
+    }
+
+    /**
+     * @return states dropped, when generated or polled, because an expanded state at their node dominated them
+     */
+    public int getStatesDominated() {
+        return statesDominated;
+    }
+
+    /**
+     * @return states not generated because their f-score was not below the upper bound
+     */
+    public int getStatesPrunedByBound() {
+        return statesPrunedByBound;
+    }
+
+    public int getPeakOpenListSize() {
+        return peakOpenListSize;
+    }
+
+    public int getHScoreEvaluations() {
+        return hScoreEvaluations;
+    }
+
+    /**
+     * @return time spent before the first expansion: preparing the heuristic, or repairing the previous search tree
+     */
+    public long getPrepareNanos() {
+        return prepareNanos;
+    }
+
+    /**
+     * @return time spent expanding states, including the h-score evaluations of the states generated meanwhile
+     */
+    public long getExpandNanos() {
+        return expandNanos;
+    }
+
+    /**
+     * @return time spent evaluating h-scores in either phase; the first evaluation of a query often prepares a cache
+     * and falls in the prepare phase
+     */
+    public long getHScoreNanos() {
+        return hScoreNanos;
+    }
+
+    public long getReconstructNanos() {
+        return reconstructNanos;
+    }
+
+    public long getTotalNanos() {
+        return prepareNanos + expandNanos + reconstructNanos;
+    }
+}
@@ -0,0 +1,14 @@
+package edu.shalini.ai.search;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown when a search is still running at its SearchMonitor's deadline.
+ */
+public class SearchTimeoutException extends CancellationException {
+    private static final long serialVersionUID = 1L;
+
+    public SearchTimeoutException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * Single-source shortest path distances (Dijkstra) on a graph snapshot.
+ */
+public class ShortestPaths {
+    private ShortestPaths() {
+    }
+
+    /**
+     * @param graph
+     * @param sourceNodeId
+     * @return distance from the source to every node, indexed by node id; unreachable nodes are infinite
+     */
+    public static double[] computeDistances(final GraphSnapshot graph, final int sourceNodeId) {
+        return computeDistances(graph, sourceNodeId, null);
+    }
+
+    /**
+     * @param graph
+     * @param sourceNodeId
+     * @param prevNodeIds if not null, filled with the predecessor of every node on its shortest path, or -1
+     * @return distance from the source to every node, indexed by node id; unreachable nodes are infinite
+     */
+    public static double[] computeDistances(final GraphSnapshot graph, final int sourceNodeId,
+                                            final int[] prevNodeIds) {
+        return computeDistances(graph, sourceNodeId, prevNodeIds, null);
+    }
+
+    /**
+     * Like computeDistances, but stops once every stop node is settled. Only the distances and predecessors of
+     * settled nodes are final then; the others may still be too high.
+     * @param graph
+     * @param sourceNodeId
+     * @param prevNodeIds if not null, filled with the predecessor of every node on its shortest path, or -1
+     * @param stopNodeIds distinct node ids; if null, every node is settled
+     * @return distance from the source to every node, indexed by node id; unreached nodes are infinite
+     */
+    public static double[] computeDistances(final GraphSnapshot graph, final int sourceNodeId,
+                                            final int[] prevNodeIds, final int[] stopNodeIds) {
+        final double[] distances = new double[graph.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        if (prevNodeIds != null) {
+            Arrays.fill(prevNodeIds, -1);
+        }
+        final boolean[] settled = new boolean[graph.getNodeCount()];
+        final OpenList openList = new OpenList();
+        final boolean[] isStopNode = new boolean[stopNodeIds != null ? graph.getNodeCount() : 0];
+        int noOfStopNodesLeft = 0;
+        if (stopNodeIds != null) {
+            for (final int stopNodeId : stopNodeIds) {
+                isStopNode[stopNodeId] = true;
+            }
+            noOfStopNodesLeft = stopNodeIds.length;
+        }
+
+        distances[sourceNodeId] = 0;
+        openList.addOrUpdate(sourceNodeId, 0);
+        while (!openList.isEmpty()) {
+            final int nodeId = openList.poll();
+            settled[nodeId] = true;
+            if (stopNodeIds != null && isStopNode[nodeId] && --noOfStopNodesLeft == 0) {
+                break;
+            }
+            final int endEdge = graph.getEndEdge(nodeId);
+            for (int edge = graph.getFirstEdge(nodeId); edge < endEdge; ++edge) {
+                final int neighborNodeId = graph.getEdgeTarget(edge);
+                final double distance = distances[nodeId] + graph.getEdgeWeight(edge);
+                if (!settled[neighborNodeId] && distance < distances[neighborNodeId]) {
+                    distances[neighborNodeId] = distance;
+                    if (prevNodeIds != null) {
+                        prevNodeIds[neighborNodeId] = nodeId;
+                    }
+                    openList.addOrUpdate(neighborNodeId, distance);
+                }
+            }
+        }
+        return distances;
+    }
+}
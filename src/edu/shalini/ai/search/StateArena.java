@@ -0,0 +1,203 @@
+package edu.shalini.ai.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap storage for the states of a SearchContext: fixed-width records in a direct ByteBuffer, indexed by an
+ * open-addressing table of state id + 1 in a second one. Each record holds
+ * <pre>
+ * node id | visited (int, the visited flag in its sign bit), parent state (int), targets (long),
+ * g-score, h-score, max waiting time (double)
+ * </pre>
+ * The collector only sees the two buffer objects, however many states a query creates. Clearing keeps the buffers
+ * for the next query; they are released when the arena becomes unreachable, as SearchContext lets one that grew
+ * too large become.
+ */
+final class StateArena implements StateStorage {
+    static final int RECORD_BYTES = 40;
+
+    private static final int NODE_ID_OFFSET = 0;
+    private static final int PREV_STATE_OFFSET = 4;
+    private static final int TARGETS_OFFSET = 8;
+    private static final int GSCORE_OFFSET = 16;
+    private static final int HSCORE_OFFSET = 24;
+    private static final int MAX_WAITING_TIME_OFFSET = 32;
+    private static final int VISITED_BIT = Integer.MIN_VALUE;
+    // Direct buffers are indexed by int, which limits an arena to this many states.
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / RECORD_BYTES);
+
+    private ByteBuffer records;
+    private ByteBuffer index;
+    private int capacity;
+    private int noOfStates;
+
+    /**
+     * @param capacity initial number of states, a power of two
+     */
+    StateArena(final int capacity) {
+        this.capacity = capacity;
+        this.records = allocate(capacity * RECORD_BYTES);
+        // Kept at most half full, as SearchContext's own index.
+        this.index = allocate(2 * capacity * Integer.BYTES);
+    }
+
+    @Override
+    public int findState(final int nodeId, final long stateTargets) {
+        final int mask = 2 * capacity - 1;
+        for (int slot = SearchContext.hash(nodeId, stateTargets) & mask; ; slot = (slot + 1) & mask) {
+            final int stateId = index.getInt(slot * Integer.BYTES) - 1;
+            if (stateId == SearchContext.NO_STATE) {
+                return SearchContext.NO_STATE;
+            }
+            if (getNodeId(stateId) == nodeId && getTargets(stateId) == stateTargets) {
+                return stateId;
+            }
+        }
+    }
+
+    @Override
+    public int addState(final int nodeId, final long stateTargets) {
+        if (noOfStates == capacity) {
+            grow();
+        }
+        final int stateId = noOfStates++;
+        final int offset = stateId * RECORD_BYTES;
+        records.putInt(offset + NODE_ID_OFFSET, nodeId);
+        records.putInt(offset + PREV_STATE_OFFSET, SearchContext.NO_STATE);
+        records.putLong(offset + TARGETS_OFFSET, stateTargets);
+        records.putDouble(offset + GSCORE_OFFSET, Double.MAX_VALUE);
+        records.putDouble(offset + HSCORE_OFFSET, Double.MAX_VALUE);
+        records.putDouble(offset + MAX_WAITING_TIME_OFFSET, 0.0);
+        insertIntoIndex(stateId, SearchContext.hash(nodeId, stateTargets));
+        return stateId;
+    }
+
+    @Override
+    public int size() {
+        return noOfStates;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Forgets every state at once: the records are dropped as a whole, and only the index slots they took are
+     * cleared.
+     */
+    @Override
+    public void clear() {
+        // Later insertions may have probed past earlier ones, so unlink them first.
+        final int mask = 2 * capacity - 1;
+        for (int stateId = noOfStates - 1; stateId >= 0; --stateId) {
+            int slot = SearchContext.hash(getNodeId(stateId), getTargets(stateId)) & mask;
+            while (index.getInt(slot * Integer.BYTES) != stateId + 1) {
+                slot = (slot + 1) & mask;
+            }
+            index.putInt(slot * Integer.BYTES, 0);
+        }
+        noOfStates = 0;
+    }
+
+    /**
+     * @return bytes of direct memory taken by the records and the index
+     */
+    @Override
+    public long getMemoryBytes() {
+        return (long) capacity * RECORD_BYTES + 2L * capacity * Integer.BYTES;
+    }
+
+    @Override
+    public int getNodeId(final int stateId) {
+        return records.getInt(stateId * RECORD_BYTES + NODE_ID_OFFSET) & ~VISITED_BIT;
+    }
+
+    @Override
+    public long getTargets(final int stateId) {
+        return records.getLong(stateId * RECORD_BYTES + TARGETS_OFFSET);
+    }
+
+    @Override
+    public double getGScore(final int stateId) {
+        return records.getDouble(stateId * RECORD_BYTES + GSCORE_OFFSET);
+    }
+
+    @Override
+    public void setGScore(final int stateId, final double gScore) {
+        records.putDouble(stateId * RECORD_BYTES + GSCORE_OFFSET, gScore);
+    }
+
+    @Override
+    public double getHScore(final int stateId) {
+        return records.getDouble(stateId * RECORD_BYTES + HSCORE_OFFSET);
+    }
+
+    @Override
+    public void setHScore(final int stateId, final double hScore) {
+        records.putDouble(stateId * RECORD_BYTES + HSCORE_OFFSET, hScore);
+    }
+
+    @Override
+    public double getMaxWaitingTime(final int stateId) {
+        return records.getDouble(stateId * RECORD_BYTES + MAX_WAITING_TIME_OFFSET);
+    }
+
+    @Override
+    public void setMaxWaitingTime(final int stateId, final double maxWaitingTime) {
+        records.putDouble(stateId * RECORD_BYTES + MAX_WAITING_TIME_OFFSET, maxWaitingTime);
+    }
+
+    @Override
+    public int getPrevState(final int stateId) {
+        return records.getInt(stateId * RECORD_BYTES + PREV_STATE_OFFSET);
+    }
+
+    @Override
+    public void setPrevState(final int stateId, final int prevStateId) {
+        records.putInt(stateId * RECORD_BYTES + PREV_STATE_OFFSET, prevStateId);
+    }
+
+    @Override
+    public boolean isVisited(final int stateId) {
+        return (records.getInt(stateId * RECORD_BYTES + NODE_ID_OFFSET) & VISITED_BIT) != 0;
+    }
+
+    @Override
+    public void setVisited(final int stateId, final boolean visited) {
+        final int offset = stateId * RECORD_BYTES + NODE_ID_OFFSET;
+        final int nodeId = records.getInt(offset) & ~VISITED_BIT;
+        records.putInt(offset, visited ? nodeId | VISITED_BIT : nodeId);
+    }
+
+    private void insertIntoIndex(final int stateId, final int hash) {
+        final int mask = 2 * capacity - 1;
+        int slot = hash & mask;
+        while (index.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slot * Integer.BYTES, stateId + 1);
+    }
+
+    private void grow() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("More than " + MAX_CAPACITY + " states.");
+        }
+        final ByteBuffer oldRecords = records;
+        capacity *= 2;
+        records = allocate(capacity * RECORD_BYTES);
+        oldRecords.position(0);
+        oldRecords.limit(noOfStates * RECORD_BYTES);
+        records.put(oldRecords);
+        // The old index cannot be reused at the new size; the records tell where every state goes.
+        index = allocate(2 * capacity * Integer.BYTES);
+        for (int stateId = 0; stateId < noOfStates; ++stateId) {
+            insertIntoIndex(stateId, SearchContext.hash(getNodeId(stateId), getTargets(stateId)));
+        }
+    }
+
+    private static ByteBuffer allocate(final int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,41 @@
+package edu.shalini.ai.search;
+
+/**
+ * The state lookup a search does on every relaxation, on its own: the targets left once a node is reached, and the
+ * state of that node and those targets, found in a SearchContext. Lets benchmarks time the lookup apart from a search.
+ */
+public final class StateIndex {
+    private final SearchContext context;
+
+    /**
+     * @param targetNodeIds distinct target node ids
+     * @param offHeap whether to keep the states in direct memory, as Search does when asked to
+     */
+    public StateIndex(final int[] targetNodeIds, final boolean offHeap) {
+        this.context = new SearchContext(offHeap);
+        Search.assignTargetBits(targetNodeIds, context);
+    }
+
+    /**
+     * @param nodeId
+     * @param targets remaining targets, one bit per target in the order given
+     * @return the id of the state, added if it was not present
+     */
+    public int addState(final int nodeId, final long targets) {
+        final int stateId = context.findState(nodeId, targets);
+        return stateId != SearchContext.NO_STATE ? stateId : context.addState(nodeId, targets);
+    }
+
+    /**
+     * @param nodeId a node reached from a state with the given targets
+     * @param prevTargets
+     * @return the id of the node's state, or -1 if it was not added
+     */
+    public int findState(final int nodeId, final long prevTargets) {
+        return context.findState(nodeId, context.computeTargets(nodeId, prevTargets));
+    }
+
+    public int size() {
+        return context.size();
+    }
+}
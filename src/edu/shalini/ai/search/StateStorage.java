@@ -0,0 +1,64 @@
+package edu.shalini.ai.search;
+
+/**
+ * Where a SearchContext keeps its states: the node id, remaining targets, scores, parent and visited flag of each,
+ * by dense state id, and an index from (node id, targets) to state id. A context picks its storage once, when it is
+ * created, so its accessors do not test which one they are using.
+ */
+interface StateStorage {
+    /**
+     * @param nodeId
+     * @param stateTargets
+     * @return the id of the state, or SearchContext.NO_STATE
+     */
+    int findState(int nodeId, long stateTargets);
+
+    /**
+     * Adds an unvisited state with no parent. The caller must have checked that it is not present yet.
+     * @param nodeId
+     * @param stateTargets
+     * @return its state id
+     */
+    int addState(int nodeId, long stateTargets);
+
+    int size();
+
+    /**
+     * @return states held without growing
+     */
+    int getCapacity();
+
+    /**
+     * Forgets every state in time proportional to their number; the storage keeps its capacity.
+     */
+    void clear();
+
+    /**
+     * @return bytes taken by the states and their index, as allocated
+     */
+    long getMemoryBytes();
+
+    int getNodeId(int stateId);
+
+    long getTargets(int stateId);
+
+    double getGScore(int stateId);
+
+    void setGScore(int stateId, double gScore);
+
+    double getHScore(int stateId);
+
+    void setHScore(int stateId, double hScore);
+
+    double getMaxWaitingTime(int stateId);
+
+    void setMaxWaitingTime(int stateId, double maxWaitingTime);
+
+    int getPrevState(int stateId);
+
+    void setPrevState(int stateId, int prevStateId);
+
+    boolean isVisited(int stateId);
+
+    void setVisited(int stateId, boolean visited);
+}
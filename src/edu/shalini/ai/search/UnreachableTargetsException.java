@@ -0,0 +1,12 @@
+package edu.shalini.ai.search;
+
+/**
+ * Thrown when a search cannot reach every target from the source.
+ */
+public class UnreachableTargetsException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public UnreachableTargetsException(final String message) {
+        super(message);
+    }
+}
@@ -2,12 +2,21 @@ package edu.shalini.ai.ui;
 
 import edu.shalini.ai.Constants;
 import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.map.WorldMapFile;
 import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchMonitor;
+import edu.shalini.ai.search.SearchTimeoutException;
+import edu.shalini.ai.search.UnreachableTargetsException;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class MainFrame extends JFrame {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(MainFrame.class.getName());
     private static final int MIN_NUMBER_OF_NODES = 2;
     private static final int MAX_NUMBER_OF_NODES = 500;
     private static final double DEFAULT_MIN_DISTANCE = 25;
@@ -48,7 +57,8 @@ public class MainFrame extends JFrame {
         generateMapPanel.add(createOptionsPanel());
         JButton generateMapButton = createGenerateMapButton();
         generateMapPanel.add(generateMapButton);
-        generateMapPanel.setLayout(new GridLayout(3, 1, 0, 10));
+        generateMapPanel.add(createMapFilePanel());
+        generateMapPanel.setLayout(new GridLayout(4, 1, 0, 10));
 
         leftPanel.add(generateMapPanel);
         leftPanel.add(createInstructionsPanel());
@@ -116,6 +126,49 @@ public class MainFrame extends JFrame {
         return generateMapButton;
     }
 
+    /**
+     * Buttons to save the current map to a WorldMap file and to load one in its place.
+     * @return
+     */
+    private JPanel createMapFilePanel() {
+        final JPanel mapFilePanel = new JPanel();
+        mapFilePanel.setLayout(new GridLayout(1, 2, 5, 0));
+        final JFileChooser fileChooser = new JFileChooser();
+
+        final JButton saveMapButton = new JButton("Save Map...");
+        saveMapButton.addActionListener(e -> {
+            if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                WorldMapFile.save(worldMapRendererPanel.getWorldMap(), fileChooser.getSelectedFile().toPath());
+            } catch (final IOException | IllegalArgumentException exception) {
+                JOptionPane.showMessageDialog(null, "Failed to save the map: " + exception.getMessage(),
+                        "Save failed", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+        mapFilePanel.add(saveMapButton);
+
+        final JButton loadMapButton = new JButton("Load Map...");
+        loadMapButton.addActionListener(e -> {
+            if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                final WorldMap worldMap = WorldMapFile.load(fileChooser.getSelectedFile().toPath());
+                clearResultLabels();
+                worldMapRendererPanel.replaceWorldMap(worldMap);
+                setSelectSourceNodeMode();
+            } catch (final IOException | IllegalArgumentException exception) {
+                JOptionPane.showMessageDialog(null, "Failed to load the map: " + exception.getMessage(),
+                        "Load failed", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+        mapFilePanel.add(loadMapButton);
+
+        return mapFilePanel;
+    }
+
     private JPanel createInstructionsPanel() {
         final JPanel instructionsPanel = new JPanel();
 
@@ -143,15 +196,42 @@ public class MainFrame extends JFrame {
         simulatePanel.add(algoSelectorPanel);
 
         //calls the required method to render the shortest pat once the simulate button is clicked
+        //The search runs in the background; clicking again restarts it.
         simulateButton.addActionListener(e -> {
             worldMapRendererPanel.restoreWorldMap();
-            try {
-                final Search.Result result = worldMapRendererPanel.paintShortestPath(algoBox.getSelectedIndex());
-                setResultLabels(result);
-            } catch (IllegalArgumentException ignored) {
-                JOptionPane.showMessageDialog(null, "At least one destination is not reachable!",
-                        "Destination not reachable", JOptionPane.WARNING_MESSAGE);
-            }
+            numExpansionsLabel.setText("Searching...");
+            maxWaitingTimeLabel.setText("");
+            worldMapRendererPanel.paintShortestPath(algoBox.getSelectedIndex(),
+                    new WorldMapRendererPanel.SimulationListener() {
+                        @Override
+                        public void onProgress(final SearchMonitor.Progress progress) {
+                            numExpansionsLabel.setText("Number of expansions: " + progress.getNumExpansions()
+                                    + " (open: " + progress.getOpenListSize() + ")");
+                            maxWaitingTimeLabel.setText(String.format("Best FScore so far: %.1f",
+                                    progress.getBestFScore()));
+                        }
+
+                        @Override
+                        public void onResult(final Search.Result result) {
+                            setResultLabels(result);
+                        }
+
+                        @Override
+                        public void onFailure(final Exception exception) {
+                            clearResultLabels();
+                            if (exception instanceof SearchTimeoutException) {
+                                JOptionPane.showMessageDialog(null, "The search took too long and was stopped!",
+                                        "Search timed out", JOptionPane.WARNING_MESSAGE);
+                            } else if (exception instanceof UnreachableTargetsException) {
+                                JOptionPane.showMessageDialog(null, "At least one destination is not reachable!",
+                                        "Destination not reachable", JOptionPane.WARNING_MESSAGE);
+                            } else {
+                                LOGGER.log(Level.SEVERE, "Search failed", exception);
+                                JOptionPane.showMessageDialog(null, "The search failed: " + exception.getMessage(),
+                                        "Search failed", JOptionPane.ERROR_MESSAGE);
+                            }
+                        }
+                    });
         });
         simulatePanel.add(simulateButton);
         simulatePanel.add(numExpansionsLabel);
@@ -161,7 +241,9 @@ public class MainFrame extends JFrame {
     }
 
     public void setResultLabels(final Search.Result result) {
-        numExpansionsLabel.setText("Number of expansions: " + result.getNumExpansions());
+        final int reusedExpansions = worldMapRendererPanel.getReusedExpansions();
+        numExpansionsLabel.setText("Number of expansions: " + result.getNumExpansions()
+                + (reusedExpansions > 0 ? " (" + reusedExpansions + " reused)" : ""));
         maxWaitingTimeLabel.setText("Maximum Waiting Time (s): " + result.getShortestPathCost());
     }
 
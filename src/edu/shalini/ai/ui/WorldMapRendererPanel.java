@@ -10,29 +10,73 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.Timer;
 
 /**
  * This class serves to simulate a map. It render a set of clickable nodes connected by edges.
  * Initially, a node that is clicked serves as the source node. The subsequent clicks on nodes
- * makes them target nodes.
+ * makes them target nodes. Dragging pans the map and the mouse wheel zooms it.
  */
-public class WorldMapRendererPanel extends JPanel implements MouseListener {
+public class WorldMapRendererPanel extends JPanel implements MouseListener, MouseMotionListener, MouseWheelListener {
+    private static final long serialVersionUID = 1L;
     private static final int NODE_DIAMETER = 10;
     private static final Color NODE_COLOR = Color.BLACK;
     private static final Color SOURCE_NODE_COLOR = Color.GREEN;
     private static final Color TARGET_NODE_COLOR = Color.RED;
     private static final Color PATH_EDGE_COLOR = Color.BLUE;
     private static final Color EXPANDED_NODE_COLOR = Color.ORANGE;
+    private static final int HSCORE_CACHE_CAPACITY = 1 << 18;
+    private static final double ZOOM_STEP = 1.25;
+    private static final double MIN_SCALE = 1.0 / 1024;
+    private static final double MAX_SCALE = 64;
+    private static final int FIT_MARGIN = NODE_DIAMETER;
+    // Above this many visible nodes, the static layer draws nodes as small squares instead of circles and leaves out
+    // edges shorter than MIN_EDGE_LENGTH pixels, which would be hidden under the squares anyway.
+    private static final int DETAILED_NODE_LIMIT = 20000;
+    private static final int MIN_EDGE_LENGTH = 3;
+    private static final int REDRAW_DELAY_MS = 100;
+    private static final long SEARCH_TIMEOUT_MILLIS = 60000;
+    private static final long PROGRESS_PERIOD_MILLIS = 100;
 
     private WorldMap worldMap;
-    private String sourceNodeName;
-    private final Set<String> targetNodeNames;
+    // Node ids on worldMap; names are only shown, never looked up.
+    private int sourceNodeId;
+    private final Set<Integer> targetNodeIds;
     private List<Node> shortestPath;
     private List<Double> shortestPathGScores;
     private Set<Node> expandedNodes;
+    // One HScore cache per heuristic, kept across replans until the map is replaced.
+    private final HScoreCache[] hScoreCaches;
+    // Repairs the previous search when the driver has moved along its path.
+    private IncrementalSearch incrementalSearch;
+    // Searches run one at a time on this thread, so a cancelled one has stopped before the next one starts.
+    private final ExecutorService searchExecutor;
+    private SearchWorker searchWorker;
     private final MainFrame parentFrame;
+    // Nodes and edges as drawn for the view given by layerScale and layerOffset; null when the map changed since.
+    // While the view is being panned or zoomed, the layer is stretched to the new view and only redrawn once the
+    // view has been still for REDRAW_DELAY_MS.
+    private BufferedImage staticLayer;
+    private double layerScale;
+    private double layerOffsetX;
+    private double layerOffsetY;
+    private final Timer redrawTimer;
+    // screen = world * scale + offset
+    private double scale;
+    private double offsetX;
+    private double offsetY;
+    private Point lastDragPoint;
 
     /**
      * Panel instantiation
@@ -41,28 +85,51 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
     public WorldMapRendererPanel(final MainFrame parentFrame) {
         this.parentFrame = parentFrame;
         this.worldMap = WorldMap.createEmptyWorldMap();
-        this.sourceNodeName = null;
-        this.targetNodeNames = new HashSet<>();
+        this.sourceNodeId = -1;
+        this.targetNodeIds = new LinkedHashSet<>();
         this.shortestPath = new ArrayList<>();
         this.shortestPathGScores = new ArrayList<>();
         this.expandedNodes = new HashSet<>();
+        this.hScoreCaches = new HScoreCache[Heuristic.values().length];
+        this.incrementalSearch = new IncrementalSearch(worldMap.freeze());
+        this.searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scale = 1;
+        this.redrawTimer = new Timer(REDRAW_DELAY_MS, e -> {
+            staticLayer = null;
+            repaint();
+        });
+        this.redrawTimer.setRepeats(false);
 
         setPreferredSize(
                 new Dimension(Constants.WORLD_MAP_RENDER_PANEL_WIDTH, Constants.WORLD_MAP_RENDER_PANEL_HEIGHT));
         setBorder(BorderFactory.createLineBorder(Color.BLUE));
         addMouseListener(this);
+        addMouseMotionListener(this);
+        addMouseWheelListener(this);
     }
 
     public void replaceWorldMap(final WorldMap worldMap) {
+        cancelSimulation();
         this.worldMap = worldMap;
-        this.sourceNodeName = null;
-        this.targetNodeNames.clear();
+        this.sourceNodeId = -1;
+        this.targetNodeIds.clear();
         this.shortestPath.clear();
         this.shortestPathGScores.clear();
         this.expandedNodes.clear();
+        Arrays.fill(this.hScoreCaches, null);
+        this.incrementalSearch = new IncrementalSearch(worldMap.freeze());
+        fitView();
         repaint();
     }
 
+    public WorldMap getWorldMap() {
+        return worldMap;
+    }
+
     public void restoreWorldMap() {
         this.shortestPath.clear();
         this.shortestPathGScores.clear();
@@ -71,94 +138,279 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
     }
 
     /**
-     * Higlights the optimal path identified by the 3 HScore Computers.
+     * Told on the Event Dispatch Thread how a simulation started by paintShortestPath is doing.
+     */
+    public interface SimulationListener {
+        void onProgress(SearchMonitor.Progress progress);
+
+        void onResult(Search.Result result);
+
+        /**
+         * @param exception an UnreachableTargetsException if some target is unreachable, a SearchTimeoutException
+         *                  if the search ran out of time, or whatever else the search threw
+         */
+        void onFailure(Exception exception);
+    }
+
+    /**
+     * Runs one search on the search thread and highlights its path once it is done, unless it was superseded.
+     */
+    private class SearchWorker extends SwingWorker<Search.Result, SearchMonitor.Progress> {
+        private final IncrementalSearch incrementalSearch;
+        private final int sourceNodeId;
+        private final int[] targetNodeIds;
+        private final HScoreComputer computer;
+        private final SearchMonitor monitor;
+        private final SimulationListener listener;
+
+        SearchWorker(final IncrementalSearch incrementalSearch, final int sourceNodeId, final int[] targetNodeIds,
+                     final HScoreComputer computer, final SimulationListener listener) {
+            this.incrementalSearch = incrementalSearch;
+            this.sourceNodeId = sourceNodeId;
+            this.targetNodeIds = targetNodeIds;
+            this.computer = computer;
+            this.monitor = new SearchMonitor(SEARCH_TIMEOUT_MILLIS, PROGRESS_PERIOD_MILLIS, this::publish);
+            this.listener = listener;
+        }
+
+        void cancelSearch() {
+            monitor.cancel();
+            cancel(false);
+        }
+
+        @Override
+        protected Search.Result doInBackground() {
+            return incrementalSearch.findShortestPath(sourceNodeId, targetNodeIds, computer, monitor);
+        }
+
+        @Override
+        protected void process(final List<SearchMonitor.Progress> chunks) {
+            if (searchWorker == this) {
+                listener.onProgress(chunks.get(chunks.size() - 1));
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (searchWorker != this) {
+                return;
+            }
+            searchWorker = null;
+            final Search.Result result;
+            try {
+                result = get();
+            } catch (final CancellationException | InterruptedException ignored) {
+                return;
+            } catch (final ExecutionException e) {
+                listener.onFailure(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                return;
+            }
+            shortestPath = new ArrayList<>(result.getShortestPath());
+            shortestPathGScores = new ArrayList<>(result.getShortestPathGScores());
+            expandedNodes = new HashSet<>(result.getExpandedNodes());
+
+            //shortest path highlighting
+            repaint();
+            listener.onResult(result);
+        }
+    }
+
+    /**
+     * Starts searching for the optimal path with the selected HScore Computer, off the Event Dispatch Thread, and
+     * highlights it once found. A simulation still running is cancelled first.
      * @param algoIndex
-     * @return
+     * @param listener
      */
-    public Search.Result paintShortestPath(final int algoIndex) {
-        worldMap.clearStates();
-        final Search search = new Search();
+    public void paintShortestPath(final int algoIndex, final SimulationListener listener) {
+        cancelSimulation();
 
         //Initializes respective HScore Computer based on the user's selection.
-        HScoreComputer computer;
-        switch(algoIndex) {
-            case 0:
-                computer = new ZeroHScoreComputer();
-                break;
-            case 1:
-                computer = new FarthestTargetHScoreComputer(worldMap);
-                break;
-            case 2:
-                computer = new NearestTargetHScoreComputer(worldMap);
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid algo selection.");
+        final Heuristic heuristic = Heuristic.values()[algoIndex];
+        HScoreComputer computer = heuristic.createComputer();
+        if (heuristic.isCostlyToPrepare()) {
+            // Replans reuse its HScores until the map is replaced.
+            computer = new CachingHScoreComputer(computer, getHScoreCache(algoIndex));
         }
 
-        final Set<Node> targetNodes = new HashSet<>();
-        for (final String targetNodeName : targetNodeNames) {
-            targetNodes.add(worldMap.getNodeByName(targetNodeName));
+        //Shortest Path computation
+        searchWorker = new SearchWorker(incrementalSearch, sourceNodeId,
+                targetNodeIds.stream().mapToInt(Integer::intValue).toArray(), computer, listener);
+        searchExecutor.execute(searchWorker);
+    }
+
+    /**
+     * Cancels the simulation in progress, if any; its listener is not called again.
+     */
+    public void cancelSimulation() {
+        if (searchWorker != null) {
+            searchWorker.cancelSearch();
+            searchWorker = null;
         }
+    }
 
-        //Shortest Path computation
-        final Search.Result result = search.findShortestPath(worldMap.getNodeByName(sourceNodeName), targetNodes,
-                computer);
-        this.shortestPath = new ArrayList<>(result.getShortestPath());
-        this.shortestPathGScores = new ArrayList<>(result.getShortestPathGScores());
-        this.expandedNodes = new HashSet<>(result.getExpandedNodes());
+    public boolean isSimulating() {
+        return searchWorker != null;
+    }
 
-        //shortest path highlighting
-        repaint();
+    /**
+     * @return number of expansions the last simulation reused from the one before
+     */
+    public int getReusedExpansions() {
+        return incrementalSearch.getReusedExpansions();
+    }
 
-        return result;
+    private HScoreCache getHScoreCache(final int algoIndex) {
+        if (hScoreCaches[algoIndex] == null) {
+            hScoreCaches[algoIndex] = new HScoreCache(HSCORE_CACHE_CAPACITY);
+        }
+        return hScoreCaches[algoIndex];
     }
 
     /**
-     * All types of node, edge, path formatting happens here.
-     * Source node is colored green, Target Nodes are colored red, Shortest path is highlighted in blue, Expanded nodes are colored orange
-     * @param g
+     * Shows the whole map: maps that fit the panel keep their own coordinates, larger ones are scaled down.
      */
-    @Override
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setStroke(new BasicStroke(1));
-        final int radius = NODE_DIAMETER / 2;
+    private void fitView() {
+        redrawTimer.stop();
+        staticLayer = null;
+        scale = 1;
+        offsetX = 0;
+        offsetY = 0;
+        if (worldMap.getNodeCount() == 0) {
+            return;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (final Node node : worldMap.getNodes()) {
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
+        }
+        if (minX >= 0 && minY >= 0 && maxX < Constants.WORLD_MAP_RENDER_PANEL_WIDTH
+                && maxY < Constants.WORLD_MAP_RENDER_PANEL_HEIGHT) {
+            return;
+        }
+        scale = Math.max(MIN_SCALE, Math.min(
+                (Constants.WORLD_MAP_RENDER_PANEL_WIDTH - 2.0 * FIT_MARGIN) / Math.max(1, maxX - minX),
+                (Constants.WORLD_MAP_RENDER_PANEL_HEIGHT - 2.0 * FIT_MARGIN) / Math.max(1, maxY - minY)));
+        offsetX = FIT_MARGIN - minX * scale;
+        offsetY = FIT_MARGIN - minY * scale;
+    }
 
-        // Paint the nodes.
+    private int toScreenX(final Node node) {
+        return (int) Math.round(node.getX() * scale + offsetX);
+    }
+
+    private int toScreenY(final Node node) {
+        return (int) Math.round(node.getY() * scale + offsetY);
+    }
+
+    private boolean isOnScreen(final int screenX, final int screenY) {
+        return screenX >= -NODE_DIAMETER && screenX <= getWidth() + NODE_DIAMETER
+                && screenY >= -NODE_DIAMETER && screenY <= getHeight() + NODE_DIAMETER;
+    }
+
+    private void fillNode(final Graphics2D g2d, final Node node) {
+        final int screenX = toScreenX(node);
+        final int screenY = toScreenY(node);
+        if (isOnScreen(screenX, screenY)) {
+            g2d.fillOval(screenX - NODE_DIAMETER / 2, screenY - NODE_DIAMETER / 2, NODE_DIAMETER, NODE_DIAMETER);
+        }
+    }
+
+    /**
+     * Draws the nodes and edges visible in the current view. Each undirected edge is drawn once, from the end with
+     * the lower id unless only the other end is visible.
+     * @return
+     */
+    private BufferedImage renderStaticLayer() {
+        final BufferedImage image = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()),
+                BufferedImage.TYPE_INT_ARGB);
+        layerScale = scale;
+        layerOffsetX = offsetX;
+        layerOffsetY = offsetY;
+        final Graphics2D g2d = image.createGraphics();
         g2d.setColor(NODE_COLOR);
-        for (final Node node : worldMap.getNodes()) {
-            g2d.fillOval(node.getX() - radius, node.getY() - radius, NODE_DIAMETER, NODE_DIAMETER);
-            // Draw an "alreadyWaited indicator" if the node has a value set for it.
-            if (node.getAlreadyWaited() > 0) {
-                g2d.drawString("+" + node.getAlreadyWaited() + "s", node.getX() - radius, node.getY() - 2*radius);
+        g2d.setStroke(new BasicStroke(1));
+
+        // Nodes whose circle reaches into the panel.
+        final double margin = NODE_DIAMETER / scale;
+        final double minX = -offsetX / scale - margin;
+        final double minY = -offsetY / scale - margin;
+        final double maxX = (getWidth() - offsetX) / scale + margin;
+        final double maxY = (getHeight() - offsetY) / scale + margin;
+        final List<Node> visibleNodes = worldMap.findNodesInRectangle(minX, minY, maxX, maxY);
+
+        final boolean detailed = visibleNodes.size() <= DETAILED_NODE_LIMIT;
+        for (final Node node : visibleNodes) {
+            final int screenX = toScreenX(node);
+            final int screenY = toScreenY(node);
+            if (detailed) {
+                g2d.fillOval(screenX - NODE_DIAMETER / 2, screenY - NODE_DIAMETER / 2, NODE_DIAMETER, NODE_DIAMETER);
+            } else {
+                g2d.fillRect(screenX - 1, screenY - 1, 2, 2);
             }
             for (final Edge edge : node.getIncidentEdges()) {
-                final Node fromNode = edge.getFromNode();
+                if (!detailed && edge.getWeight() * scale < MIN_EDGE_LENGTH) {
+                    continue;
+                }
                 final Node toNode = edge.getToNode();
-                g2d.drawLine(fromNode.getX(), fromNode.getY(), toNode.getX(), toNode.getY());
+                final boolean toNodeVisible = toNode.getX() >= minX && toNode.getX() <= maxX
+                        && toNode.getY() >= minY && toNode.getY() <= maxY;
+                if (!toNodeVisible || node.getId() < toNode.getId()) {
+                    g2d.drawLine(screenX, screenY, toScreenX(toNode), toScreenY(toNode));
+                }
             }
         }
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * The static layer of nodes and edges is drawn once per map and view and cached; the expanded nodes,
+     * alreadyWaited indicators, source, targets and path are painted over it.
+     * Source node is colored green, Target Nodes are colored red, Shortest path is highlighted in blue, Expanded nodes are colored orange
+     * @param g
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (staticLayer == null || staticLayer.getWidth() != Math.max(1, getWidth())
+                || staticLayer.getHeight() != Math.max(1, getHeight())) {
+            staticLayer = renderStaticLayer();
+        }
+        Graphics2D g2d = (Graphics2D) g.create();
+        // Maps the layer's view onto the current one; the identity unless a pan or zoom is in progress.
+        final double layerToScreen = scale / layerScale;
+        g2d.drawImage(staticLayer, new AffineTransform(layerToScreen, 0, 0, layerToScreen,
+                offsetX - layerOffsetX * layerToScreen, offsetY - layerOffsetY * layerToScreen), null);
+        g2d.setStroke(new BasicStroke(1));
+        final int radius = NODE_DIAMETER / 2;
 
         // Paint the expanded nodes.
         g2d.setColor(EXPANDED_NODE_COLOR);
         for (final Node node : expandedNodes) {
-            g2d.fillOval(node.getX() - radius, node.getY() - radius, NODE_DIAMETER, NODE_DIAMETER);
+            fillNode(g2d, node);
         }
 
         // Paint the source node.
         g2d.setColor(SOURCE_NODE_COLOR);
-        if (this.sourceNodeName != null) {
-            final Node sourceNode = worldMap.getNodeByName(sourceNodeName);
-            g2d.fillOval(sourceNode.getX() - radius, sourceNode.getY() - radius,
-                    NODE_DIAMETER, NODE_DIAMETER);
+        if (this.sourceNodeId != -1) {
+            fillNode(g2d, worldMap.getNodeById(sourceNodeId));
         }
 
-        // Paint the target nodes.
-        g2d.setColor(TARGET_NODE_COLOR);
-        for (final String targetNodeName : this.targetNodeNames) {
-            final Node targetNode = worldMap.getNodeByName(targetNodeName);
-            g2d.fillOval(targetNode.getX() - radius, targetNode.getY() - radius, NODE_DIAMETER, NODE_DIAMETER);
+        // Paint the target nodes, with an "alreadyWaited indicator" if the node has a value set for it.
+        for (final int targetNodeId : this.targetNodeIds) {
+            final Node targetNode = worldMap.getNodeById(targetNodeId);
+            g2d.setColor(TARGET_NODE_COLOR);
+            fillNode(g2d, targetNode);
+            if (targetNode.getAlreadyWaited() > 0) {
+                g2d.setColor(NODE_COLOR);
+                g2d.drawString("+" + targetNode.getAlreadyWaited() + "s", toScreenX(targetNode) - radius,
+                        toScreenY(targetNode) - 2*radius);
+            }
         }
 
         // Paint the shortest path.
@@ -167,10 +419,11 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
         Node prevNode = null;
         for (final Node currNode : this.shortestPath) {
             if (prevNode != null) {
-                g2d.drawLine(prevNode.getX(), prevNode.getY(), currNode.getX(), currNode.getY());
+                g2d.drawLine(toScreenX(prevNode), toScreenY(prevNode), toScreenX(currNode), toScreenY(currNode));
             }
             prevNode = currNode;
         }
+        g2d.dispose();
     }
 
     /**
@@ -179,6 +432,10 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
      */
     @Override
     public void mouseClicked(MouseEvent e) {
+        // The running search reads the alreadyWaited values that clicks would change.
+        if (isSimulating()) {
+            return;
+        }
         if (this.shortestPath.isEmpty()) {
             handleInitialClicks(e);
         } else {
@@ -194,13 +451,11 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
         final Node clickedNode = getClickedNode(e);
 
         if (clickedNode != null) {
-            if (this.sourceNodeName == null) {
-                this.sourceNodeName = clickedNode.getName();
+            if (this.sourceNodeId == -1) {
+                this.sourceNodeId = clickedNode.getId();
                 this.parentFrame.setSelectTargetNodesMode(0);
-            } else if (!this.sourceNodeName.equals(clickedNode.getName())
-                    && !this.targetNodeNames.contains(clickedNode.getName())) {
-                this.targetNodeNames.add(clickedNode.getName());
-                this.parentFrame.setSelectTargetNodesMode(targetNodeNames.size());
+            } else if (this.sourceNodeId != clickedNode.getId() && this.targetNodeIds.add(clickedNode.getId())) {
+                this.parentFrame.setSelectTargetNodesMode(targetNodeIds.size());
             }
         }
 
@@ -219,8 +474,7 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
         if (clickedNode != null) {
             int clickPathIndex = -1;
             for (int i = 0; i < this.shortestPath.size(); ++i) {
-                final Node pathNode = this.shortestPath.get(i);
-                if (clickedNode.getName().equals(pathNode.getName())) {
+                if (this.shortestPath.get(i) == clickedNode) {
                     clickPathIndex = i;
                     break;
                 }
@@ -229,28 +483,28 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
             if (clickPathIndex != -1) {
                 // If the last node in the path was clicked, ignore since there would be no target nodes otherwise.
                 if (clickPathIndex < this.shortestPath.size() - 1) {
-                    this.sourceNodeName = this.shortestPath.get(clickPathIndex).getName();
+                    this.sourceNodeId = this.shortestPath.get(clickPathIndex).getId();
 
                     // Clear the alreadyWaited value for the soon-to-be non-targets.
                     for (int i = 0; i <= clickPathIndex; ++i) {
-                        if (this.targetNodeNames.contains(this.shortestPath.get(i).getName())) {
-                            worldMap.getNodeByName(this.shortestPath.get(i).getName()).clearAlreadyWaited();
+                        if (this.targetNodeIds.contains(this.shortestPath.get(i).getId())) {
+                            this.shortestPath.get(i).clearAlreadyWaited();
                         }
                     }
 
-                    final Set<String> newTargetNodeNames = new HashSet<>();
+                    final Set<Integer> newTargetNodeIds = new LinkedHashSet<>();
                     for (int i = clickPathIndex + 1; i < this.shortestPath.size(); ++i) {
-                        if (this.targetNodeNames.contains(this.shortestPath.get(i).getName())) {
-                            newTargetNodeNames.add(this.shortestPath.get(i).getName());
+                        if (this.targetNodeIds.contains(this.shortestPath.get(i).getId())) {
+                            newTargetNodeIds.add(this.shortestPath.get(i).getId());
                         }
                     }
-                    this.targetNodeNames.clear();
-                    this.targetNodeNames.addAll(newTargetNodeNames);
+                    this.targetNodeIds.clear();
+                    this.targetNodeIds.addAll(newTargetNodeIds);
 
                     // Set the alreadyWaited time.
                     final double alreadyWaited = this.shortestPathGScores.get(clickPathIndex);
-                    for (final String targetNodeName : this.targetNodeNames) {
-                        worldMap.getNodeByName(targetNodeName).addAlreadyWaited(alreadyWaited);
+                    for (final int targetNodeId : this.targetNodeIds) {
+                        worldMap.getNodeById(targetNodeId).addAlreadyWaited(alreadyWaited);
                     }
 
                     restoreWorldMap();
@@ -263,30 +517,53 @@ public class WorldMapRendererPanel extends JPanel implements MouseListener {
     }
 
     private Node getClickedNode(MouseEvent e) {
-        int x = e.getX();
-        int y = e.getY();
+        // World coordinates of the click, unrounded: zoomed in, a world unit spans many pixels.
+        final double x = (e.getX() - offsetX) / scale;
+        final double y = (e.getY() - offsetY) / scale;
 
         // Find the node that was clicked.
-        Node clickedNode = null;
-        int radius = NODE_DIAMETER / 2;
-        for (final Node node : worldMap.getNodes()) {
-            if (node.getDistanceFrom(x, y) <= radius) {
-                clickedNode = node;
-                break;
-            }
-        }
-
-        return clickedNode;
+        return worldMap.findNodeAt(x, y, NODE_DIAMETER / 2 / scale);
     }
 
     @Override
     public void mousePressed(MouseEvent e) {
-
+        lastDragPoint = e.getPoint();
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
+        lastDragPoint = null;
+    }
 
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        if (lastDragPoint != null) {
+            offsetX += e.getX() - lastDragPoint.x;
+            offsetY += e.getY() - lastDragPoint.y;
+            lastDragPoint = e.getPoint();
+            redrawTimer.restart();
+            repaint();
+        }
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+
+    }
+
+    /**
+     * Zooms about the mouse position.
+     * @param e
+     */
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        final double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE,
+                scale * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation())));
+        offsetX = e.getX() - (e.getX() - offsetX) * newScale / scale;
+        offsetY = e.getY() - (e.getY() - offsetY) * newScale / scale;
+        scale = newScale;
+        redrawTimer.restart();
+        repaint();
     }
 
     @Override
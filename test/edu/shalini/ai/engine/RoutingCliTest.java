@@ -0,0 +1,51 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.search.Heuristic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingCliTest {
+    @Test
+    void parsesOptions() {
+        final RoutingCli.Options options = RoutingCli.Options.parse(new String[] {"--generate", "500", "--seed", "7",
+                "--heuristic", "zero", "--prune-dominated", "true", "--upper-bound", "false",
+                "--off-heap-states", "true", "--metrics-period", "250"});
+        assertNull(options.mapFile);
+        assertEquals(500, options.noOfNodes);
+        assertEquals(Long.valueOf(7), options.seed);
+        assertEquals(Heuristic.ZERO, options.defaultHeuristic);
+        assertTrue(options.pruneDominated);
+        assertFalse(options.seedUpperBound);
+        assertTrue(options.offHeapStates);
+        assertEquals(250, options.metricsPeriodMillis);
+    }
+
+    @Test
+    void defaultsApplyToAMapFile() {
+        final RoutingCli.Options options = RoutingCli.Options.parse(new String[] {"--map", "map.txt"});
+        assertEquals("map.txt", options.mapFile);
+        assertNull(options.seed);
+        assertEquals(Heuristic.MST, options.defaultHeuristic);
+        assertFalse(options.pruneDominated);
+        assertFalse(options.seedUpperBound);
+        assertFalse(options.offHeapStates);
+    }
+
+    @Test
+    void rejectsBadOptions() {
+        assertRejected("Expected exactly one of --map and --generate.");
+        assertRejected("Expected exactly one of --map and --generate.", "--map", "m.txt", "--generate", "10");
+        assertRejected("Unknown option --maps.", "--maps", "m.txt");
+        assertRejected("Missing value for --map.", "--map");
+        assertRejected("Expected true or false for --upper-bound.", "--map", "m.txt", "--upper-bound", "yes");
+        assertRejected("Unknown heuristic 'astar'.", "--map", "m.txt", "--heuristic", "astar");
+        assertThrows(IllegalArgumentException.class,
+                () -> RoutingCli.Options.parse(new String[] {"--generate", "many"}));
+    }
+
+    private static void assertRejected(final String message, final String... args) {
+        assertEquals(message, assertThrows(IllegalArgumentException.class, () -> RoutingCli.Options.parse(args))
+                .getMessage());
+    }
+}
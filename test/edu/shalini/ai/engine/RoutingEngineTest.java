@@ -0,0 +1,71 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMapTextFormat;
+import edu.shalini.ai.search.Heuristic;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.UnreachableTargetsException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingEngineTest {
+    private static final String MAP = "# a star of three streets around b, and a node off the network\n"
+            + "node a 0 0\n"
+            + "node b 100 0\n"
+            + "node c 200 0\n"
+            + "node d 100 100\n"
+            + "node e 500 500\n"
+            + "edge a b\n"
+            + "edge b c\n"
+            + "edge b d\n";
+
+    @Test
+    void answersQueriesOnATextMap() throws IOException {
+        final RoutingEngine engine = new RoutingEngine(
+                WorldMapTextFormat.read(new BufferedReader(new StringReader(MAP))));
+        final GraphSnapshot graph = engine.getGraph();
+
+        final Search.Result direct = route(engine, "a c");
+        assertEquals(200, direct.getShortestPathCost(), 1e-9);
+        assertEquals(Arrays.asList("a", "b", "c"), namesOf(direct));
+
+        for (final Heuristic heuristic : Heuristic.values()) {
+            assertEquals(400, route(engine, "a c,d " + heuristic.getName()).getShortestPathCost(), 1e-9);
+        }
+
+        // d has waited long, so it is visited first although either order is as short.
+        final Search.Result waited = route(engine, "a c,d d=1000");
+        assertEquals(1200, waited.getShortestPathCost(), 1e-9);
+        assertEquals(Arrays.asList("a", "b", "d", "b", "c"), namesOf(waited));
+        assertEquals(0, graph.getAlreadyWaited(graph.findNodeId("d")));
+    }
+
+    @Test
+    void rejectsUnreachableTargetsWithoutSearching() throws IOException {
+        final RoutingEngine engine = new RoutingEngine(
+                WorldMapTextFormat.read(new BufferedReader(new StringReader(MAP))));
+        assertThrows(UnreachableTargetsException.class, () -> route(engine, "a c,e"));
+        assertThrows(IllegalArgumentException.class, () -> route(engine, "a c,c"));
+    }
+
+    private static Search.Result route(final RoutingEngine engine, final String line) {
+        return engine.route(RoutingQuery.parse(line, engine.getGraph(), Heuristic.MST));
+    }
+
+    private static List<String> namesOf(final Search.Result result) {
+        final List<String> names = new ArrayList<>();
+        for (final Node node : result.getShortestPath()) {
+            names.add(node.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,79 @@
+package edu.shalini.ai.engine;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.search.Heuristic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingQueryTest {
+    private final GraphSnapshot graph = createGraph();
+
+    @Test
+    void parsesEveryField() {
+        final RoutingQuery query = RoutingQuery.parse("  a\tc,d  landmarks d=12.5,c=3 ", graph, Heuristic.MST);
+        assertEquals(0, query.getSourceNodeId());
+        assertArrayEquals(new int[] {2, 3}, query.getTargetNodeIds());
+        assertEquals(Heuristic.LANDMARKS, query.getHeuristic());
+        assertArrayEquals(new int[] {3, 2}, query.getWaitingNodeIds());
+        assertArrayEquals(new double[] {12.5, 3}, query.getAlreadyWaited());
+    }
+
+    @Test
+    void optionalFieldsDefault() {
+        final RoutingQuery query = RoutingQuery.parse("b a", graph, Heuristic.ZERO);
+        assertEquals(1, query.getSourceNodeId());
+        assertArrayEquals(new int[] {0}, query.getTargetNodeIds());
+        assertEquals(Heuristic.ZERO, query.getHeuristic());
+        assertEquals(0, query.getWaitingNodeIds().length);
+
+        // Waits may come before the heuristic.
+        assertEquals(Heuristic.NEAREST, RoutingQuery.parse("b a a=1 nearest", graph, Heuristic.ZERO).getHeuristic());
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        assertRejected("");
+        assertRejected("a");
+        assertRejected("a b mst a=1 extra");
+        assertRejected("a b c");
+        assertRejected("a b mst a:1");
+        assertRejected("a b mst a=soon");
+        assertRejected("a b,,c");
+    }
+
+    @Test
+    void rejectsUnknownNodes() {
+        assertEquals("Unknown node 'x'.", assertRejected("x b").getMessage());
+        assertEquals("Unknown node 'x'.", assertRejected("a b,x").getMessage());
+        assertEquals("Unknown node 'x'.", assertRejected("a b x=1").getMessage());
+    }
+
+    @Test
+    void rejectsMismatchedWaits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RoutingQuery(0, new int[] {1}, Heuristic.MST, new int[] {1}, new double[0]));
+    }
+
+    private static GraphSnapshot createGraph() {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        final Node a = new Node("a", 0, 0);
+        final Node b = new Node("b", 100, 0);
+        final Node c = new Node("c", 200, 0);
+        final Node d = new Node("d", 100, 100);
+        worldMap.addNode(a);
+        worldMap.addNode(b);
+        worldMap.addNode(c);
+        worldMap.addNode(d);
+        worldMap.addEdge(a, b);
+        worldMap.addEdge(b, c);
+        worldMap.addEdge(b, d);
+        return worldMap.freeze();
+    }
+
+    private IllegalArgumentException assertRejected(final String line) {
+        return assertThrows(IllegalArgumentException.class, () -> RoutingQuery.parse(line, graph, Heuristic.MST));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.shalini.ai.map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldMapFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappedFileMatchesTheSavedGraph() throws IOException {
+        final GraphSnapshot graph = WorldMap.generateMap(300, 25, 900, 900, 11L).freeze();
+        final Path path = directory.resolve("map.wmap");
+        WorldMapFile.save(graph, path);
+
+        assertTrue(WorldMapFile.isWorldMapFile(path));
+        assertSameGraph(graph, WorldMapFile.map(path));
+    }
+
+    @Test
+    void loadedWorldMapMatchesTheSavedOne() throws IOException {
+        final WorldMap worldMap = WorldMap.generateMap(200, 25, 700, 700, 12L);
+        final Path path = directory.resolve("map.wmap");
+        WorldMapFile.save(worldMap, path);
+
+        final WorldMap loaded = WorldMapFile.load(path);
+        assertEquals(worldMap.getNodeCount(), loaded.getNodeCount());
+        for (final Node node : worldMap.getNodes()) {
+            final Node loadedNode = loaded.getNodeById(node.getId());
+            assertEquals(node.getName(), loadedNode.getName());
+            assertEquals(node.getX(), loadedNode.getX());
+            assertEquals(node.getY(), loadedNode.getY());
+            assertEquals(node.getIncidentEdges().size(), loadedNode.getIncidentEdges().size());
+        }
+        assertSameGraph(worldMap.freeze(), loaded.freeze());
+    }
+
+    @Test
+    void namesOutsideAsciiSurvive() throws IOException {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        final Node first = new Node("Zürich", 10, 10);
+        final Node second = new Node("東京", 60, 10);
+        final Node third = new Node("a", 10, 60);
+        worldMap.addNode(first);
+        worldMap.addNode(second);
+        worldMap.addNode(third);
+        worldMap.addEdge(first, second);
+        worldMap.addEdge(second, third);
+        final Path path = directory.resolve("names.wmap");
+        WorldMapFile.save(worldMap, path);
+
+        final GraphSnapshot mapped = WorldMapFile.map(path);
+        assertEquals("Zürich", mapped.getNodeName(0));
+        assertEquals("東京", mapped.getNodeName(1));
+        assertEquals(1, mapped.findNodeId("東京"));
+        assertEquals(2, mapped.findNodeId("a"));
+        assertEquals(-1, mapped.findNodeId("b"));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWorldMaps() throws IOException {
+        final Path text = directory.resolve("map.txt");
+        Files.write(text, "not a map at all".getBytes(StandardCharsets.UTF_8));
+        assertFalse(WorldMapFile.isWorldMapFile(text));
+        assertThrows(IllegalArgumentException.class, () -> WorldMapFile.map(text));
+
+        final Path path = directory.resolve("map.wmap");
+        WorldMapFile.save(WorldMap.generateMap(50, 25, 400, 400, 13L), path);
+        final byte[] bytes = Files.readAllBytes(path);
+        final Path truncated = directory.resolve("truncated.wmap");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertTrue(WorldMapFile.isWorldMapFile(truncated));
+        assertThrows(IllegalArgumentException.class, () -> WorldMapFile.map(truncated));
+    }
+
+    private static void assertSameGraph(final GraphSnapshot expected, final GraphSnapshot actual) {
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for (int nodeId = 0; nodeId < expected.getNodeCount(); ++nodeId) {
+            assertEquals(expected.getNodeName(nodeId), actual.getNodeName(nodeId));
+            assertEquals(nodeId, actual.findNodeId(expected.getNodeName(nodeId)));
+            assertEquals(expected.getX(nodeId), actual.getX(nodeId));
+            assertEquals(expected.getY(nodeId), actual.getY(nodeId));
+            assertEquals(expected.getFirstEdge(nodeId), actual.getFirstEdge(nodeId));
+            assertEquals(expected.getEndEdge(nodeId), actual.getEndEdge(nodeId));
+            for (int edge = expected.getFirstEdge(nodeId); edge < expected.getEndEdge(nodeId); ++edge) {
+                assertEquals(expected.getEdgeTarget(edge), actual.getEdgeTarget(edge));
+                assertEquals(expected.getEdgeWeight(edge), actual.getEdgeWeight(edge));
+            }
+        }
+    }
+}
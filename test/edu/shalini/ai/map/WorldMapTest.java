@@ -0,0 +1,103 @@
+package edu.shalini.ai.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldMapTest {
+    private static final int NO_OF_NODES = 2000;
+    private static final double MIN_DISTANCE = 25;
+    private static final int SIDE = 2200;
+    private static final long SEED = 20240501L;
+
+    @Test
+    void sameSeedGivesTheSameMap() {
+        assertSameGraph(WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED).freeze(),
+                WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED).freeze());
+    }
+
+    @Test
+    void poolParallelismDoesNotChangeTheMap() {
+        final GraphSnapshot expected = generateOn(1);
+        assertSameGraph(expected, generateOn(2));
+        assertSameGraph(expected, generateOn(4));
+    }
+
+    @Test
+    void differentSeedsGiveDifferentMaps() {
+        final GraphSnapshot graph = WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED).freeze();
+        final GraphSnapshot other = WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED + 1).freeze();
+        boolean differs = graph.getNodeCount() != other.getNodeCount();
+        for (int nodeId = 0; !differs && nodeId < graph.getNodeCount(); ++nodeId) {
+            differs = graph.getX(nodeId) != other.getX(nodeId) || graph.getY(nodeId) != other.getY(nodeId);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    void nodesKeepTheMinimumDistanceWithinBounds() {
+        final WorldMap worldMap = WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED);
+        assertTrue(worldMap.getNodeCount() > NO_OF_NODES * 9 / 10);
+        for (final Node node : worldMap.getNodes()) {
+            assertTrue(node.getX() >= 0 && node.getX() <= SIDE);
+            assertTrue(node.getY() >= 0 && node.getY() <= SIDE);
+            for (final Node other : worldMap.findNodesWithin(node.getX(), node.getY(), MIN_DISTANCE)) {
+                assertTrue(other == node || node.getDistanceFrom(other) >= MIN_DISTANCE);
+            }
+        }
+    }
+
+    @Test
+    void findNodeAtKeepsTheNearestNodeWithinTheRadius() {
+        final WorldMap worldMap = WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED);
+        final Random random = new Random(SEED);
+        for (int i = 0; i < 500; ++i) {
+            final double x = random.nextDouble() * SIDE;
+            final double y = random.nextDouble() * SIDE;
+            final double radius = random.nextDouble() * 3 * MIN_DISTANCE;
+            Node expected = null;
+            for (final Node node : worldMap.getNodes()) {
+                if (node.getDistanceFrom(x, y) <= radius
+                        && (expected == null || node.getDistanceFrom(x, y) < expected.getDistanceFrom(x, y))) {
+                    expected = node;
+                }
+            }
+            assertSame(expected, worldMap.findNodeAt(x, y, radius));
+        }
+        assertNull(worldMap.findNodeAt(-1000, -1000, MIN_DISTANCE));
+    }
+
+    @Test
+    void seededRandomReproducesTheSerialMap() {
+        assertSameGraph(WorldMap.generateMap(500, MIN_DISTANCE, 1100, 1100, new Random(SEED)).freeze(),
+                WorldMap.generateMap(500, MIN_DISTANCE, 1100, 1100, new Random(SEED)).freeze());
+    }
+
+    private static GraphSnapshot generateOn(final int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return WorldMap.generateMap(NO_OF_NODES, MIN_DISTANCE, SIDE, SIDE, SEED, pool).freeze();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameGraph(final GraphSnapshot expected, final GraphSnapshot actual) {
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for (int nodeId = 0; nodeId < expected.getNodeCount(); ++nodeId) {
+            assertEquals(expected.getNodeName(nodeId), actual.getNodeName(nodeId));
+            assertEquals(expected.getX(nodeId), actual.getX(nodeId));
+            assertEquals(expected.getY(nodeId), actual.getY(nodeId));
+            assertEquals(expected.getFirstEdge(nodeId), actual.getFirstEdge(nodeId));
+            assertEquals(expected.getEndEdge(nodeId), actual.getEndEdge(nodeId));
+            for (int edge = expected.getFirstEdge(nodeId); edge < expected.getEndEdge(nodeId); ++edge) {
+                assertEquals(expected.getEdgeTarget(edge), actual.getEdgeTarget(edge));
+                assertEquals(expected.getEdgeWeight(edge), actual.getEdgeWeight(edge));
+            }
+        }
+    }
+}
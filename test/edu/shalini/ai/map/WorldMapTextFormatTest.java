@@ -0,0 +1,66 @@
+package edu.shalini.ai.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldMapTextFormatTest {
+    @Test
+    void writtenMapReadsBackTheSame() throws IOException {
+        final GraphSnapshot graph = WorldMap.generateMap(300, 25, 900, 900, 14L).freeze();
+        final StringWriter text = new StringWriter();
+        WorldMapTextFormat.write(graph, text);
+
+        final GraphSnapshot read = read(text.toString()).freeze();
+        assertEquals(graph.getNodeCount(), read.getNodeCount());
+        assertEquals(graph.getEdgeCount(), read.getEdgeCount());
+        for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+            assertEquals(graph.getNodeName(nodeId), read.getNodeName(nodeId));
+            assertEquals(graph.getX(nodeId), read.getX(nodeId));
+            assertEquals(graph.getY(nodeId), read.getY(nodeId));
+            assertEquals(graph.getEndEdge(nodeId) - graph.getFirstEdge(nodeId),
+                    read.getEndEdge(nodeId) - read.getFirstEdge(nodeId));
+        }
+
+        final StringWriter rewritten = new StringWriter();
+        WorldMapTextFormat.write(read, rewritten);
+        assertEquals(text.toString(), rewritten.toString());
+    }
+
+    @Test
+    void skipsBlankLinesAndComments() throws IOException {
+        final WorldMap worldMap = read("# two nodes\n\nnode a 0 0\n  node b 30 40  \n\nedge a b\n");
+        assertEquals(2, worldMap.getNodeCount());
+        assertEquals(50, worldMap.getNodeByName("b").getIncidentEdges().iterator().next().getWeight());
+    }
+
+    @Test
+    void rejectsMalformedLinesWithTheirNumber() {
+        assertRejected("node a 0\n", "Line 1");
+        assertRejected("node a 0 x\n", "Line 1");
+        assertRejected("node a 0 0\nedge a\n", "Line 2");
+        assertRejected("node a 0 0\nedge a b\n", "Line 2: Unknown node 'b'.");
+        assertRejected("node a 0 0\nvertex b 1 1\n", "Line 2");
+    }
+
+    @Test
+    void rejectsNamesThatCannotBeWritten() {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        worldMap.addNode(new Node("two words", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> WorldMapTextFormat.write(worldMap, new StringWriter()));
+    }
+
+    private static WorldMap read(final String text) throws IOException {
+        return WorldMapTextFormat.read(new BufferedReader(new StringReader(text)));
+    }
+
+    private static void assertRejected(final String text, final String messagePrefix) {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(text));
+        assertTrue(e.getMessage().startsWith(messagePrefix), e.getMessage());
+    }
+}
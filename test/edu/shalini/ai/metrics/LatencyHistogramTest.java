@@ -0,0 +1,96 @@
+package edu.shalini.ai.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private static final double MAX_RELATIVE_ERROR = 0.125;
+
+    @Test
+    void bucketsCoverEveryValueInOrder() {
+        assertEquals(0, LatencyHistogram.toBucket(0));
+        for (int value = 0; value < 16; ++value) {
+            assertEquals(value, LatencyHistogram.toBucket(value));
+            assertEquals(value, LatencyHistogram.getBucketUpperBound(value));
+        }
+        for (int bucket = 0; bucket < LatencyHistogram.NO_OF_BUCKETS - 1; ++bucket) {
+            final long upperBound = LatencyHistogram.getBucketUpperBound(bucket);
+            assertEquals(bucket, LatencyHistogram.toBucket(upperBound));
+            assertEquals(bucket + 1, LatencyHistogram.toBucket(upperBound + 1));
+        }
+        assertEquals(LatencyHistogram.NO_OF_BUCKETS - 1, LatencyHistogram.toBucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketUpperBound(LatencyHistogram.NO_OF_BUCKETS - 1));
+    }
+
+    @Test
+    void bucketsAreNarrowerThanTheClaimedError() {
+        for (int bucket = 16; bucket < LatencyHistogram.NO_OF_BUCKETS; ++bucket) {
+            final long lowerBound = LatencyHistogram.getBucketUpperBound(bucket - 1) + 1;
+            final long upperBound = LatencyHistogram.getBucketUpperBound(bucket);
+            assertTrue(upperBound - lowerBound <= MAX_RELATIVE_ERROR * lowerBound);
+        }
+    }
+
+    @Test
+    void quantilesOfAUniformDistribution() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; ++value) {
+            histogram.record(value);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000.5, histogram.getMeanNanos());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertWithinError(50_000, histogram.getQuantileNanos(0.5));
+        assertWithinError(90_000, histogram.getQuantileNanos(0.9));
+        assertWithinError(99_000, histogram.getQuantileNanos(0.99));
+        assertEquals(100_000, histogram.getQuantileNanos(1));
+        assertEquals(1, histogram.getQuantileNanos(0));
+    }
+
+    @Test
+    void quantilesOfAnExponentialDistribution() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Random random = new Random(20240501L);
+        final double meanNanos = 1e6;
+        for (int i = 0; i < 200_000; ++i) {
+            histogram.record((long) (-meanNanos * Math.log(1 - random.nextDouble())));
+        }
+        // Quantile q of the distribution is -mean * ln(1 - q); sampling adds about 1% to the bucket error.
+        for (final double quantile : new double[] {0.5, 0.9, 0.99}) {
+            final double expected = -meanNanos * Math.log(1 - quantile);
+            final long actual = histogram.getQuantileNanos(quantile);
+            assertTrue(actual >= expected * 0.98 && actual <= expected * (1 + MAX_RELATIVE_ERROR) * 1.02,
+                    "quantile " + quantile + ": " + actual);
+        }
+        final double[] summary = histogram.summarize(TimeUnit.MILLISECONDS);
+        assertEquals(1, summary[0], 0.02);
+        assertEquals(histogram.getMaxNanos() / 1e6, summary[4]);
+    }
+
+    @Test
+    void smallNegativeAndHugeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getQuantileNanos(0.5));
+        assertEquals(0, histogram.getMeanNanos());
+
+        histogram.record(-5);
+        assertEquals(0, histogram.getQuantileNanos(1));
+        histogram.record(7);
+        assertEquals(7, histogram.getQuantileNanos(1));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+        assertEquals(Long.MAX_VALUE, histogram.getQuantileNanos(1));
+        assertEquals(7, histogram.getQuantileNanos(0.5));
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getQuantileNanos(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getQuantileNanos(1.1));
+    }
+
+    private static void assertWithinError(final long expected, final long actual) {
+        assertTrue(actual >= expected && actual <= expected * (1 + MAX_RELATIVE_ERROR), expected + ": " + actual);
+    }
+}
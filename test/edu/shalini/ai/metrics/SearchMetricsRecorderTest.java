@@ -0,0 +1,82 @@
+package edu.shalini.ai.metrics;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.WorldMap;
+import edu.shalini.ai.search.MinimumSpanningTreeHScoreComputer;
+import edu.shalini.ai.search.Search;
+import edu.shalini.ai.search.SearchStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMetricsRecorderTest {
+    private static final int NO_OF_SEARCHES = 5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvRowsHaveAColumnForEveryHeader() throws IOException {
+        final SearchMetricsRecorder recorder = new SearchMetricsRecorder();
+        final int noOfColumns = SearchMetricsRecorder.getCsvHeader().split(",").length;
+        final StringBuilder empty = new StringBuilder();
+        recorder.writeCsvRow(empty, 1L);
+        assertEquals(noOfColumns, empty.toString().trim().split(",").length);
+
+        runSearches(recorder);
+        final StringBuilder row = new StringBuilder();
+        recorder.writeCsvRow(row, 2L);
+        final String[] values = row.toString().trim().split(",");
+        assertEquals(noOfColumns, values.length);
+        assertEquals("2", values[0]);
+        assertEquals(Integer.toString(NO_OF_SEARCHES), values[1]);
+    }
+
+    @Test
+    void addsUpEverySearch() {
+        final SearchMetricsRecorder recorder = new SearchMetricsRecorder();
+        runSearches(recorder);
+        assertEquals(NO_OF_SEARCHES, recorder.getSearches());
+        assertEquals(NO_OF_SEARCHES, recorder.getSearches(SearchStats.Outcome.FOUND));
+        assertEquals(NO_OF_SEARCHES, recorder.getTotalLatency().getCount());
+        assertTrue(recorder.getExpansions() > 0);
+        assertTrue(recorder.getHScoreEvaluations() >= recorder.getStatesGenerated() - NO_OF_SEARCHES);
+    }
+
+    @Test
+    void snapshotsStartWithTheHeader() throws IOException {
+        final SearchMetricsRecorder recorder = new SearchMetricsRecorder();
+        final Path csvFile = directory.resolve("metrics.csv");
+        final Closeable snapshots = recorder.startPeriodicSnapshots(csvFile, 60_000);
+        runSearches(recorder);
+        snapshots.close();
+
+        final List<String> lines = Files.readAllLines(csvFile, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals(SearchMetricsRecorder.getCsvHeader(), lines.get(0));
+        assertEquals(lines.get(0).split(",").length, lines.get(1).split(",").length);
+        assertThrows(IllegalArgumentException.class, () -> recorder.startPeriodicSnapshots(csvFile, 0));
+    }
+
+    private static void runSearches(final SearchMetricsRecorder recorder) {
+        final GraphSnapshot graph = WorldMap.generateMap(300, 25, 900, 900, 20240501L).freeze();
+        final Search search = new Search(recorder);
+        // From a neighbour of each of the first nodes that have one, so every search finds a route.
+        int noOfSearches = 0;
+        for (int nodeId = 0; noOfSearches < NO_OF_SEARCHES; ++nodeId) {
+            if (graph.getFirstEdge(nodeId) < graph.getEndEdge(nodeId)) {
+                search.findShortestPath(graph, graph.getEdgeTarget(graph.getFirstEdge(nodeId)), new int[] {nodeId},
+                        new MinimumSpanningTreeHScoreComputer());
+                ++noOfSearches;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimeSearchTest {
+    @Test
+    void endsWithAnOptimalRouteAfterImprovingOnTheFirst() {
+        final GraphSnapshot graph = SeededMaps.generate(400);
+        final Random random = new Random(SeededMaps.SEED);
+        for (final double weight : new double[]{1, 1.5, 3}) {
+            final AnytimeSearch anytimeSearch = new AnytimeSearch(weight);
+            for (int i = 0; i < 10; ++i) {
+                final int[] query = SeededMaps.pickQuery(graph, 2 + i % 5, random);
+                final List<Double> solutionCosts = new ArrayList<>();
+                final AnytimeSearch.Result result = anytimeSearch.findShortestPath(graph, query[0],
+                        SeededMaps.targetsOf(query), new MinimumSpanningTreeHScoreComputer(), SearchMonitor.NONE,
+                        solution -> solutionCosts.add(solution.getShortestPathCost()));
+
+                assertTrue(result.isOptimal());
+                assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                        SeededMaps.COST_TOLERANCE);
+                assertFalse(solutionCosts.isEmpty());
+                for (int j = 1; j < solutionCosts.size(); ++j) {
+                    assertTrue(solutionCosts.get(j) < solutionCosts.get(j - 1));
+                }
+                assertEquals(result.getShortestPathCost(), solutionCosts.get(solutionCosts.size() - 1),
+                        SeededMaps.COST_TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWeightsBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new AnytimeSearch(0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AnytimeSearch(Double.NaN));
+    }
+}
@@ -0,0 +1,68 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSearchTest {
+    private static final int NO_OF_QUERIES = 40;
+
+    @Test
+    void everyPoolSizeFindsTheAStarRoutes() {
+        final GraphSnapshot graph = SeededMaps.generate(400);
+        final Random random = new Random(SeededMaps.SEED);
+        final List<int[]> queries = new ArrayList<>();
+        final List<BatchSearch.Query> batch = new ArrayList<>();
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, 1 + i % 6, random);
+            queries.add(query);
+            batch.add(new BatchSearch.Query(query[0], SeededMaps.targetsOf(query),
+                    MinimumSpanningTreeHScoreComputer::new));
+        }
+
+        List<Search.Result> firstResults = null;
+        for (final int noOfThreads : new int[]{1, 2, 4}) {
+            final ForkJoinPool pool = new ForkJoinPool(noOfThreads);
+            try {
+                final List<Search.Result> results = new BatchSearch(pool).findShortestPaths(graph, batch);
+                assertEquals(NO_OF_QUERIES, results.size());
+                for (int i = 0; i < NO_OF_QUERIES; ++i) {
+                    assertEquals(SeededMaps.aStarCost(graph, queries.get(i)), results.get(i).getShortestPathCost(),
+                            SeededMaps.COST_TOLERANCE);
+                    if (firstResults != null) {
+                        assertEquals(firstResults.get(i).getShortestPath(), results.get(i).getShortestPath());
+                    }
+                }
+                if (firstResults == null) {
+                    firstResults = results;
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void unreachableTargetsGiveNull() {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        worldMap.addNode(new Node("a", 0, 0));
+        worldMap.addNode(new Node("b", 100, 0));
+        final GraphSnapshot graph = worldMap.freeze();
+        final List<BatchSearch.Query> batch = new ArrayList<>();
+        batch.add(new BatchSearch.Query(0, new int[]{1}, ZeroHScoreComputer::new));
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertNull(new BatchSearch(pool).findShortestPaths(graph, batch).get(0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DominanceFrontierTest {
+    private static final int NO_OF_QUERIES = 10;
+    private static final int NO_OF_TARGETS = 6;
+
+    @Test
+    void dominatedOnlyByASubsetWithNoHigherScores() {
+        final DominanceFrontier frontier = new DominanceFrontier();
+        frontier.add(3, 0b0101L, 10, 2);
+
+        assertTrue(frontier.isDominated(3, 0b0101L, 10, 2));
+        assertTrue(frontier.isDominated(3, 0b0111L, 11, 3));
+        assertFalse(frontier.isDominated(3, 0b0100L, 11, 3));
+        assertFalse(frontier.isDominated(3, 0b0111L, 9, 3));
+        assertFalse(frontier.isDominated(3, 0b0111L, 11, 1));
+        assertFalse(frontier.isDominated(4, 0b0111L, 11, 3));
+    }
+
+    @Test
+    void mayDominateComparesTheLowestScores() {
+        final DominanceFrontier frontier = new DominanceFrontier();
+        assertFalse(frontier.mayDominate(3, 100, 100));
+        frontier.add(3, 0b01L, 10, 5);
+        frontier.add(3, 0b10L, 20, 1);
+
+        assertTrue(frontier.mayDominate(3, 10, 1));
+        assertFalse(frontier.mayDominate(3, 9, 5));
+        assertFalse(frontier.mayDominate(3, 20, 0));
+        // Passes the quick test although no single label dominates it.
+        assertTrue(frontier.mayDominate(3, 15, 3));
+        assertFalse(frontier.isDominated(3, 0b11L, 15, 3));
+    }
+
+    @Test
+    void addDropsTheLabelsItDominates() {
+        final DominanceFrontier frontier = new DominanceFrontier();
+        frontier.add(3, 0b111L, 10, 2);
+        frontier.add(3, 0b011L, 12, 2);
+        frontier.add(3, 0b100L, 15, 1);
+        frontier.add(5, 0b001L, 1, 0);
+        assertEquals(3, frontier.size(3));
+        assertEquals(4, frontier.size());
+
+        frontier.add(3, 0b001L, 10, 2);
+        assertEquals(2, frontier.size(3));
+        assertEquals(1, frontier.size(5));
+        assertEquals(3, frontier.size());
+        assertTrue(frontier.isDominated(3, 0b111L, 10, 2));
+        assertTrue(frontier.isDominated(3, 0b100L, 15, 1));
+        assertFalse(frontier.isDominated(3, 0b010L, 10, 2));
+    }
+
+    @Test
+    void keepsManyLabelsAtANodeAndAcrossNodes() {
+        final DominanceFrontier frontier = new DominanceFrontier();
+        for (int nodeId = 0; nodeId < 1000; nodeId += 7) {
+            for (int bit = 0; bit < 20; ++bit) {
+                frontier.add(nodeId, 1L << bit, bit, 20 - bit);
+            }
+        }
+        assertEquals(20, frontier.size(994));
+        assertEquals(143 * 20, frontier.size());
+        assertTrue(frontier.isDominated(994, 1L << 19 | 1L, 19, 1));
+        assertEquals(0, frontier.size(5000));
+    }
+
+    @Test
+    void clearForgetsEveryLabel() {
+        final DominanceFrontier frontier = new DominanceFrontier();
+        frontier.add(3, 0b01L, 10, 5);
+        frontier.add(700, 0b10L, 20, 1);
+        frontier.clear();
+
+        assertEquals(0, frontier.size());
+        assertEquals(0, frontier.size(3));
+        assertEquals(0, frontier.size(700));
+        assertFalse(frontier.isDominated(3, 0b11L, 100, 100));
+        frontier.add(3, 0b11L, 30, 30);
+        assertEquals(1, frontier.size());
+        assertFalse(frontier.isDominated(3, 0b01L, 100, 100));
+    }
+
+    @Test
+    void pruningDominatedStatesKeepsTheOptimalCost() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final Random random = new Random(SeededMaps.SEED);
+        final Search search = new Search(SearchListener.NONE, true);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final double cost = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                    new MinimumSpanningTreeHScoreComputer()).getShortestPathCost();
+            assertEquals(SeededMaps.aStarCost(graph, query), cost, SeededMaps.COST_TOLERANCE);
+        }
+    }
+}
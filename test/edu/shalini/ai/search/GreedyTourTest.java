@@ -0,0 +1,135 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import edu.shalini.ai.map.WorldMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedyTourTest {
+    private static final int NO_OF_QUERIES = 10;
+    private static final int NO_OF_TARGETS = 6;
+
+    @Test
+    void tourCostsNoLessThanTheBestRoute() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final Random random = new Random(SeededMaps.SEED);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final Search.Result tour = GreedyTour.compute(graph, query[0], SeededMaps.targetsOf(query),
+                    SearchMonitor.NONE);
+            assertEquals(graph.getNode(query[0]), tour.getShortestPath().get(0));
+            for (final int targetNodeId : SeededMaps.targetsOf(query)) {
+                assertTrue(tour.getShortestPath().contains(graph.getNode(targetNodeId)));
+            }
+            assertTrue(tour.getShortestPathCost() >= SeededMaps.aStarCost(graph, query) - SeededMaps.COST_TOLERANCE);
+        }
+    }
+
+    @Test
+    void seededSearchFindsTheAStarCost() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final Random random = new Random(SeededMaps.SEED);
+        final List<SearchStats> stats = new ArrayList<>();
+        final Search search = new Search(stats::add, false, true);
+        int prunedByBound = 0;
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final double cost = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                    new MinimumSpanningTreeHScoreComputer()).getShortestPathCost();
+            assertEquals(SeededMaps.aStarCost(graph, query), cost, SeededMaps.COST_TOLERANCE);
+            assertEquals(SearchStats.Outcome.FOUND, stats.get(i).getOutcome());
+            prunedByBound += stats.get(i).getStatesPrunedByBound();
+        }
+        assertTrue(prunedByBound > 0);
+    }
+
+    @Test
+    void optimalTourIsReturnedOnceEveryOtherStateIsPruned() {
+        final WorldMap worldMap = WorldMap.createEmptyWorldMap();
+        final Node source = new Node("a", 0, 0);
+        final Node middle = new Node("b", 100, 0);
+        final Node target = new Node("c", 200, 0);
+        worldMap.addNode(source);
+        worldMap.addNode(middle);
+        worldMap.addNode(target);
+        worldMap.addEdge(source, middle);
+        worldMap.addEdge(middle, target);
+        final GraphSnapshot graph = worldMap.freeze();
+
+        final List<SearchStats> stats = new ArrayList<>();
+        final Search.Result result = new Search(stats::add, false, true).findShortestPath(graph, source.getId(),
+                new int[]{target.getId()}, new MinimumSpanningTreeHScoreComputer());
+        // The neighbour's f-score equals the tour's cost, so only the source is expanded.
+        assertEquals(1, result.getNumExpansions());
+        assertEquals(Arrays.asList(source, middle, target), result.getShortestPath());
+        assertEquals(200, result.getShortestPathCost(), SeededMaps.COST_TOLERANCE);
+        assertEquals(SearchStats.Outcome.FOUND, stats.get(0).getOutcome());
+        assertEquals(1, stats.get(0).getStatesPrunedByBound());
+    }
+
+    @Test
+    void targetAtTheSourceRunsWithoutABound() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, new Random(SeededMaps.SEED));
+        final int[] targetNodeIds = SeededMaps.targetsOf(query);
+        targetNodeIds[0] = query[0];
+        assertNull(GreedyTour.compute(graph, query[0], targetNodeIds, SearchMonitor.NONE));
+
+        final List<SearchStats> stats = new ArrayList<>();
+        final double cost = new Search(stats::add, false, true).findShortestPath(graph, query[0], targetNodeIds,
+                new MinimumSpanningTreeHScoreComputer()).getShortestPathCost();
+        assertEquals(new Search().findShortestPath(graph, query[0], targetNodeIds,
+                new MinimumSpanningTreeHScoreComputer()).getShortestPathCost(), cost, SeededMaps.COST_TOLERANCE);
+        assertEquals(0, stats.get(0).getStatesPrunedByBound());
+    }
+
+    @Test
+    void tourIsReturnedWhenTheDeadlinePasses() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, new Random(SeededMaps.SEED));
+        final Search.Result tour = GreedyTour.compute(graph, query[0], SeededMaps.targetsOf(query),
+                SearchMonitor.NONE);
+
+        final List<SearchStats> stats = new ArrayList<>();
+        final Search.Result result = new Search(stats::add, false, true).findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), new StallingHScoreComputer(200),
+                new SearchMonitor(100, Long.MAX_VALUE, null));
+        assertTrue(result instanceof AnytimeSearch.Result);
+        assertEquals(tour.getShortestPath(), result.getShortestPath());
+        assertEquals(tour.getShortestPathCost(), result.getShortestPathCost(), SeededMaps.COST_TOLERANCE);
+        assertTrue(((AnytimeSearch.Result) result).getSuboptimalityBound() >= 1);
+        assertEquals(SearchStats.Outcome.TIMED_OUT, stats.get(0).getOutcome());
+    }
+
+    /**
+     * The zero heuristic, which stalls on its first h-score until the search's deadline has passed.
+     */
+    static final class StallingHScoreComputer implements HScoreComputer {
+        private final long stallMillis;
+        private boolean stalled;
+
+        StallingHScoreComputer(final long stallMillis) {
+            this.stallMillis = stallMillis;
+        }
+
+        @Override
+        public double computeHScore(final int nodeId, final long targets) {
+            if (!stalled) {
+                stalled = true;
+                try {
+                    Thread.sleep(stallMillis);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return 0;
+        }
+    }
+}
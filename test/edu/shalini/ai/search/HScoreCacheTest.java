@@ -0,0 +1,119 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HScoreCacheTest {
+    private static final int NO_OF_QUERIES = 10;
+    private static final int NO_OF_TARGETS = 6;
+
+    @Test
+    void everyCachedEntryStaysReachableAcrossEvictions() {
+        // A small index, so probe runs and backward shifts often wrap around its end.
+        final int capacity = 8;
+        final HScoreCache cache = new HScoreCache(capacity);
+        final Map<Long, Double> values = new HashMap<>();
+        final Random random = new Random(SeededMaps.SEED);
+        for (int i = 0; i < 20_000; ++i) {
+            final int nodeId = random.nextInt(64);
+            final long subsetHash = HScoreCache.hashTarget(random.nextInt(4));
+            final long key = (long) nodeId << 32 | subsetHash & 0xFFFFFFFFL;
+            final double cached = cache.get(nodeId, subsetHash);
+            if (Double.isNaN(cached)) {
+                values.put(key, (double) i);
+                cache.put(nodeId, subsetHash, i);
+            } else {
+                assertEquals(values.get(key), cached);
+            }
+        }
+        assertEquals(capacity, cache.size());
+        assertTrue(cache.getEvictions() > 0);
+
+        int found = 0;
+        for (int nodeId = 0; nodeId < 64; ++nodeId) {
+            for (int target = 0; target < 4; ++target) {
+                final long subsetHash = HScoreCache.hashTarget(target);
+                final double cached = cache.get(nodeId, subsetHash);
+                if (!Double.isNaN(cached)) {
+                    assertEquals(values.get((long) nodeId << 32 | subsetHash & 0xFFFFFFFFL), cached);
+                    ++found;
+                }
+            }
+        }
+        assertEquals(capacity, found);
+    }
+
+    @Test
+    void clockSparesARecentlyReadEntry() {
+        final HScoreCache cache = new HScoreCache(2);
+        cache.put(1, 10L, 1);
+        cache.put(2, 20L, 2);
+        assertEquals(1, cache.get(1, 10L));
+        cache.put(3, 30L, 3);
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.get(1, 10L));
+        assertTrue(Double.isNaN(cache.get(2, 20L)));
+        assertEquals(3, cache.get(3, 30L));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        final HScoreCache cache = new HScoreCache(16);
+        assertTrue(Double.isNaN(cache.get(1, 10L)));
+        cache.put(1, 10L, 5);
+        assertEquals(5, cache.get(1, 10L));
+        assertEquals(5, cache.get(1, 10L));
+        assertTrue(Double.isNaN(cache.get(1, 11L)));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertThrows(IllegalArgumentException.class, () -> new HScoreCache(0));
+    }
+
+    @Test
+    void subsetKeyDoesNotDependOnTargetOrder() {
+        final GraphSnapshot graph = SeededMaps.generate(200);
+        final HScoreCache cache = new HScoreCache(64);
+        final CachingHScoreComputer computer = new CachingHScoreComputer(new MinimumSpanningTreeHScoreComputer(),
+                cache);
+        computer.prepare(graph, new int[]{10, 20, 30});
+        final double hScore = computer.computeHScore(0, 0b101L);
+        assertEquals(0, cache.getHits());
+
+        computer.prepare(graph, new int[]{30, 20, 10});
+        assertEquals(hScore, computer.computeHScore(0, 0b101L));
+        assertEquals(1, cache.getHits());
+        computer.computeHScore(0, 0b011L);
+        assertEquals(1, cache.getHits());
+
+        // Another graph empties the cache.
+        computer.prepare(SeededMaps.generate(201), new int[]{10, 20, 30});
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cachedSearchFindsTheAStarCost() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final Random random = new Random(SeededMaps.SEED);
+        final HScoreCache cache = new HScoreCache(256);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final double expected = SeededMaps.aStarCost(graph, query);
+            // The second search of a query replans from the cache.
+            for (int round = 0; round < 2; ++round) {
+                final double cost = new Search().findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                        new CachingHScoreComputer(new MinimumSpanningTreeHScoreComputer(), cache))
+                        .getShortestPathCost();
+                assertEquals(expected, cost, SeededMaps.COST_TOLERANCE);
+            }
+        }
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getEvictions() > 0);
+    }
+}
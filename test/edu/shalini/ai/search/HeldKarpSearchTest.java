@@ -0,0 +1,68 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeldKarpSearchTest {
+    @Test
+    void costsMatchAStar() {
+        final GraphSnapshot graph = SeededMaps.generate(400);
+        final Random random = new Random(SeededMaps.SEED);
+        final HeldKarpSearch heldKarp = new HeldKarpSearch(ForkJoinPool.commonPool());
+        for (int noOfTargets = 1; noOfTargets <= 9; ++noOfTargets) {
+            for (int i = 0; i < 3; ++i) {
+                final int[] query = SeededMaps.pickQuery(graph, noOfTargets, random);
+                final Search.Result result = heldKarp.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                        SearchMonitor.NONE);
+                assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                        SeededMaps.COST_TOLERANCE);
+                assertEquals(query[0], result.getShortestPath().get(0).getId());
+            }
+        }
+    }
+
+    @Test
+    void rejectsTooManyAndDuplicateTargets() {
+        final GraphSnapshot graph = SeededMaps.generate(100);
+        final HeldKarpSearch heldKarp = new HeldKarpSearch(ForkJoinPool.commonPool());
+        final int[] tooMany = new int[HeldKarpSearch.MAX_TARGETS + 1];
+        for (int i = 0; i < tooMany.length; ++i) {
+            tooMany[i] = i + 1;
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> heldKarp.findShortestPath(graph, 0, tooMany, SearchMonitor.NONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> heldKarp.findShortestPath(graph, 0, new int[]{1, 2, 1}, SearchMonitor.NONE));
+    }
+
+    @Test
+    void unrankSubsetEnumeratesEachLayerInOrder() {
+        for (int size = 1; size <= HeldKarpSearch.MAX_TARGETS; ++size) {
+            int expected = (1 << size) - 1;
+            for (int rank = 0; expected < 1 << HeldKarpSearch.MAX_TARGETS; ++rank) {
+                assertEquals(expected, HeldKarpSearch.unrankSubset(rank, size));
+                expected = nextLargerWithSameBitCount(expected);
+            }
+        }
+    }
+
+    @Test
+    void nextSubsetKeepsTheSize() {
+        for (int subset = 1; subset < 1 << 12; ++subset) {
+            assertEquals(nextLargerWithSameBitCount(subset), HeldKarpSearch.nextSubset(subset));
+        }
+    }
+
+    private static int nextLargerWithSameBitCount(final int subset) {
+        int next = subset + 1;
+        while (Integer.bitCount(next) != Integer.bitCount(subset)) {
+            ++next;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,80 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSearchTest {
+    private static final int NO_OF_DRIVES = 10;
+    private static final int REPLANS_PER_DRIVE = 3;
+
+    @Test
+    void replansAlongTheRouteMatchColdSearches() {
+        final GraphSnapshot graph = SeededMaps.generate(500);
+        final Random random = new Random(SeededMaps.SEED);
+        int totalReusedExpansions = 0;
+        for (int drive = 0; drive < NO_OF_DRIVES; ++drive) {
+            final int[] query = SeededMaps.pickQuery(graph, 7, random);
+            final IncrementalSearch incrementalSearch = new IncrementalSearch(graph);
+            Search.Result result = incrementalSearch.findShortestPath(query[0], SeededMaps.targetsOf(query),
+                    new FarthestTargetHScoreComputer());
+            assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                    SeededMaps.COST_TOLERANCE);
+
+            Set<Integer> targetNodeIds = new LinkedHashSet<>();
+            for (final int targetNodeId : SeededMaps.targetsOf(query)) {
+                targetNodeIds.add(targetNodeId);
+            }
+            for (int replan = 0; replan < REPLANS_PER_DRIVE; ++replan) {
+                // The driver has gone a third of the way along the route and delivered to the targets passed.
+                final List<Node> path = result.getShortestPath();
+                final int position = path.size() / 3;
+                if (position == 0 || position >= path.size() - 1) {
+                    break;
+                }
+                final Set<Integer> remainingNodeIds = new LinkedHashSet<>();
+                for (int i = position + 1; i < path.size(); ++i) {
+                    if (targetNodeIds.contains(path.get(i).getId())) {
+                        remainingNodeIds.add(path.get(i).getId());
+                    }
+                }
+                targetNodeIds = remainingNodeIds;
+                final int[] replanQuery = new int[targetNodeIds.size() + 1];
+                replanQuery[0] = path.get(position).getId();
+                int i = 1;
+                for (final int targetNodeId : targetNodeIds) {
+                    replanQuery[i++] = targetNodeId;
+                }
+
+                result = incrementalSearch.findShortestPath(replanQuery[0], SeededMaps.targetsOf(replanQuery),
+                        new FarthestTargetHScoreComputer());
+                assertEquals(SeededMaps.aStarCost(graph, replanQuery), result.getShortestPathCost(),
+                        SeededMaps.COST_TOLERANCE);
+                assertEquals(replanQuery[0], result.getShortestPath().get(0).getId());
+                totalReusedExpansions += incrementalSearch.getReusedExpansions();
+            }
+        }
+        assertTrue(totalReusedExpansions > 0);
+    }
+
+    @Test
+    void anUnrelatedQueryStartsCold() {
+        final GraphSnapshot graph = SeededMaps.generate(500);
+        final Random random = new Random(SeededMaps.SEED);
+        final IncrementalSearch incrementalSearch = new IncrementalSearch(graph);
+        for (int i = 0; i < 5; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, 4, random);
+            final Search.Result result = incrementalSearch.findShortestPath(query[0], SeededMaps.targetsOf(query),
+                    new ZeroHScoreComputer());
+            assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                    SeededMaps.COST_TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarkTableTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadedTableMatchesTheSavedOne() throws IOException {
+        final GraphSnapshot graph = SeededMaps.generate(300);
+        final LandmarkTable table = LandmarkTable.compute(graph, 8);
+        final Path path = LandmarkTable.pathFor(directory.resolve("map.wmap"));
+        table.save(path);
+
+        final LandmarkTable loaded = LandmarkTable.load(path, graph);
+        assertTrue(loaded.matches(graph));
+        assertEquals(table.getNoOfLandmarks(), loaded.getNoOfLandmarks());
+        for (int landmark = 0; landmark < table.getNoOfLandmarks(); ++landmark) {
+            assertEquals(table.getLandmarkNodeId(landmark), loaded.getLandmarkNodeId(landmark));
+            for (int nodeId = 0; nodeId < graph.getNodeCount(); ++nodeId) {
+                assertEquals(table.getDistance(nodeId, landmark), loaded.getDistance(nodeId, landmark));
+            }
+        }
+    }
+
+    @Test
+    void rejectsATableOfAnotherGraph() throws IOException {
+        final GraphSnapshot graph = SeededMaps.generate(300);
+        final GraphSnapshot otherGraph = SeededMaps.generate(301);
+        final LandmarkTable table = LandmarkTable.compute(graph, 4);
+        final Path path = directory.resolve("map.wmap.landmarks");
+        table.save(path);
+
+        assertFalse(table.matches(otherGraph));
+        assertThrows(IllegalArgumentException.class, () -> LandmarkTable.load(path, otherGraph));
+        assertThrows(IllegalArgumentException.class, () -> LandmarkTable.register(otherGraph, table));
+    }
+
+    @Test
+    void lowerBoundsNeverExceedTheDistance() {
+        final GraphSnapshot graph = SeededMaps.generate(300);
+        final LandmarkTable table = LandmarkTable.compute(graph, LandmarkTable.DEFAULT_NO_OF_LANDMARKS);
+        final Random random = new Random(SeededMaps.SEED);
+        for (int i = 0; i < 20; ++i) {
+            final int nodeId = random.nextInt(graph.getNodeCount());
+            final double[] distances = ShortestPaths.computeDistances(graph, nodeId);
+            for (int otherNodeId = 0; otherNodeId < graph.getNodeCount(); ++otherNodeId) {
+                final double lowerBound = table.computeLowerBound(nodeId, otherNodeId);
+                assertTrue(lowerBound >= 0);
+                assertTrue(lowerBound <= distances[otherNodeId] + SeededMaps.COST_TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void landmarkHeuristicFindsTheAStarCost() {
+        final GraphSnapshot graph = SeededMaps.generate(300);
+        final Random random = new Random(SeededMaps.SEED);
+        final Search search = new Search();
+        for (int i = 0; i < 10; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, 1 + i % 6, random);
+            final Search.Result result = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                    Heuristic.forName("landmarks").createComputer());
+            assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                    SeededMaps.COST_TOLERANCE);
+        }
+    }
+}
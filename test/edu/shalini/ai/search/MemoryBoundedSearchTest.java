@@ -0,0 +1,33 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBoundedSearchTest {
+    @Test
+    void costsMatchAStarWhateverTheStateBudget() {
+        final GraphSnapshot graph = SeededMaps.generate(150);
+        final Random random = new Random(SeededMaps.SEED);
+        for (final int maxStates : new int[]{64, 1 << 16}) {
+            final MemoryBoundedSearch memoryBoundedSearch = new MemoryBoundedSearch(maxStates);
+            for (int i = 0; i < 8; ++i) {
+                final int[] query = SeededMaps.pickQuery(graph, 1 + i % 4, random);
+                final MemoryBoundedSearch.Result result = memoryBoundedSearch.findShortestPath(graph, query[0],
+                        SeededMaps.targetsOf(query), new MinimumSpanningTreeHScoreComputer(), SearchMonitor.NONE);
+                assertEquals(SeededMaps.aStarCost(graph, query), result.getShortestPathCost(),
+                        SeededMaps.COST_TOLERANCE);
+                assertEquals(query[0], result.getShortestPath().get(0).getId());
+                assertTrue(result.getNumIterations() >= 1);
+            }
+        }
+    }
+
+    @Test
+    void rejectsAnEmptyBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBoundedSearch(0));
+    }
+}
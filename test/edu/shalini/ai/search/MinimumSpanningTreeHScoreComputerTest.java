@@ -0,0 +1,92 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinimumSpanningTreeHScoreComputerTest {
+    private static final int NO_OF_QUERIES = 10;
+    private static final int NO_OF_TARGETS = 6;
+    private static final int NO_OF_SAMPLED_NODES = 40;
+
+    @Test
+    void neverExceedsTheCheapestRemainingRoute() {
+        final GraphSnapshot graph = SeededMaps.generate(400);
+        final Random random = new Random(SeededMaps.SEED);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] targetNodeIds = SeededMaps.targetsOf(SeededMaps.pickQuery(graph, NO_OF_TARGETS, random));
+            final double[][] distancesFromTargets = new double[NO_OF_TARGETS][];
+            for (int target = 0; target < NO_OF_TARGETS; ++target) {
+                distancesFromTargets[target] = ShortestPaths.computeDistances(graph, targetNodeIds[target]);
+            }
+            final MinimumSpanningTreeHScoreComputer computer = new MinimumSpanningTreeHScoreComputer();
+            computer.prepare(graph, targetNodeIds);
+
+            for (int j = 0; j < NO_OF_SAMPLED_NODES; ++j) {
+                final int nodeId = random.nextInt(graph.getNodeCount());
+                if (Double.isInfinite(distancesFromTargets[0][nodeId])) {
+                    continue;
+                }
+                final double[] routeCosts = cheapestRouteCosts(distancesFromTargets, targetNodeIds, nodeId);
+                for (long targets = 0; targets < 1L << NO_OF_TARGETS; ++targets) {
+                    assertTrue(computer.computeHScore(nodeId, targets)
+                            <= routeCosts[(int) targets] + SeededMaps.COST_TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchFindsTheUninformedCost() {
+        final GraphSnapshot graph = SeededMaps.generate(400);
+        final Random random = new Random(SeededMaps.SEED);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final double cost = new Search().findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                    new ZeroHScoreComputer()).getShortestPathCost();
+            assertEquals(cost, SeededMaps.aStarCost(graph, query), SeededMaps.COST_TOLERANCE);
+        }
+    }
+
+    /**
+     * Exact costs by dynamic programming over the subsets, ending at each target of the subset in turn.
+     * @param distancesFromTargets
+     * @param targetNodeIds
+     * @param nodeId
+     * @return by target subset, the cost of the cheapest route from the node through every target in it
+     */
+    private static double[] cheapestRouteCosts(final double[][] distancesFromTargets, final int[] targetNodeIds,
+                                               final int nodeId) {
+        final int noOfTargets = targetNodeIds.length;
+        final double[][] costEndingAt = new double[1 << noOfTargets][noOfTargets];
+        for (final double[] costs : costEndingAt) {
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        }
+        for (int target = 0; target < noOfTargets; ++target) {
+            costEndingAt[1 << target][target] = distancesFromTargets[target][nodeId];
+        }
+        final double[] routeCosts = new double[1 << noOfTargets];
+        for (int subset = 1; subset < 1 << noOfTargets; ++subset) {
+            routeCosts[subset] = Double.POSITIVE_INFINITY;
+            for (int last = 0; last < noOfTargets; ++last) {
+                if ((subset & 1 << last) == 0) {
+                    continue;
+                }
+                final double cost = costEndingAt[subset][last];
+                routeCosts[subset] = Math.min(routeCosts[subset], cost);
+                for (int next = 0; next < noOfTargets; ++next) {
+                    if ((subset & 1 << next) == 0) {
+                        final int nextSubset = subset | 1 << next;
+                        costEndingAt[nextSubset][next] = Math.min(costEndingAt[nextSubset][next],
+                                cost + distancesFromTargets[last][targetNodeIds[next]]);
+                    }
+                }
+            }
+        }
+        return routeCosts;
+    }
+}
@@ -0,0 +1,100 @@
+package edu.shalini.ai.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenListTest {
+    @Test
+    void pollsInKeyOrder() {
+        final OpenList openList = new OpenList();
+        final double[] keys = {5, 3, 8, 1, 9, 2, 7};
+        for (int id = 0; id < keys.length; ++id) {
+            openList.addOrUpdate(id, keys[id]);
+        }
+        assertEquals(keys.length, openList.size());
+        assertEquals(1, openList.peekKey());
+        final int[] expectedIds = {3, 5, 1, 0, 6, 2, 4};
+        for (final int expectedId : expectedIds) {
+            assertEquals(expectedId, openList.poll());
+        }
+        assertTrue(openList.isEmpty());
+    }
+
+    @Test
+    void updateMovesAStateBothWays() {
+        final OpenList openList = new OpenList();
+        openList.addOrUpdate(0, 10);
+        openList.addOrUpdate(1, 20);
+        openList.addOrUpdate(2, 30);
+        openList.addOrUpdate(2, 5);
+        assertEquals(3, openList.size());
+        assertEquals(5, openList.peekKey());
+        openList.addOrUpdate(2, 40);
+        assertEquals(0, openList.poll());
+        assertEquals(1, openList.poll());
+        assertEquals(2, openList.poll());
+    }
+
+    @Test
+    void removeAndClearForgetStates() {
+        final OpenList openList = new OpenList();
+        for (int id = 0; id < 10; ++id) {
+            openList.addOrUpdate(id, id);
+        }
+        openList.remove(0);
+        openList.remove(5);
+        openList.remove(42);
+        assertFalse(openList.contains(0));
+        assertFalse(openList.contains(5));
+        assertEquals(8, openList.size());
+        assertEquals(1, openList.poll());
+
+        openList.clear();
+        assertTrue(openList.isEmpty());
+        for (int id = 0; id < 10; ++id) {
+            assertFalse(openList.contains(id));
+        }
+        openList.addOrUpdate(3, 1);
+        assertEquals(3, openList.poll());
+    }
+
+    @Test
+    void updateKeysRestoresTheHeap() {
+        final OpenList openList = new OpenList();
+        for (int id = 0; id < 100; ++id) {
+            openList.addOrUpdate(id, id);
+        }
+        openList.updateKeys(id -> 100 - id);
+        for (int id = 99; id >= 0; --id) {
+            assertEquals(id, openList.poll());
+        }
+    }
+
+    @Test
+    void matchesASortedMapUnderRandomOperations() {
+        final OpenList openList = new OpenList();
+        final TreeMap<Double, Integer> expected = new TreeMap<>();
+        final double[] keyById = new double[1000];
+        final Random random = new Random(7);
+        for (int step = 0; step < 20_000; ++step) {
+            final int id = random.nextInt(keyById.length);
+            if (random.nextInt(4) == 0 && !openList.isEmpty()) {
+                final int polledId = openList.poll();
+                assertEquals(expected.pollFirstEntry().getValue().intValue(), polledId);
+            } else {
+                if (openList.contains(id)) {
+                    expected.remove(keyById[id]);
+                }
+                // Distinct keys, so the expected order is unambiguous.
+                keyById[id] = random.nextDouble();
+                expected.put(keyById[id], id);
+                openList.addOrUpdate(id, keyById[id]);
+            }
+            assertEquals(expected.size(), openList.size());
+        }
+    }
+}
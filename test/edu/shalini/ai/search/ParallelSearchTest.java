@@ -0,0 +1,76 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+    @Test
+    void costsAndRoutesMatchAStarForEveryWorkerCount() {
+        final GraphSnapshot graph = SeededMaps.generate(500);
+        final Random random = new Random(SeededMaps.SEED);
+        final ParallelSearch[] searches = {new ParallelSearch(1), new ParallelSearch(2), new ParallelSearch(4)};
+        for (int i = 0; i < 15; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, 1 + i % 7, random);
+            final double aStarCost = SeededMaps.aStarCost(graph, query);
+            for (final ParallelSearch search : searches) {
+                final Search.Result result = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                        MinimumSpanningTreeHScoreComputer::new, SearchMonitor.NONE);
+                assertEquals(aStarCost, result.getShortestPathCost(), SeededMaps.COST_TOLERANCE);
+                assertConsistentRoute(graph, query, result);
+            }
+        }
+    }
+
+    @Test
+    void stopsWhenCancelled() {
+        final GraphSnapshot graph = SeededMaps.generate(500);
+        final int[] query = SeededMaps.pickQuery(graph, 10, new Random(SeededMaps.SEED));
+        final SearchMonitor monitor = new SearchMonitor(60_000, 0, null);
+        monitor.cancel();
+        assertThrows(CancellationException.class, () -> new ParallelSearch(2).findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), ZeroHScoreComputer::new, monitor));
+    }
+
+    @Test
+    void rejectsNoWorkers() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(0));
+    }
+
+    /**
+     * The route starts at the source, visits every target, and its g-scores add up along its edges.
+     */
+    private static void assertConsistentRoute(final GraphSnapshot graph, final int[] query,
+                                              final Search.Result result) {
+        final List<Node> path = result.getShortestPath();
+        final List<Double> gScores = result.getShortestPathGScores();
+        assertEquals(query[0], path.get(0).getId());
+        assertEquals(0.0, gScores.get(0));
+        for (int i = 1; i < path.size(); ++i) {
+            final int nodeId = path.get(i - 1).getId();
+            final int nextNodeId = path.get(i).getId();
+            double edgeWeight = Double.POSITIVE_INFINITY;
+            for (int edge = graph.getFirstEdge(nodeId); edge < graph.getEndEdge(nodeId); ++edge) {
+                if (graph.getEdgeTarget(edge) == nextNodeId) {
+                    edgeWeight = Math.min(edgeWeight, graph.getEdgeWeight(edge));
+                }
+            }
+            assertEquals(gScores.get(i - 1) + edgeWeight, gScores.get(i), SeededMaps.COST_TOLERANCE);
+        }
+        final Set<Integer> pathNodeIds = new HashSet<>();
+        for (final Node node : path) {
+            pathNodeIds.add(node.getId());
+        }
+        for (final int targetNodeId : SeededMaps.targetsOf(query)) {
+            assertTrue(pathNodeIds.contains(targetNodeId));
+        }
+    }
+}
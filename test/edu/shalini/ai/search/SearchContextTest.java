@@ -0,0 +1,146 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchContextTest {
+    private static final int NO_OF_NODES = 1000;
+    private static final int NO_OF_TARGET_SETS = 16;
+    // Past the most states a context keeps across queries.
+    private static final int NO_OF_LARGE_QUERY_STATES = (1 << 21) + 1;
+    private static final int NO_OF_QUERIES = 10;
+    private static final int NO_OF_TARGETS = 6;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void findsEveryStateAddedAcrossGrowth(final boolean offHeap) {
+        final SearchContext context = new SearchContext(offHeap);
+        for (int nodeId = 0; nodeId < NO_OF_NODES; ++nodeId) {
+            for (long targets = 0; targets < NO_OF_TARGET_SETS; ++targets) {
+                assertEquals(SearchContext.NO_STATE, context.findState(nodeId, targets));
+                assertEquals(nodeId * NO_OF_TARGET_SETS + (int) targets, context.addState(nodeId, targets));
+            }
+        }
+        assertEquals(NO_OF_NODES * NO_OF_TARGET_SETS, context.size());
+        for (int nodeId = 0; nodeId < NO_OF_NODES; ++nodeId) {
+            for (long targets = 0; targets < NO_OF_TARGET_SETS; ++targets) {
+                final int stateId = context.findState(nodeId, targets);
+                assertEquals(nodeId, context.getNodeId(stateId));
+                assertEquals(targets, context.getTargets(stateId));
+            }
+        }
+        assertEquals(SearchContext.NO_STATE, context.findState(NO_OF_NODES, 0L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void newStatesStartUnvisitedWithoutParentOrScores(final boolean offHeap) {
+        final SearchContext context = new SearchContext(offHeap);
+        final int stateId = context.addState(7, 3L);
+        assertEquals(Double.MAX_VALUE, context.getGScore(stateId));
+        assertEquals(Double.MAX_VALUE, context.getHScore(stateId));
+        assertEquals(0.0, context.getMaxWaitingTime(stateId));
+        assertEquals(SearchContext.NO_STATE, context.getPrevState(stateId));
+        assertFalse(context.isVisited(stateId));
+
+        context.setGScore(stateId, 4);
+        context.setHScore(stateId, 5);
+        context.setMaxWaitingTime(stateId, 12);
+        context.setPrevState(stateId, 0);
+        context.setVisited(stateId);
+        assertEquals(12, context.getFScore(stateId));
+        assertEquals(0, context.getPrevState(stateId));
+        assertTrue(context.isVisited(stateId));
+        context.clearVisited(stateId);
+        assertFalse(context.isVisited(stateId));
+    }
+
+    @Test
+    void computeTargetsClearsTheBitOfATargetNode() {
+        final SearchContext context = new SearchContext();
+        context.setTargetMask(10, 1L);
+        context.setTargetMask(20, 2L);
+        assertEquals(2, context.getNoOfTargets());
+        assertEquals(20, context.getTargetNodeId(1));
+        assertEquals(2L, context.computeTargets(10, 3L));
+        assertEquals(1L, context.computeTargets(20, 3L));
+        assertEquals(3L, context.computeTargets(30, 3L));
+        assertEquals(0L, context.getTargetMask(5000));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void resetForgetsTheQuery(final boolean offHeap) {
+        final SearchContext context = new SearchContext(offHeap);
+        context.setTargetMask(10, 1L);
+        for (int nodeId = 0; nodeId < NO_OF_NODES; ++nodeId) {
+            context.addState(nodeId, 1L);
+        }
+        context.getOpenList().addOrUpdate(0, 1);
+        context.countStateImproved();
+        context.reset();
+
+        assertEquals(0, context.size());
+        assertEquals(0, context.getNoOfTargets());
+        assertEquals(0L, context.getTargetMask(10));
+        assertTrue(context.getOpenList().isEmpty());
+        assertEquals(0, context.getStatesImproved());
+        assertEquals(SearchContext.NO_STATE, context.getGoalState());
+        for (int nodeId = 0; nodeId < NO_OF_NODES; ++nodeId) {
+            assertEquals(SearchContext.NO_STATE, context.findState(nodeId, 1L));
+        }
+        assertEquals(0, context.addState(5, 1L));
+        assertEquals(0, context.findState(5, 1L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void resetDropsTheStorageOfALargeQuery(final boolean offHeap) {
+        final SearchContext context = new SearchContext(offHeap);
+        final long initialBytes = context.getMemoryBytes();
+        for (int stateId = 0; stateId < NO_OF_LARGE_QUERY_STATES; ++stateId) {
+            context.addState(stateId, 1L);
+        }
+        final long largeBytes = context.getMemoryBytes();
+        context.reset();
+
+        assertTrue(context.getMemoryBytes() < largeBytes);
+        assertEquals(initialBytes, context.getMemoryBytes());
+        assertEquals(0, context.size());
+        assertEquals(SearchContext.NO_STATE, context.findState(0, 1L));
+        assertEquals(SearchContext.NO_STATE, context.findState(NO_OF_LARGE_QUERY_STATES - 1, 1L));
+        assertEquals(0, context.addState(5, 1L));
+        assertEquals(0, context.findState(5, 1L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void resetKeepsTheStorageOfASmallQuery(final boolean offHeap) {
+        final SearchContext context = new SearchContext(offHeap);
+        for (int nodeId = 0; nodeId < NO_OF_NODES; ++nodeId) {
+            context.addState(nodeId, 1L);
+        }
+        final long bytes = context.getMemoryBytes();
+        context.reset();
+        assertEquals(bytes, context.getMemoryBytes());
+    }
+
+    @Test
+    void offHeapSearchFindsTheAStarCost() {
+        final GraphSnapshot graph = SeededMaps.generate(800);
+        final Random random = new Random(SeededMaps.SEED);
+        final Search search = new Search(SearchListener.NONE, false, false, true);
+        for (int i = 0; i < NO_OF_QUERIES; ++i) {
+            final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, random);
+            final double cost = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                    new MinimumSpanningTreeHScoreComputer()).getShortestPathCost();
+            assertEquals(SeededMaps.aStarCost(graph, query), cost, SeededMaps.COST_TOLERANCE);
+        }
+    }
+}
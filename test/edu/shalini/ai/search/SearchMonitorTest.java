@@ -0,0 +1,87 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMonitorTest {
+    private static final int NO_OF_TARGETS = 6;
+
+    private final GraphSnapshot graph = SeededMaps.generate(800);
+    private final int[] query = SeededMaps.pickQuery(graph, NO_OF_TARGETS, new Random(SeededMaps.SEED));
+    private final List<SearchStats> stats = new ArrayList<>();
+    private final Search search = new Search(stats::add);
+
+    @Test
+    void cancelledMonitorStopsThePreparation() {
+        final SearchMonitor monitor = new SearchMonitor(Long.MAX_VALUE, Long.MAX_VALUE, null);
+        monitor.cancel();
+        assertThrows(CancellationException.class, () -> search.findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), new MinimumSpanningTreeHScoreComputer(), monitor));
+        assertEquals(SearchStats.Outcome.CANCELLED, stats.get(0).getOutcome());
+    }
+
+    @Test
+    void cancellingStopsTheExpansion() {
+        final SearchMonitor monitor = new SearchMonitor(Long.MAX_VALUE, Long.MAX_VALUE, null);
+        // Cancels once the search has prepared and computes its first h-score.
+        final HScoreComputer computer = (nodeId, targets) -> {
+            monitor.cancel();
+            return 0;
+        };
+        assertThrows(CancellationException.class, () -> search.findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), computer, monitor));
+        assertEquals(SearchStats.Outcome.CANCELLED, stats.get(0).getOutcome());
+        assertEquals(SearchMonitor.CHECK_INTERVAL, stats.get(0).getNumExpansions());
+    }
+
+    @Test
+    void passedDeadlineEndsTheSearch() throws InterruptedException {
+        final SearchMonitor monitor = new SearchMonitor(0, Long.MAX_VALUE, null);
+        Thread.sleep(1);
+        assertThrows(SearchTimeoutException.class, () -> search.findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), new MinimumSpanningTreeHScoreComputer(), monitor));
+        assertEquals(SearchStats.Outcome.TIMED_OUT, stats.get(0).getOutcome());
+
+        // Without a preparation to check it, the deadline is found at the first expansion check.
+        assertThrows(SearchTimeoutException.class, () -> search.findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), new ZeroHScoreComputer(), monitor));
+        assertEquals(SearchStats.Outcome.TIMED_OUT, stats.get(1).getOutcome());
+        assertEquals(SearchMonitor.CHECK_INTERVAL, stats.get(1).getNumExpansions());
+    }
+
+    @Test
+    void reportsProgressAtEveryCheck() {
+        final List<SearchMonitor.Progress> progresses = new ArrayList<>();
+        final SearchMonitor monitor = new SearchMonitor(Long.MAX_VALUE, 0, progresses::add);
+        final Search.Result result = search.findShortestPath(graph, query[0], SeededMaps.targetsOf(query),
+                new ZeroHScoreComputer(), monitor);
+
+        assertFalse(progresses.isEmpty());
+        assertEquals(result.getNumExpansions() / SearchMonitor.CHECK_INTERVAL, progresses.size());
+        double bestFScore = 0;
+        for (int i = 0; i < progresses.size(); ++i) {
+            final SearchMonitor.Progress progress = progresses.get(i);
+            assertEquals((i + 1) * SearchMonitor.CHECK_INTERVAL, progress.getNumExpansions());
+            assertTrue(progress.getBestFScore() >= bestFScore);
+            assertTrue(progress.getBestFScore() <= result.getShortestPathCost());
+            bestFScore = progress.getBestFScore();
+        }
+    }
+
+    @Test
+    void sharedMonitorCannotBeCancelled() {
+        SearchMonitor.NONE.cancel();
+        assertFalse(SearchMonitor.NONE.isCancelled());
+        assertFalse(SearchMonitor.NONE.isStopped());
+        assertEquals(SeededMaps.aStarCost(graph, query), search.findShortestPath(graph, query[0],
+                SeededMaps.targetsOf(query), new MinimumSpanningTreeHScoreComputer(), SearchMonitor.NONE)
+                .getShortestPathCost(), SeededMaps.COST_TOLERANCE);
+    }
+}
@@ -0,0 +1,76 @@
+package edu.shalini.ai.search;
+
+import edu.shalini.ai.map.GraphSnapshot;
+import edu.shalini.ai.map.WorldMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded maps and queries for the search tests, and the plain A* costs the other searches are checked against.
+ */
+final class SeededMaps {
+    static final long SEED = 20240501L;
+    static final double COST_TOLERANCE = 1e-9;
+
+    private static final double MIN_DISTANCE = 25;
+
+    private SeededMaps() {
+    }
+
+    /**
+     * @param noOfNodes
+     * @return a map with room for the nodes at twice the minimum distance apart
+     */
+    static GraphSnapshot generate(final int noOfNodes) {
+        final int side = (int) (Math.sqrt(noOfNodes) * 2 * MIN_DISTANCE);
+        return WorldMap.generateMap(noOfNodes, MIN_DISTANCE, side, side, SEED).freeze();
+    }
+
+    /**
+     * Picks a source and targets from the source's connected component.
+     * @param graph
+     * @param noOfTargets
+     * @param random
+     * @return source node id followed by the target node ids
+     */
+    static int[] pickQuery(final GraphSnapshot graph, final int noOfTargets, final Random random) {
+        while (true) {
+            final int sourceNodeId = random.nextInt(graph.getNodeCount());
+            final double[] distances = ShortestPaths.computeDistances(graph, sourceNodeId);
+            final List<Integer> reachableNodeIds = new ArrayList<>();
+            for (int nodeId = 0; nodeId < distances.length; ++nodeId) {
+                if (nodeId != sourceNodeId && !Double.isInfinite(distances[nodeId])) {
+                    reachableNodeIds.add(nodeId);
+                }
+            }
+            if (reachableNodeIds.size() < noOfTargets) {
+                continue;
+            }
+            Collections.shuffle(reachableNodeIds, random);
+            final int[] query = new int[noOfTargets + 1];
+            query[0] = sourceNodeId;
+            for (int i = 0; i < noOfTargets; ++i) {
+                query[i + 1] = reachableNodeIds.get(i);
+            }
+            return query;
+        }
+    }
+
+    static int[] targetsOf(final int[] query) {
+        return Arrays.copyOfRange(query, 1, query.length);
+    }
+
+    /**
+     * @param graph
+     * @param query
+     * @return the cost of the route A* with the minimum spanning tree heuristic finds
+     */
+    static double aStarCost(final GraphSnapshot graph, final int[] query) {
+        return new Search().findShortestPath(graph, query[0], targetsOf(query),
+                new MinimumSpanningTreeHScoreComputer()).getShortestPathCost();
+    }
+}